@@ -0,0 +1,6 @@
+package org.litespring.aop;
+
+public interface ClassFilter {
+    // 返回 false 表示这个类的任何方法都不可能被匹配
+    boolean matches(Class<?> clazz);
+}
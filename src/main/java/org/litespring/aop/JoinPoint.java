@@ -0,0 +1,23 @@
+package org.litespring.aop;
+
+import java.lang.reflect.Method;
+
+/**
+ * The advised method call, as seen by an advice method declaring a parameter of
+ * this type.
+ */
+public interface JoinPoint {
+
+    /**
+     * Return the target object, not the proxy.
+     */
+    Object getTarget();
+
+    Method getMethod();
+
+    /**
+     * Return the arguments of the call. The array is not copied: change the
+     * arguments through {@link ProceedingJoinPoint#proceed(Object[])} instead.
+     */
+    Object[] getArgs();
+}
@@ -1,6 +1,7 @@
 package org.litespring.aop;
 
 public interface Pointcut {
+    ClassFilter getClassFilter();
     MethodMatcher getMethodMatcher();
     String getExpression();
 }
@@ -0,0 +1,18 @@
+package org.litespring.aop;
+
+/**
+ * Join point passed to around advice, which decides whether and how to carry
+ * on with the call.
+ */
+public interface ProceedingJoinPoint extends JoinPoint {
+
+    /**
+     * Proceed to the next advice, or the target method, with the current arguments.
+     */
+    Object proceed() throws Throwable;
+
+    /**
+     * Proceed with the given arguments, which replace the current ones.
+     */
+    Object proceed(Object[] args) throws Throwable;
+}
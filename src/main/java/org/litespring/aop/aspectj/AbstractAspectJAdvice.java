@@ -1,18 +1,35 @@
 package org.litespring.aop.aspectj;
 
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 
+import org.aopalliance.intercept.MethodInvocation;
 import org.litespring.aop.Advice;
+import org.litespring.aop.JoinPoint;
 import org.litespring.aop.Pointcut;
+import org.litespring.aop.ProceedingJoinPoint;
 import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.core.annotation.AnnotationUtils;
+import org.litespring.util.ClassUtils;
+import org.litespring.util.StringUtils;
 
 public abstract class AbstractAspectJAdvice implements Advice{
 
-
     protected Method adviceMethod;
     protected AspectJExpressionPointcut pointcut;
     protected AspectInstanceFactory adviceObjectFactory;
 
+    private String[] argumentNames;
+    private String returningName;
+    private String throwingName;
+
+    // 内置 advice 没有 adviceMethod，也就没有 binding
+    private volatile AdviceArgumentBinding argumentBinding;
+
+    // singleton aspect 的实例已经绑定进去的 (JoinPoint, Object, Throwable)Object
+    private volatile MethodHandle boundInvoker;
+
 
 
     public AbstractAspectJAdvice(Method adviceMethod,
@@ -22,12 +39,141 @@ public abstract class AbstractAspectJAdvice implements Advice{
         this.adviceMethod = adviceMethod;
         this.pointcut = pointcut;
         this.adviceObjectFactory = adviceObjectFactory;
+        this.argumentBinding = createArgumentBinding();
     }
 
+    /**
+     * Set the names of the advice method parameters, e.g. {@code "jp,retVal"},
+     * for when they are not compiled into the class.
+     */
+    public void setArgumentNames(String argumentNames) {
+        this.argumentNames = StringUtils.commaDelimitedListToStringArray(argumentNames);
+        for (int i = 0; i < this.argumentNames.length; i++) {
+            this.argumentNames[i] = this.argumentNames[i].trim();
+        }
+        this.argumentBinding = createArgumentBinding();
+    }
+
+    /**
+     * Set the name of the parameter the return value is bound to.
+     */
+    public void setReturningName(String returningName) {
+        this.returningName = returningName;
+        this.argumentBinding = createArgumentBinding();
+    }
+
+    /**
+     * Set the name of the parameter the thrown exception is bound to.
+     */
+    public void setThrowingName(String throwingName) {
+        this.throwingName = throwingName;
+        this.argumentBinding = createArgumentBinding();
+    }
+
+    private AdviceArgumentBinding createArgumentBinding() {
+        this.boundInvoker = null;
+        if (this.adviceMethod == null) {
+            return null;
+        }
+        return new AdviceArgumentBinding(this.adviceMethod, this.argumentNames, this.returningName, this.throwingName,
+                isProceedingJoinPointSupported());
+    }
+
+    /**
+     * Whether the advice method may take a {@link ProceedingJoinPoint}; only
+     * around advice can proceed with the call.
+     */
+    protected boolean isProceedingJoinPointSupported() {
+        return false;
+    }
 
+    /**
+     * Invoke an advice method that takes no parameters, outside of any call.
+     */
     public void invokeAdviceMethod() throws  Throwable{
-        adviceMethod.invoke(adviceObjectFactory.getAspectInstance());
+        AdviceArgumentBinding binding = this.argumentBinding;
+        if (binding != null && binding.hasParameters()) {
+            // 没有 join point 可以绑定，不能传 null 进去
+            throw new IllegalStateException("Advice method " + this.adviceMethod
+                    + " has parameters bound to the call and can only be invoked through the advice chain");
+        }
+        invokeAdviceMethod(null, null, null);
     }
+
+    /**
+     * Invoke the advice method, binding its parameters from the given join point,
+     * return value and exception.
+     */
+    protected Object invokeAdviceMethod(JoinPoint jp, Object returnValue, Throwable ex) throws Throwable {
+        MethodHandle bound = this.boundInvoker;
+        if (bound != null) {
+            return (Object) bound.invokeExact(jp, returnValue, ex);
+        }
+        AdviceArgumentBinding binding = this.argumentBinding;
+        if (binding == null) {
+            throw new IllegalStateException("Advice " + getClass().getName()
+                    + " is not backed by an advice method and can't invoke one");
+        }
+        Object aspectInstance = adviceObjectFactory.getAspectInstance();
+        MethodHandle invoker = binding.getInvoker();
+        if (invoker == null) {
+            return binding.invokeReflectively(aspectInstance, jp, returnValue, ex);
+        }
+        if (adviceObjectFactory.isSingleton()) {
+            this.boundInvoker = invoker.bindTo(aspectInstance);
+        }
+        return (Object) invoker.invokeExact(aspectInstance, jp, returnValue, ex);
+    }
+
+    /**
+     * Whether the call's arguments fit the advice method parameters bound to them.
+     */
+    protected boolean shouldInvoke(JoinPoint jp) {
+        AdviceArgumentBinding binding = this.argumentBinding;
+        return (binding == null || binding.matchesArguments(jp));
+    }
+
+    /**
+     * Whether the return value fits the parameter it is bound to, if any.
+     */
+    protected boolean shouldInvokeOnReturn(Object returnValue) {
+        AdviceArgumentBinding binding = this.argumentBinding;
+        return (binding == null || binding.matchesReturnValue(returnValue));
+    }
+
+    /**
+     * Whether the exception fits the parameter it is bound to, if any.
+     */
+    protected boolean shouldInvokeOnThrowing(Throwable ex) {
+        AdviceArgumentBinding binding = this.argumentBinding;
+        return (binding == null || binding.matchesException(ex));
+    }
+
+    /**
+     * Return the invocation as a join point; our own invocations already are one.
+     */
+    protected static ProceedingJoinPoint toJoinPoint(MethodInvocation mi) {
+        if (mi instanceof ProceedingJoinPoint) {
+            return (ProceedingJoinPoint) mi;
+        }
+        return new MethodInvocationProceedingJoinPoint(mi);
+    }
+
+    /**
+     * Find an annotation on the invoked method, falling back to the target class'
+     * implementation of it: JDK proxies are invoked with the interface method.
+     */
+    protected static <A extends Annotation> A findAnnotation(Method method, Object target, Class<A> annotationType) {
+        A annotation = AnnotationUtils.getAnnotation(method, annotationType);
+        if (annotation == null && target != null) {
+            Method specificMethod = ClassUtils.getMostSpecificMethod(method, ClassUtils.getUserClass(target));
+            if (specificMethod != method) {
+                annotation = AnnotationUtils.getAnnotation(specificMethod, annotationType);
+            }
+        }
+        return annotation;
+    }
+
     public Pointcut getPointcut(){
         return this.pointcut;
     }
@@ -37,4 +183,4 @@ public abstract class AbstractAspectJAdvice implements Advice{
     public Object getAdviceInstance() throws Exception {
         return adviceObjectFactory.getAspectInstance();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,267 @@
+package org.litespring.aop.aspectj;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+
+import org.litespring.aop.JoinPoint;
+import org.litespring.aop.ProceedingJoinPoint;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.util.ClassUtils;
+
+/**
+ * How the parameters of an advice method are filled, worked out once when the
+ * advice is configured.
+ *
+ * <p>A parameter of type {@link JoinPoint} or, for around advice only,
+ * {@link ProceedingJoinPoint} gets the join point; the parameter named by {@code returning} / {@code throwing}
+ * gets the return value / exception; every other parameter gets the argument of
+ * the advised method at the same position among those parameters. Parameter
+ * names come from {@code arg-names}, or from the class file when compiled with
+ * {@code -parameters}; without names, the first non join point parameter is the
+ * one bound to the return value or exception.
+ *
+ * <p>The binding is compiled into a single {@link MethodHandle} of type
+ * {@code (Object aspect, JoinPoint, Object returnValue, Throwable)Object}, so
+ * invoking the advice allocates no argument array.
+ */
+final class AdviceArgumentBinding {
+
+    static final MethodType INVOKER_TYPE = MethodType.methodType(
+            Object.class, Object.class, JoinPoint.class, Object.class, Throwable.class);
+
+    private static final int JOIN_POINT = 0;
+    private static final int RETURN_VALUE = 1;
+    private static final int EXCEPTION = 2;
+    private static final int ARGUMENT = 3;
+
+    private static final MethodHandle GET_ARGS;
+
+    static {
+        try {
+            GET_ARGS = MethodHandles.publicLookup().findVirtual(JoinPoint.class, "getArgs",
+                    MethodType.methodType(Object[].class));
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private final Method adviceMethod;
+
+    private final Class<?>[] parameterTypes;
+
+    private final int[] kinds;
+
+    // kinds[i] == ARGUMENT 时对应的被通知方法参数下标
+    private final int[] argumentIndexes;
+
+    private final Class<?> returningType;
+
+    private final Class<?> throwingType;
+
+    private final MethodHandle invoker;
+
+    AdviceArgumentBinding(Method adviceMethod, String[] argumentNames, String returningName, String throwingName,
+                          boolean proceedingAllowed) {
+        this.adviceMethod = adviceMethod;
+        this.parameterTypes = adviceMethod.getParameterTypes();
+        this.kinds = new int[this.parameterTypes.length];
+        this.argumentIndexes = new int[this.parameterTypes.length];
+
+        String[] names = getParameterNames(adviceMethod, argumentNames);
+        Class<?> returningType = null;
+        Class<?> throwingType = null;
+        int argumentIndex = 0;
+        for (int i = 0; i < this.parameterTypes.length; i++) {
+            Class<?> type = this.parameterTypes[i];
+            if (type == ProceedingJoinPoint.class && !proceedingAllowed) {
+                throw new AopConfigException("Only around advice can take a ProceedingJoinPoint, but " + adviceMethod
+                        + " is not around advice; use JoinPoint instead");
+            }
+            if (type == JoinPoint.class || type == ProceedingJoinPoint.class) {
+                this.kinds[i] = JOIN_POINT;
+            } else if (returningName != null && returningType == null && matchesName(names, i, returningName)) {
+                this.kinds[i] = RETURN_VALUE;
+                returningType = type;
+            } else if (throwingName != null && throwingType == null && matchesName(names, i, throwingName)) {
+                if (!Throwable.class.isAssignableFrom(type)) {
+                    throw new AopConfigException("Parameter '" + throwingName + "' of " + adviceMethod
+                            + " must be a Throwable to be bound to the exception");
+                }
+                this.kinds[i] = EXCEPTION;
+                throwingType = type;
+            } else {
+                this.kinds[i] = ARGUMENT;
+                this.argumentIndexes[i] = argumentIndex++;
+            }
+        }
+        if (returningName != null && returningType == null) {
+            throw new AopConfigException("No parameter '" + returningName + "' on " + adviceMethod + " to bind the return value to");
+        }
+        if (throwingName != null && throwingType == null) {
+            throw new AopConfigException("No parameter '" + throwingName + "' on " + adviceMethod + " to bind the exception to");
+        }
+        this.returningType = returningType;
+        this.throwingType = throwingType;
+        this.invoker = createInvoker();
+    }
+
+    private static String[] getParameterNames(Method method, String[] argumentNames) {
+        if (argumentNames != null) {
+            if (argumentNames.length != method.getParameterTypes().length) {
+                throw new AopConfigException("arg-names lists " + argumentNames.length + " names, but " + method
+                        + " has " + method.getParameterTypes().length + " parameters");
+            }
+            return argumentNames;
+        }
+        Parameter[] parameters = method.getParameters();
+        if (parameters.length == 0 || !parameters[0].isNamePresent()) {
+            return null;
+        }
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            names[i] = parameters[i].getName();
+        }
+        return names;
+    }
+
+    private static boolean matchesName(String[] names, int index, String name) {
+        // 没有参数名时，第一个非 JoinPoint 参数就是要绑定的那个
+        return (names == null || names[index].equals(name));
+    }
+
+    private MethodHandle createInvoker() {
+        try {
+            if (!Modifier.isPublic(this.adviceMethod.getModifiers())
+                    || !Modifier.isPublic(this.adviceMethod.getDeclaringClass().getModifiers())) {
+                this.adviceMethod.setAccessible(true);
+            }
+            MethodHandle handle = MethodHandles.lookup().unreflect(this.adviceMethod);
+            handle = handle.asType(handle.type().changeParameterType(0, Object.class).changeReturnType(Object.class));
+            // 从后往前把每个参数替换成 (JoinPoint, Object, Throwable) -> 参数值，最后把重复的三元组合并成一个
+            int[] reorder = new int[1 + 3 * this.parameterTypes.length];
+            for (int i = this.parameterTypes.length - 1; i >= 0; i--) {
+                handle = MethodHandles.collectArguments(handle, i + 1, createExtractor(i));
+            }
+            for (int i = 0; i < this.parameterTypes.length; i++) {
+                reorder[1 + 3 * i] = 1;
+                reorder[2 + 3 * i] = 2;
+                reorder[3 + 3 * i] = 3;
+            }
+            if (this.parameterTypes.length == 0) {
+                return MethodHandles.dropArguments(handle, 1, JoinPoint.class, Object.class, Throwable.class);
+            }
+            return MethodHandles.permuteArguments(handle, INVOKER_TYPE, reorder);
+        } catch (Exception ex) {
+            // 拿不到 MethodHandle 时仍然用反射调用
+            return null;
+        }
+    }
+
+    private MethodHandle createExtractor(int i) {
+        Class<?> type = this.parameterTypes[i];
+        MethodHandle extractor;
+        int position;
+        switch (this.kinds[i]) {
+            case JOIN_POINT:
+                extractor = MethodHandles.identity(JoinPoint.class);
+                position = 0;
+                break;
+            case RETURN_VALUE:
+                extractor = MethodHandles.identity(Object.class);
+                position = 1;
+                break;
+            case EXCEPTION:
+                extractor = MethodHandles.identity(Throwable.class);
+                position = 2;
+                break;
+            default:
+                MethodHandle element = MethodHandles.insertArguments(
+                        MethodHandles.arrayElementGetter(Object[].class), 1, this.argumentIndexes[i]);
+                extractor = MethodHandles.filterReturnValue(GET_ARGS, element);
+                position = 0;
+        }
+        extractor = extractor.asType(extractor.type().changeReturnType(type));
+        Class<?>[] all = {JoinPoint.class, Object.class, Throwable.class};
+        // 补齐另外两个用不到的参数
+        MethodHandle result = extractor;
+        for (int p = 0; p < all.length; p++) {
+            if (p != position) {
+                result = MethodHandles.dropArguments(result, p, all[p]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether the advice method has any parameter to bind.
+     */
+    boolean hasParameters() {
+        return (this.kinds.length > 0);
+    }
+
+    /**
+     * Whether the arguments of the call fit the advice parameters bound to them;
+     * if not, the advice does not apply to this call.
+     */
+    boolean matchesArguments(JoinPoint jp) {
+        Object[] args = null;
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] != ARGUMENT) {
+                continue;
+            }
+            if (args == null) {
+                args = (jp != null ? jp.getArgs() : new Object[0]);
+            }
+            int index = this.argumentIndexes[i];
+            if (index >= args.length || !ClassUtils.isAssignableValue(this.parameterTypes[i], args[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean matchesReturnValue(Object returnValue) {
+        return (this.returningType == null || ClassUtils.isAssignableValue(this.returningType, returnValue));
+    }
+
+    boolean matchesException(Throwable ex) {
+        return (this.throwingType == null || this.throwingType.isInstance(ex));
+    }
+
+    /**
+     * Return the compiled invoker, or {@code null} if advice has to be invoked
+     * through {@link #invokeReflectively}.
+     */
+    MethodHandle getInvoker() {
+        return this.invoker;
+    }
+
+    Object invokeReflectively(Object aspect, JoinPoint jp, Object returnValue, Throwable ex) throws Throwable {
+        Object[] args = new Object[this.kinds.length];
+        for (int i = 0; i < args.length; i++) {
+            switch (this.kinds[i]) {
+                case JOIN_POINT:
+                    args[i] = jp;
+                    break;
+                case RETURN_VALUE:
+                    args[i] = returnValue;
+                    break;
+                case EXCEPTION:
+                    args[i] = ex;
+                    break;
+                default:
+                    args[i] = jp.getArgs()[this.argumentIndexes[i]];
+            }
+        }
+        try {
+            return this.adviceMethod.invoke(aspect, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
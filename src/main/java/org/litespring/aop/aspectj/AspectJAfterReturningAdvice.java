@@ -3,6 +3,7 @@ package org.litespring.aop.aspectj;
 import java.lang.reflect.Method;
 
 import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.ProceedingJoinPoint;
 import org.litespring.aop.Advice;
 import org.litespring.aop.Pointcut;
 import org.litespring.aop.config.AspectInstanceFactory;
@@ -17,7 +18,10 @@ public class AspectJAfterReturningAdvice extends AbstractAspectJAdvice{
     public Object invoke(MethodInvocation mi) throws Throwable {
         Object o = mi.proceed();
         //例如：调用TransactionManager的commit方法
-        this.invokeAdviceMethod();
+        ProceedingJoinPoint jp = toJoinPoint(mi);
+        if (shouldInvokeOnReturn(o) && shouldInvoke(jp)) {
+            this.invokeAdviceMethod(jp, o, null);
+        }
         return o;
     }
 
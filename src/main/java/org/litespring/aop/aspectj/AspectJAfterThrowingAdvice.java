@@ -3,6 +3,7 @@ package org.litespring.aop.aspectj;
 import java.lang.reflect.Method;
 
 import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.ProceedingJoinPoint;
 import org.litespring.aop.config.AspectInstanceFactory;
 
 public class AspectJAfterThrowingAdvice extends AbstractAspectJAdvice  {
@@ -19,7 +20,10 @@ public class AspectJAfterThrowingAdvice extends AbstractAspectJAdvice  {
         try {
             return mi.proceed();
         } catch (Throwable t) {
-            invokeAdviceMethod();
+            ProceedingJoinPoint jp = toJoinPoint(mi);
+            if (shouldInvokeOnThrowing(t) && shouldInvoke(jp)) {
+                invokeAdviceMethod(jp, null, t);
+            }
             throw t;
         }
     }
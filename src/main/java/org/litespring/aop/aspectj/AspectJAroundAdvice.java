@@ -0,0 +1,33 @@
+package org.litespring.aop.aspectj;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.ProceedingJoinPoint;
+import org.litespring.aop.config.AspectInstanceFactory;
+
+/**
+ * Around advice: the advice method receives a {@link ProceedingJoinPoint} and
+ * returns the result of the call.
+ */
+public class AspectJAroundAdvice extends AbstractAspectJAdvice {
+
+    public AspectJAroundAdvice(Method adviceMethod, AspectJExpressionPointcut pointcut,
+                               AspectInstanceFactory adviceObjectFactory) {
+
+        super(adviceMethod, pointcut, adviceObjectFactory);
+    }
+
+    protected boolean isProceedingJoinPointSupported() {
+        return true;
+    }
+
+    public Object invoke(MethodInvocation mi) throws Throwable {
+        ProceedingJoinPoint jp = toJoinPoint(mi);
+        if (!shouldInvoke(jp)) {
+            return mi.proceed();
+        }
+        return invokeAdviceMethod(jp, null, null);
+    }
+
+}
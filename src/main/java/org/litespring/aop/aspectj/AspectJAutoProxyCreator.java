@@ -2,15 +2,19 @@ package org.litespring.aop.aspectj;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.litespring.aop.Advice;
 import org.litespring.aop.MethodMatcher;
 import org.litespring.aop.Pointcut;
 import org.litespring.aop.framework.AopConfigSupport;
 import org.litespring.aop.framework.AopProxyFactory;
+import org.litespring.aop.framework.CglibInterfaceProxyFactory;
 import org.litespring.aop.framework.CglibProxyFactory;
 import org.litespring.aop.framework.JdkAopProxyFactory;
 import org.litespring.beans.BeansException;
@@ -19,7 +23,22 @@ import org.litespring.beans.factory.config.ConfigurableBeanFactory;
 import org.litespring.util.ClassUtils;
 
 public class AspectJAutoProxyCreator implements BeanPostProcessor {
+
+    /**
+     * Name of the synthetic bean definition that configures the creator used by
+     * the application context, registered by {@code <aop:config>} when it changes
+     * the defaults.
+     */
+    public static final String AUTO_PROXY_CREATOR_BEAN_NAME = "org.litespring.aop.config.internalAutoProxyCreator";
+
     ConfigurableBeanFactory beanFactory;
+    // 有接口的 bean 用 CGLIB 生成接口代理，而不是 java.lang.reflect.Proxy
+    private boolean bytecodeInterfaceProxies = false;
+    // 容器中所有的 Advice，第一次用到时查找一次，之后不再变化
+    private volatile List<Advice> adviceRegistry;
+    private boolean discoveringAdvices = false;
+    // bean 类型 -> 适用于它的 Advice
+    private final Map<Class<?>, List<Advice>> eligibleAdvicesCache = new ConcurrentHashMap<Class<?>, List<Advice>>(64);
     public Object beforeInitialization(Object bean, String beanName) throws BeansException {
         return bean;
     }
@@ -41,19 +60,56 @@ public class AspectJAutoProxyCreator implements BeanPostProcessor {
 
     private List<Advice> getCandidateAdvices(Object bean){
 
-        List<Object> advices = this.beanFactory.getBeansByType(Advice.class);
+        Class<?> beanClass = bean.getClass();
+        List<Advice> cached = this.eligibleAdvicesCache.get(beanClass);
+        if (cached != null) {
+            return cached;
+        }
 
+        List<Advice> advices = getAdviceRegistry();
         List<Advice> result = new ArrayList<Advice>();
-        for(Object o : advices){
-            Pointcut pc = ((Advice) o).getPointcut();
-            if(canApply(pc,bean.getClass())){
-                result.add((Advice) o);
+        for(Advice advice : advices){
+            Pointcut pc = advice.getPointcut();
+            if(canApply(pc,beanClass)){
+                result.add(advice);
             }
 
         }
+        result = (result.isEmpty() ? Collections.<Advice>emptyList() : Collections.unmodifiableList(result));
+        if (advices == this.adviceRegistry) {
+            // 查找 Advice 的过程中创建的 bean 看到的是不完整的列表，不能缓存
+            this.eligibleAdvicesCache.put(beanClass, result);
+        }
         return result;
     }
 
+    private List<Advice> getAdviceRegistry() {
+        List<Advice> advices = this.adviceRegistry;
+        if (advices != null) {
+            return advices;
+        }
+        synchronized (this) {
+            if (this.adviceRegistry != null) {
+                return this.adviceRegistry;
+            }
+            if (this.discoveringAdvices) {
+                // 创建 Advice 时触发的后处理（同一线程重入），这时还没有可用的 Advice
+                return Collections.emptyList();
+            }
+            this.discoveringAdvices = true;
+            try {
+                List<Advice> result = new ArrayList<Advice>();
+                for (Object o : this.beanFactory.getBeansByType(Advice.class)) {
+                    result.add((Advice) o);
+                }
+                this.adviceRegistry = Collections.unmodifiableList(result);
+                return this.adviceRegistry;
+            } finally {
+                this.discoveringAdvices = false;
+            }
+        }
+    }
+
     protected Object createProxy( List<Advice> advices ,Object bean) {
 
 
@@ -72,8 +128,9 @@ public class AspectJAutoProxyCreator implements BeanPostProcessor {
         AopProxyFactory proxyFactory = null;
         if(config.getProxiedInterfaces().length == 0){
             proxyFactory =  new CglibProxyFactory(config);
+        } else if(this.bytecodeInterfaceProxies){
+            proxyFactory = new CglibInterfaceProxyFactory(config);
         } else{
-            //TODO 需要实现JDK 代理
             proxyFactory = new JdkAopProxyFactory(config);
         }
 
@@ -94,8 +151,25 @@ public class AspectJAutoProxyCreator implements BeanPostProcessor {
 
     }
 
+    /**
+     * Set whether beans implementing interfaces are proxied by a generated class
+     * ({@link CglibInterfaceProxyFactory}) instead of a JDK dynamic proxy.
+     * Default is "false"; set by {@code <aop:config bytecode-interface-proxies="true">}.
+     */
+    public void setBytecodeInterfaceProxies(boolean bytecodeInterfaceProxies) {
+        this.bytecodeInterfaceProxies = bytecodeInterfaceProxies;
+    }
+
+    public boolean isBytecodeInterfaceProxies() {
+        return this.bytecodeInterfaceProxies;
+    }
+
     public static boolean canApply(Pointcut pc, Class<?> targetClass) {
 
+        // 先在类级别过滤，大多数 pointcut 和 bean 在这里就排除了，不用逐个方法匹配
+        if (!pc.getClassFilter().matches(targetClass)) {
+            return false;
+        }
 
         MethodMatcher methodMatcher = pc.getMethodMatcher();
 
@@ -3,6 +3,7 @@ package org.litespring.aop.aspectj;
 import java.lang.reflect.Method;
 
 import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.ProceedingJoinPoint;
 import org.litespring.aop.config.AspectInstanceFactory;
 
 
@@ -14,7 +15,10 @@ public class AspectJBeforeAdvice extends AbstractAspectJAdvice {
 
     public Object invoke(MethodInvocation mi) throws Throwable {
         //例如： 调用TransactionManager的start方法
-        this.invokeAdviceMethod();
+        ProceedingJoinPoint jp = toJoinPoint(mi);
+        if (shouldInvoke(jp)) {
+            this.invokeAdviceMethod(jp, null, null);
+        }
         Object o = mi.proceed();
         return o;
     }
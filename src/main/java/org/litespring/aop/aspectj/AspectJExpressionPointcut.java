@@ -2,9 +2,15 @@ package org.litespring.aop.aspectj;
 
 
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aspectj.weaver.reflect.ReflectionWorld.ReflectionWorldException;
 import org.aspectj.weaver.tools.PointcutExpression;
@@ -12,12 +18,13 @@ import org.aspectj.weaver.tools.PointcutParameter;
 import org.aspectj.weaver.tools.PointcutParser;
 import org.aspectj.weaver.tools.PointcutPrimitive;
 import org.aspectj.weaver.tools.ShadowMatch;
+import org.litespring.aop.ClassFilter;
 import org.litespring.aop.MethodMatcher;
 import org.litespring.aop.Pointcut;
 import org.litespring.util.ClassUtils;
 import org.litespring.util.StringUtils;
 
-public class AspectJExpressionPointcut implements Pointcut,MethodMatcher {
+public class AspectJExpressionPointcut implements Pointcut,ClassFilter,MethodMatcher {
 
     private static final Set<PointcutPrimitive> SUPPORTED_PRIMITIVES = new HashSet<PointcutPrimitive>();
 
@@ -34,15 +41,34 @@ public class AspectJExpressionPointcut implements Pointcut,MethodMatcher {
         SUPPORTED_PRIMITIVES.add(PointcutPrimitive.AT_TARGET);
     }
 
+    private static final int MAX_SHARED_EXPRESSIONS = 256;
+
+    // 表达式文本相同的 pointcut 共用同一个解析结果。只弱引用解析结果：它通过 ReflectionWorld
+    // 引用着 ClassLoader，强引用会让弱键失效；没有 pointcut 再用它时就可以回收
+    private static final Map<ClassLoader, Map<String, WeakReference<PointcutExpression>>> sharedExpressions =
+            new WeakHashMap<ClassLoader, Map<String, WeakReference<PointcutExpression>>>();
+
     private String expression;
 
-    private  PointcutExpression pointcutExpression;
+    private volatile PointcutExpression pointcutExpression;
+
+    // 简单的 execution() 表达式不经过 AspectJ 匹配，也就不会为它建 ReflectionWorld
+    private volatile SimpleExecutionMatcher simpleMatcher;
 
     private ClassLoader pointcutClassLoader;
 
+    private final Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<Method, ShadowMatch>(32);
+
+    private final Map<Class<?>, Boolean> classMatchCache = new ConcurrentHashMap<Class<?>, Boolean>(32);
+
     public AspectJExpressionPointcut(){
 
     }
+    public ClassFilter getClassFilter() {
+
+        return this;
+    }
+
     public MethodMatcher getMethodMatcher() {
 
         return this;
@@ -54,12 +80,62 @@ public class AspectJExpressionPointcut implements Pointcut,MethodMatcher {
     }
     public void setExpression(String expression){
         this.expression = expression;
+        this.pointcutExpression = null;
+        this.simpleMatcher = SimpleExecutionMatcher.compile(expression);
+        this.shadowMatchCache.clear();
+        this.classMatchCache.clear();
     }
+    /**
+     * Whether join points in the given type could match at all. A conservative
+     * answer: {@code true} only means the methods have to be checked one by one.
+     */
+    public boolean matches(Class<?> targetClass) {
+
+        checkExpression();
+
+        Boolean cached = this.classMatchCache.get(targetClass);
+        if (cached != null) {
+            return cached;
+        }
+        SimpleExecutionMatcher simpleMatcher = this.simpleMatcher;
+        if (simpleMatcher != null) {
+            int simpleResult = simpleMatcher.matchesClass(targetClass);
+            if (simpleResult != SimpleExecutionMatcher.UNKNOWN) {
+                boolean result = (simpleResult == SimpleExecutionMatcher.MATCH);
+                this.classMatchCache.put(targetClass, result);
+                return result;
+            }
+        }
+
+        // 用局部变量：并发的 setExpression() 会把字段置为 null
+        PointcutExpression pointcutExpression = checkReadyToMatch();
+        boolean result;
+        try {
+            synchronized (pointcutExpression) {
+                result = pointcutExpression.couldMatchJoinPointsInType(targetClass);
+            }
+        }
+        catch (ReflectionWorldException ex) {
+            // 无法判断时按可能匹配处理，交给方法级别的匹配
+            result = true;
+        }
+        this.classMatchCache.put(targetClass, result);
+        return result;
+    }
+
     public boolean matches(Method method/*, Class<?> targetClass*/) {
 
-        checkReadyToMatch();
+        checkExpression();
 
-        ShadowMatch shadowMatch = getShadowMatch(method);
+        SimpleExecutionMatcher simpleMatcher = this.simpleMatcher;
+        if (simpleMatcher != null) {
+            int simpleResult = simpleMatcher.matchesMethod(method);
+            if (simpleResult != SimpleExecutionMatcher.UNKNOWN) {
+                return (simpleResult == SimpleExecutionMatcher.MATCH);
+            }
+        }
+
+        ShadowMatch shadowMatch = getShadowMatch(method, checkReadyToMatch());
 
         if (shadowMatch.alwaysMatches()) {
             return true;
@@ -67,11 +143,18 @@ public class AspectJExpressionPointcut implements Pointcut,MethodMatcher {
 
         return false;
     }
-    private ShadowMatch getShadowMatch(Method method) {
+    private ShadowMatch getShadowMatch(Method method, PointcutExpression pointcutExpression) {
 
-        ShadowMatch shadowMatch = null;
+        ShadowMatch shadowMatch = this.shadowMatchCache.get(method);
+        if (shadowMatch != null) {
+            return shadowMatch;
+        }
         try {
-            shadowMatch = this.pointcutExpression.matchesMethodExecution(method);
+            // 解析结果可能被多个 pointcut 共享，AspectJ 的匹配不保证线程安全
+            synchronized (pointcutExpression) {
+                shadowMatch = pointcutExpression.matchesMethodExecution(method);
+            }
+            this.shadowMatchCache.put(method, shadowMatch);
         }
         catch (ReflectionWorldException ex) {
 
@@ -89,16 +172,72 @@ public class AspectJExpressionPointcut implements Pointcut,MethodMatcher {
         return shadowMatch;
     }
 
-    private void checkReadyToMatch() {
+    private void checkExpression() {
         if (getExpression() == null) {
             throw new IllegalStateException("Must set property 'expression' before attempting to match");
         }
-        if (this.pointcutExpression == null) {
+    }
+
+    private PointcutExpression checkReadyToMatch() {
+        checkExpression();
+        PointcutExpression pointcutExpression = this.pointcutExpression;
+        if (pointcutExpression == null) {
             this.pointcutClassLoader = ClassUtils.getDefaultClassLoader();
-            this.pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
+            pointcutExpression = obtainPointcutExpression(this.pointcutClassLoader);
+            this.pointcutExpression = pointcutExpression;
+        }
+        return pointcutExpression;
+    }
+
+    @SuppressWarnings("serial")
+    private PointcutExpression obtainPointcutExpression(ClassLoader classLoader) {
+        if (!isSharable(classLoader)) {
+            return buildPointcutExpression(classLoader);
+        }
+        String expression = replaceBooleanOperators(getExpression());
+        synchronized (sharedExpressions) {
+            Map<String, WeakReference<PointcutExpression>> expressions = sharedExpressions.get(classLoader);
+            if (expressions == null) {
+                expressions = new LinkedHashMap<String, WeakReference<PointcutExpression>>(16, 0.75f, true) {
+                    protected boolean removeEldestEntry(Map.Entry<String, WeakReference<PointcutExpression>> eldest) {
+                        return size() > MAX_SHARED_EXPRESSIONS;
+                    }
+                };
+                sharedExpressions.put(classLoader, expressions);
+            }
+            WeakReference<PointcutExpression> ref = expressions.get(expression);
+            PointcutExpression pointcutExpression = (ref != null ? ref.get() : null);
+            if (pointcutExpression == null) {
+                purgeCollected(expressions);
+                pointcutExpression = buildPointcutExpression(classLoader);
+                expressions.put(expression, new WeakReference<PointcutExpression>(pointcutExpression));
+            }
+            return pointcutExpression;
+        }
+    }
+
+    private static void purgeCollected(Map<String, WeakReference<PointcutExpression>> expressions) {
+        for (Iterator<WeakReference<PointcutExpression>> it = expressions.values().iterator(); it.hasNext(); ) {
+            if (it.next().get() == null) {
+                it.remove();
+            }
         }
     }
 
+    /**
+     * Whether expressions parsed against the given ClassLoader may be kept in the
+     * static cache: only if it is the ClassLoader of this class or one of its
+     * parents, so that the cache can't pin a shorter-lived (e.g. web app) loader.
+     */
+    private static boolean isSharable(ClassLoader classLoader) {
+        for (ClassLoader cl = AspectJExpressionPointcut.class.getClassLoader(); cl != null; cl = cl.getParent()) {
+            if (cl == classLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private PointcutExpression buildPointcutExpression(ClassLoader classLoader) {
 
 
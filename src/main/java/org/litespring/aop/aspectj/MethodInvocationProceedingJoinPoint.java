@@ -0,0 +1,44 @@
+package org.litespring.aop.aspectj;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.ProceedingJoinPoint;
+
+/**
+ * Adapts a {@link MethodInvocation} that is not already a {@link ProceedingJoinPoint}.
+ */
+class MethodInvocationProceedingJoinPoint implements ProceedingJoinPoint {
+
+    private final MethodInvocation methodInvocation;
+
+    MethodInvocationProceedingJoinPoint(MethodInvocation methodInvocation) {
+        this.methodInvocation = methodInvocation;
+    }
+
+    public Object getTarget() {
+        return this.methodInvocation.getThis();
+    }
+
+    public Method getMethod() {
+        return this.methodInvocation.getMethod();
+    }
+
+    public Object[] getArgs() {
+        return this.methodInvocation.getArguments();
+    }
+
+    public Object proceed() throws Throwable {
+        return this.methodInvocation.proceed();
+    }
+
+    public Object proceed(Object[] args) throws Throwable {
+        Object[] current = this.methodInvocation.getArguments();
+        if (args == null || args.length != current.length) {
+            throw new IllegalArgumentException("Expecting " + current.length + " arguments to proceed, but got "
+                    + (args == null ? 0 : args.length));
+        }
+        System.arraycopy(args, 0, current, 0, args.length);
+        return this.methodInvocation.proceed();
+    }
+}
@@ -0,0 +1,313 @@
+package org.litespring.aop.aspectj;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.litespring.util.ClassUtils;
+
+/**
+ * Matcher for the common subset of {@code execution()} pointcuts, compiled from
+ * the expression without the AspectJ weaver:
+ *
+ * <pre class="code">
+ * execution([public] RET TYPE.METHOD(PARAMS))</pre>
+ *
+ * where {@code RET} is {@code *}, {@code void} or a primitive, {@code TYPE} is a
+ * qualified type name whose segments may contain {@code *} and which may contain
+ * {@code ..} (any number of packages), or just {@code *}, {@code METHOD} is a name with {@code *},
+ * and {@code PARAMS} is a list of {@code *} and at most one {@code ..}.
+ *
+ * <p>Anything else ({@code &&}, other designators, named types, {@code throws},
+ * {@code +}...) is left to AspectJ, and so are the methods this matcher cannot
+ * judge exactly, e.g. those of nested classes: {@link #UNKNOWN} is returned for them.
+ */
+final class SimpleExecutionMatcher {
+
+    static final int NO_MATCH = 0;
+    static final int MATCH = 1;
+    static final int UNKNOWN = 2;
+
+    private static final String EXECUTION = "execution(";
+
+    private final boolean publicOnly;
+
+    // null 表示任意返回类型
+    private final Class<?> returnType;
+
+    // null 表示任意声明类型；空字符串表示 ".."
+    private final String[] typeSegments;
+
+    private final NamePattern methodName;
+
+    private final int minArguments;
+
+    private final boolean varArguments;
+
+    private SimpleExecutionMatcher(boolean publicOnly, Class<?> returnType, String[] typeSegments,
+                                   NamePattern methodName, int minArguments, boolean varArguments) {
+        this.publicOnly = publicOnly;
+        this.returnType = returnType;
+        this.typeSegments = typeSegments;
+        this.methodName = methodName;
+        this.minArguments = minArguments;
+        this.varArguments = varArguments;
+    }
+
+    /**
+     * Compile the expression, or return {@code null} if it is not in the supported subset.
+     */
+    static SimpleExecutionMatcher compile(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        String expr = expression.trim();
+        if (!expr.startsWith(EXECUTION) || !expr.endsWith(")")) {
+            return null;
+        }
+        String body = expr.substring(EXECUTION.length(), expr.length() - 1).trim();
+        int open = body.indexOf('(');
+        int close = body.lastIndexOf(')');
+        if (open < 0 || close != body.length() - 1 || body.indexOf('(', open + 1) >= 0) {
+            return null;
+        }
+
+        String[] head = body.substring(0, open).trim().split("\\s+");
+        boolean publicOnly = false;
+        int index = 0;
+        if (head.length == 3 && "public".equals(head[0])) {
+            publicOnly = true;
+            index = 1;
+        } else if (head.length != 2) {
+            return null;
+        }
+
+        Class<?> returnType = null;
+        String returnPattern = head[index];
+        if (!"*".equals(returnPattern)) {
+            returnType = ClassUtils.resolvePrimitiveClassName(returnPattern);
+            if (returnType == null) {
+                return null;
+            }
+        }
+
+        String signature = head[index + 1];
+        int lastDot = signature.lastIndexOf('.');
+        String methodPattern = signature.substring(lastDot + 1);
+        if (!isNamePattern(methodPattern)) {
+            return null;
+        }
+        String[] typeSegments = null;
+        // 单独的 "*" 匹配任意类型；不带包名的类型名由 AspectJ 按 java.lang 等解析，交给 AspectJ
+        if (lastDot >= 0 && !"*".equals(signature.substring(0, lastDot))) {
+            typeSegments = compileTypePattern(signature.substring(0, lastDot));
+            if (typeSegments == null) {
+                return null;
+            }
+        }
+
+        int minArguments = 0;
+        boolean varArguments = false;
+        String params = body.substring(open + 1, close).trim();
+        if (params.length() > 0) {
+            for (String param : params.split(",")) {
+                param = param.trim();
+                if ("*".equals(param)) {
+                    minArguments++;
+                } else if ("..".equals(param) && !varArguments) {
+                    varArguments = true;
+                } else {
+                    return null;
+                }
+            }
+        }
+
+        return new SimpleExecutionMatcher(publicOnly, returnType, typeSegments,
+                new NamePattern(methodPattern), minArguments, varArguments);
+    }
+
+    private static String[] compileTypePattern(String typePattern) {
+        // "a.b..*" -> [a, b, "", *]；空段表示 ".."
+        if (typePattern.isEmpty() || typePattern.startsWith(".") || typePattern.endsWith(".")
+                || typePattern.contains("...")) {
+            return null;
+        }
+        String[] segments = typePattern.split("\\.", -1);
+        if (segments.length < 2) {
+            return null;
+        }
+        for (String segment : segments) {
+            if (!segment.isEmpty() && !isNamePattern(segment)) {
+                return null;
+            }
+        }
+        return segments;
+    }
+
+    private static boolean isNamePattern(String pattern) {
+        if (pattern.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '*' && c != '_' && !Character.isLetterOrDigit(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether methods of the given class could match: the class or one of its
+     * supertypes must match the declaring type pattern.
+     */
+    int matchesClass(Class<?> targetClass) {
+        if (this.typeSegments == null) {
+            return MATCH;
+        }
+        boolean unknown = false;
+        for (Class<?> type : getHierarchy(targetClass)) {
+            int result = matchesTypeName(type);
+            if (result == MATCH) {
+                return MATCH;
+            }
+            unknown |= (result == UNKNOWN);
+        }
+        return (unknown ? UNKNOWN : NO_MATCH);
+    }
+
+    int matchesMethod(Method method) {
+        if (method.isSynthetic()) {
+            return UNKNOWN;
+        }
+        if (this.publicOnly && !Modifier.isPublic(method.getModifiers())) {
+            return NO_MATCH;
+        }
+        if (this.returnType != null && method.getReturnType() != this.returnType) {
+            return NO_MATCH;
+        }
+        int argumentCount = method.getParameterTypes().length;
+        if (argumentCount < this.minArguments || (!this.varArguments && argumentCount != this.minArguments)) {
+            return NO_MATCH;
+        }
+        if (!this.methodName.matches(method.getName())) {
+            return NO_MATCH;
+        }
+        if (this.typeSegments == null) {
+            return MATCH;
+        }
+        int result = matchesTypeName(method.getDeclaringClass());
+        if (result != NO_MATCH || Modifier.isPrivate(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+            return result;
+        }
+        // 和 AspectJ 一样，父类型中声明了同一个方法的，按父类型的名字也算匹配
+        boolean unknown = false;
+        for (Class<?> type : getHierarchy(method.getDeclaringClass())) {
+            if (type == method.getDeclaringClass() || !declaresOverridable(type, method)) {
+                continue;
+            }
+            result = matchesTypeName(type);
+            if (result == MATCH) {
+                return MATCH;
+            }
+            unknown |= (result == UNKNOWN);
+        }
+        return (unknown ? UNKNOWN : NO_MATCH);
+    }
+
+    private int matchesTypeName(Class<?> type) {
+        if (type.getEnclosingClass() != null || type.isArray() || type.isPrimitive()) {
+            // 嵌套类在 AspectJ 中的名字规则不同，交给 AspectJ
+            return UNKNOWN;
+        }
+        String[] names = type.getName().split("\\.");
+        return (matchSegments(0, names, 0) ? MATCH : NO_MATCH);
+    }
+
+    private boolean matchSegments(int p, String[] names, int n) {
+        if (p == this.typeSegments.length) {
+            return n == names.length;
+        }
+        String segment = this.typeSegments[p];
+        if (segment.isEmpty()) {
+            // ".." 可以匹配任意多个（包括零个）包
+            for (int skip = n; skip <= names.length; skip++) {
+                if (matchSegments(p + 1, names, skip)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return n < names.length && NamePattern.matches(segment, names[n]) && matchSegments(p + 1, names, n + 1);
+    }
+
+    private static boolean declaresOverridable(Class<?> type, Method method) {
+        try {
+            Method declared = type.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            return !Modifier.isPrivate(declared.getModifiers()) && !Modifier.isStatic(declared.getModifiers());
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    private static Set<Class<?>> getHierarchy(Class<?> clazz) {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        List<Class<?>> queue = new ArrayList<Class<?>>();
+        queue.add(clazz);
+        for (int i = 0; i < queue.size(); i++) {
+            Class<?> type = queue.get(i);
+            if (type == null || !types.add(type)) {
+                continue;
+            }
+            queue.add(type.getSuperclass());
+            for (Class<?> ifc : type.getInterfaces()) {
+                queue.add(ifc);
+            }
+        }
+        return types;
+    }
+
+
+    /**
+     * A name with {@code *} wildcards, split into the literal parts between them.
+     */
+    private static final class NamePattern {
+        private final String pattern;
+
+        NamePattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        boolean matches(String name) {
+            return matches(this.pattern, name);
+        }
+
+        static boolean matches(String pattern, String name) {
+            if ("*".equals(pattern)) {
+                return true;
+            }
+            int star = pattern.indexOf('*');
+            if (star < 0) {
+                return pattern.equals(name);
+            }
+            // 第一个 * 之前必须是前缀，最后一个 * 之后必须是后缀，中间的部分依次出现
+            String[] parts = pattern.split("\\*", -1);
+            if (!name.startsWith(parts[0])) {
+                return false;
+            }
+            int pos = parts[0].length();
+            for (int i = 1; i < parts.length - 1; i++) {
+                int found = name.indexOf(parts[i], pos);
+                if (found < 0) {
+                    return false;
+                }
+                pos = found + parts[i].length();
+            }
+            String last = parts[parts.length - 1];
+            return name.length() - pos >= last.length() && name.endsWith(last);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.litespring.aop.async;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method that {@link AsyncAdvice} runs on the {@link AsyncExecutor}
+ * instead of the caller's thread.
+ *
+ * <p>The method must return {@code void}, {@code Future} or
+ * {@code CompletableFuture}. A returned future is only a holder for the result
+ * (e.g. {@code CompletableFuture.completedFuture(value)}): the caller gets a
+ * future completed with that result, or with the exception thrown by the method.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Async {
+}
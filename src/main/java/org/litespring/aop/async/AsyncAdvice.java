@@ -0,0 +1,117 @@
+package org.litespring.aop.async;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.litespring.aop.aspectj.AbstractAspectJAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.aop.framework.ReflectiveMethodInvocation;
+
+/**
+ * Advice running calls of {@link Async} methods on the {@link AsyncExecutor} the
+ * aspect refers to, so the caller returns at once. Methods returning a future
+ * hand the caller a {@link CompletableFuture} for the result; exceptions of
+ * {@code void} methods are logged. Without a pointcut, {@code <aop:async>}
+ * applies to the methods annotated with {@link Async}; matched methods without
+ * the annotation are invoked as is.
+ */
+public class AsyncAdvice extends AbstractAspectJAdvice {
+
+    private static final Log logger = LogFactory.getLog(AsyncAdvice.class);
+
+    private final Map<Method, Boolean> asyncMethods = new ConcurrentHashMap<Method, Boolean>(16);
+
+    public AsyncAdvice(AspectJExpressionPointcut pointcut, AspectInstanceFactory adviceObjectFactory) {
+        super(null, pointcut, adviceObjectFactory);
+    }
+
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        final Method method = invocation.getMethod();
+        if (!isAsync(method, invocation.getThis())) {
+            return invocation.proceed();
+        }
+        // 调用返回后才在其他线程上 proceed，要用当前位置的副本
+        final MethodInvocation mi = (invocation instanceof ReflectiveMethodInvocation
+                ? ((ReflectiveMethodInvocation) invocation).invocableClone() : invocation);
+        AsyncExecutor executor = getAsyncExecutor();
+        if (method.getReturnType() == void.class) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        mi.proceed();
+                    } catch (Throwable ex) {
+                        logger.error("Unexpected exception in @Async method " + method, ex);
+                    }
+                }
+            });
+            return null;
+        }
+        final CompletableFuture<Object> result = new CompletableFuture<Object>();
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    complete(result, mi.proceed());
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                }
+            }
+        });
+        return result;
+    }
+
+    private static void complete(final CompletableFuture<Object> result, Object value) throws Throwable {
+        if (value instanceof CompletableFuture) {
+            ((CompletableFuture<?>) value).whenComplete(new BiConsumer<Object, Throwable>() {
+                public void accept(Object v, Throwable ex) {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else {
+                        result.complete(v);
+                    }
+                }
+            });
+        } else if (value instanceof Future) {
+            try {
+                result.complete(((Future<?>) value).get());
+            } catch (ExecutionException ex) {
+                throw ex.getCause();
+            }
+        } else {
+            result.complete(value);
+        }
+    }
+
+    private boolean isAsync(Method method, Object target) {
+        Boolean async = this.asyncMethods.get(method);
+        if (async == null) {
+            async = (findAnnotation(method, target, Async.class) != null);
+            if (async) {
+                Class<?> returnType = method.getReturnType();
+                if (returnType != void.class && returnType != Future.class && returnType != CompletableFuture.class) {
+                    throw new AopConfigException("@Async method " + method
+                            + " must return void, Future or CompletableFuture");
+                }
+            }
+            this.asyncMethods.put(method, async);
+        }
+        return async;
+    }
+
+    private AsyncExecutor getAsyncExecutor() throws Exception {
+        Object executor = getAdviceInstance();
+        if (!(executor instanceof AsyncExecutor)) {
+            throw new AopConfigException("The aspect of <aop:async> must be an AsyncExecutor, but was " + executor);
+        }
+        return (AsyncExecutor) executor;
+    }
+}
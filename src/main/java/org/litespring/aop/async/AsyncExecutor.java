@@ -0,0 +1,139 @@
+package org.litespring.aop.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the methods dispatched by {@link AsyncAdvice}, declared as the bean the
+ * {@code <aop:async>} aspect refers to:
+ *
+ * <pre class="code">
+ * &lt;bean id="async" class="org.litespring.aop.async.AsyncExecutor"/&gt;
+ *
+ * &lt;aop:config&gt;
+ *     &lt;aop:aspect ref="async"&gt;
+ *         &lt;aop:async/&gt;
+ *     &lt;/aop:aspect&gt;
+ * &lt;/aop:config&gt;</pre>
+ *
+ * Unless an {@link #setExecutor executor} is given, each task gets a virtual
+ * thread when the JDK has them (21+), and otherwise runs on a pool of
+ * {@code maxThreads} daemon threads with a queue of {@code queueCapacity} tasks;
+ * calls beyond that are rejected with a
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ */
+public class AsyncExecutor {
+
+    private int maxThreads = Runtime.getRuntime().availableProcessors() * 4;
+
+    private int queueCapacity = 1024;
+
+    private boolean virtualThreads = true;
+
+    private volatile Executor executor;
+
+    private final LongAdder submitted = new LongAdder();
+
+
+    public void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be positive: " + maxThreads);
+        }
+        this.maxThreads = maxThreads;
+    }
+
+    public int getMaxThreads() {
+        return this.maxThreads;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    /**
+     * Whether to use virtual threads when available; {@code false} always uses
+     * the bounded pool.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Number of method calls dispatched.
+     */
+    public long getSubmittedCount() {
+        return this.submitted.sum();
+    }
+
+    void execute(Runnable task) {
+        getExecutor().execute(task);
+        this.submitted.increment();
+    }
+
+    Executor getExecutor() {
+        Executor executor = this.executor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.executor;
+                if (executor == null) {
+                    executor = createExecutor();
+                    this.executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private Executor createExecutor() {
+        if (this.virtualThreads) {
+            ExecutorService executor = createVirtualThreadExecutor();
+            if (executor != null) {
+                return executor;
+            }
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(this.maxThreads, this.maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(this.queueCapacity), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "async-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            // JDK 21 才有，通过反射调用以便在 Java 8 上编译和运行
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
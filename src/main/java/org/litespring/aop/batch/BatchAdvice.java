@@ -0,0 +1,103 @@
+package org.litespring.aop.batch;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.aspectj.AbstractAspectJAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.aop.framework.ReflectiveMethodInvocation;
+import org.litespring.util.ClassUtils;
+import org.litespring.util.ReflectionUtils;
+
+/**
+ * Advice coalescing concurrent calls of a {@link Batched} method into one call
+ * of its batch method, using the {@link BatchCoordinator} the aspect refers to.
+ * Without a pointcut, {@code <aop:batch>} applies to the methods annotated with
+ * {@link Batched}; matched methods without the annotation are invoked as is.
+ *
+ * <p>A batch calls the batch method on the target directly, not through the
+ * rest of the chain, so this must be the innermost advice of a batched method:
+ * declare {@code <aop:batch>} after the other advices matching it. Otherwise the
+ * call fails with an {@link AopConfigException} rather than silently bypassing
+ * the inner advices.
+ */
+public class BatchAdvice extends AbstractAspectJAdvice {
+
+    private static final BatchedMethod NOT_BATCHED = new BatchedMethod(null, null);
+
+    private final Map<Method, BatchedMethod> batchedMethods = new ConcurrentHashMap<Method, BatchedMethod>(16);
+
+    public BatchAdvice(AspectJExpressionPointcut pointcut, AspectInstanceFactory adviceObjectFactory) {
+        super(null, pointcut, adviceObjectFactory);
+    }
+
+    public Object invoke(MethodInvocation mi) throws Throwable {
+        Object target = mi.getThis();
+        BatchedMethod batchedMethod = getBatchedMethod(mi.getMethod(), target);
+        if (batchedMethod == NOT_BATCHED) {
+            return mi.proceed();
+        }
+        if (mi instanceof ReflectiveMethodInvocation && !((ReflectiveMethodInvocation) mi).isAtJoinpoint()) {
+            throw new AopConfigException("<aop:batch> must be the innermost advice of @Batched method "
+                    + mi.getMethod() + ": the batch method is invoked on the target directly");
+        }
+        // 直接调用目标对象的批量方法，不再经过代理
+        return getCoordinator().submit(target, batchedMethod.batchMethod, batchedMethod.batched,
+                mi.getArguments()[0]);
+    }
+
+    private BatchedMethod getBatchedMethod(Method method, Object target) {
+        BatchedMethod batchedMethod = this.batchedMethods.get(method);
+        if (batchedMethod == null) {
+            batchedMethod = resolveBatchedMethod(method, target);
+            this.batchedMethods.put(method, batchedMethod);
+        }
+        return batchedMethod;
+    }
+
+    private static BatchedMethod resolveBatchedMethod(Method method, Object target) {
+        Batched batched = findAnnotation(method, target, Batched.class);
+        if (batched == null) {
+            return NOT_BATCHED;
+        }
+        if (method.getParameterTypes().length != 1) {
+            throw new AopConfigException("@Batched method " + method + " must take exactly one key argument");
+        }
+        Class<?> targetClass = ClassUtils.getUserClass(target);
+        Method batchMethod = ReflectionUtils.findMethod(targetClass, batched.value(), List.class);
+        if (batchMethod == null) {
+            batchMethod = ReflectionUtils.findMethod(targetClass, batched.value(), Collection.class);
+        }
+        if (batchMethod == null) {
+            throw new AopConfigException("No batch method '" + batched.value() + "(List)' on " + targetClass.getName()
+                    + " for @Batched method " + method.getName());
+        }
+        batchMethod.setAccessible(true);
+        return new BatchedMethod(batched, batchMethod);
+    }
+
+    private BatchCoordinator getCoordinator() throws Exception {
+        Object coordinator = getAdviceInstance();
+        if (!(coordinator instanceof BatchCoordinator)) {
+            throw new AopConfigException("The aspect of <aop:batch> must be a BatchCoordinator, but was " + coordinator);
+        }
+        return (BatchCoordinator) coordinator;
+    }
+
+
+    private static class BatchedMethod {
+        final Batched batched;
+        final Method batchMethod;
+
+        BatchedMethod(Batched batched, Method batchMethod) {
+            this.batched = batched;
+            this.batchMethod = batchMethod;
+        }
+    }
+}
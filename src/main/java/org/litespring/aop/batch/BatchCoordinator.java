@@ -0,0 +1,136 @@
+package org.litespring.aop.batch;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the batching state used by {@link BatchAdvice}, declared as the bean the
+ * {@code <aop:batch>} aspect refers to:
+ *
+ * <pre class="code">
+ * &lt;bean id="batching" class="org.litespring.aop.batch.BatchCoordinator"&gt;
+ *     &lt;property name="maxBatchSize" value="100"/&gt;
+ *     &lt;property name="maxDelayMicros" value="500"/&gt;
+ * &lt;/bean&gt;
+ *
+ * &lt;aop:config&gt;
+ *     &lt;aop:aspect ref="batching"&gt;
+ *         &lt;aop:batch/&gt;
+ *     &lt;/aop:aspect&gt;
+ * &lt;/aop:config&gt;</pre>
+ *
+ * Calls are only coalesced per target instance. A batcher is kept for a target
+ * only while it has calls in flight, so short-lived targets are not retained.
+ */
+public class BatchCoordinator {
+
+    private int maxBatchSize = 64;
+
+    private long maxDelayMicros = 1000;
+
+    private final ConcurrentMap<BatcherKey, Batcher> batchers = new ConcurrentHashMap<BatcherKey, Batcher>(16);
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder calls = new LongAdder();
+
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    public void setMaxDelayMicros(long maxDelayMicros) {
+        this.maxDelayMicros = maxDelayMicros;
+    }
+
+    public long getMaxDelayMicros() {
+        return this.maxDelayMicros;
+    }
+
+    /**
+     * Number of batch method calls made.
+     */
+    public long getBatchCount() {
+        return this.batches.sum();
+    }
+
+    /**
+     * Number of single-key calls served by those batches.
+     */
+    public long getCallCount() {
+        return this.calls.sum();
+    }
+
+    /**
+     * Number of targets with batched calls in flight.
+     */
+    public int getActiveBatcherCount() {
+        return this.batchers.size();
+    }
+
+    Object submit(Object target, Method batchMethod, Batched batched, Object key) throws Throwable {
+        for (;;) {
+            Object result = obtainBatcher(target, batchMethod, batched).submit(key);
+            if (result != Batcher.RETIRED) {
+                return result;
+            }
+        }
+    }
+
+    private Batcher obtainBatcher(Object target, Method batchMethod, Batched batched) {
+        BatcherKey key = new BatcherKey(target, batchMethod);
+        Batcher batcher = this.batchers.get(key);
+        if (batcher == null) {
+            int maxSize = (batched.maxSize() > 0 ? batched.maxSize() : this.maxBatchSize);
+            long maxDelayMicros = (batched.maxDelayMicros() > 0 ? batched.maxDelayMicros() : this.maxDelayMicros);
+            batcher = new Batcher(target, batchMethod, maxSize, TimeUnit.MICROSECONDS.toNanos(maxDelayMicros), this);
+            Batcher existing = this.batchers.putIfAbsent(key, batcher);
+            if (existing != null) {
+                batcher = existing;
+            }
+        }
+        return batcher;
+    }
+
+    void removeBatcher(Object target, Method batchMethod, Batcher batcher) {
+        this.batchers.remove(new BatcherKey(target, batchMethod), batcher);
+    }
+
+    void recordBatch(int callCount) {
+        this.batches.increment();
+        this.calls.add(callCount);
+    }
+
+
+    private static final class BatcherKey {
+        private final Object target;
+        private final Method batchMethod;
+
+        BatcherKey(Object target, Method batchMethod) {
+            this.target = target;
+            this.batchMethod = batchMethod;
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof BatcherKey)) {
+                return false;
+            }
+            BatcherKey otherKey = (BatcherKey) other;
+            return (this.target == otherKey.target && this.batchMethod.equals(otherKey.batchMethod));
+        }
+
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.target) + this.batchMethod.hashCode();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.litespring.aop.batch;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a single-key method whose concurrent calls {@link BatchAdvice} may
+ * coalesce into one call of a companion batch method on the same bean.
+ *
+ * <p>The batch method takes a {@code List} (or {@code Collection}) of keys and
+ * returns either a {@code Map} from key to result, or a {@code List} of results
+ * in key order.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Batched {
+    /**
+     * Name of the batch method.
+     */
+    String value();
+
+    /**
+     * Dispatch as soon as this many calls are waiting; 0 uses the coordinator's default.
+     */
+    int maxSize() default 0;
+
+    /**
+     * Longest time in microseconds the first call of a batch waits for others;
+     * 0 uses the coordinator's default.
+     */
+    long maxDelayMicros() default 0;
+}
@@ -0,0 +1,195 @@
+package org.litespring.aop.batch;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.litespring.aop.AopInvocationException;
+
+/**
+ * Coalesces the concurrent calls of one batched method on one target.
+ *
+ * <p>There is no dispatcher thread: the first caller of a batch becomes its
+ * leader, waits until the batch is full or the delay has passed, then calls the
+ * batch method itself and hands every other caller its result.
+ *
+ * <p>A batcher with no open batch left after a dispatch retires: the coordinator
+ * forgets it, so it holds no target once its calls are done.
+ */
+class Batcher {
+
+    /**
+     * Returned by {@link #submit} when the batcher retired before taking the call.
+     */
+    static final Object RETIRED = new Object();
+
+    private final Object target;
+
+    private final Method batchMethod;
+
+    private final int maxSize;
+
+    private final long maxDelayNanos;
+
+    private final BatchCoordinator coordinator;
+
+    private Batch open;
+
+    private boolean retired;
+
+    Batcher(Object target, Method batchMethod, int maxSize, long maxDelayNanos, BatchCoordinator coordinator) {
+        this.target = target;
+        this.batchMethod = batchMethod;
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelayNanos;
+        this.coordinator = coordinator;
+    }
+
+    Object submit(Object key) throws Throwable {
+        Call call = new Call(key);
+        Batch batch;
+        boolean leader;
+        boolean interrupted = false;
+        synchronized (this) {
+            if (this.retired) {
+                return RETIRED;
+            }
+            batch = this.open;
+            leader = (batch == null);
+            if (leader) {
+                batch = new Batch();
+                this.open = batch;
+            }
+            batch.calls.add(call);
+            if (batch.calls.size() >= this.maxSize) {
+                close(batch);
+            }
+            if (leader) {
+                long deadline = System.nanoTime() + this.maxDelayNanos;
+                while (!batch.closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        close(batch);
+                        break;
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException ex) {
+                        // 其它调用方还在等这一批的结果，先发出去再恢复中断状态
+                        interrupted = true;
+                        close(batch);
+                    }
+                }
+            }
+        }
+        if (leader) {
+            dispatch(batch.calls);
+            boolean idle;
+            synchronized (this) {
+                // 分发期间没有新的一批，就把自己从协调器里移除
+                idle = (this.open == null);
+                this.retired = idle;
+            }
+            if (idle) {
+                this.coordinator.removeBatcher(this.target, this.batchMethod, this);
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return call.await();
+    }
+
+    private void close(Batch batch) {
+        batch.closed = true;
+        if (this.open == batch) {
+            this.open = null;
+        }
+        notifyAll();
+    }
+
+    private void dispatch(List<Call> calls) {
+        // 同一个 key 只查询一次
+        Map<Object, Integer> positions = new HashMap<Object, Integer>();
+        List<Object> keys = new ArrayList<Object>(calls.size());
+        for (Call call : calls) {
+            if (!positions.containsKey(call.key)) {
+                positions.put(call.key, keys.size());
+                keys.add(call.key);
+            }
+        }
+        this.coordinator.recordBatch(calls.size());
+
+        Object result;
+        try {
+            result = this.batchMethod.invoke(this.target, keys);
+        } catch (InvocationTargetException ex) {
+            failAll(calls, ex.getTargetException());
+            return;
+        } catch (Throwable ex) {
+            failAll(calls, ex);
+            return;
+        }
+
+        if (result instanceof Map) {
+            Map<?, ?> results = (Map<?, ?>) result;
+            for (Call call : calls) {
+                call.complete(results.get(call.key));
+            }
+        } else if (result instanceof List && ((List<?>) result).size() == keys.size()) {
+            List<?> results = (List<?>) result;
+            for (Call call : calls) {
+                call.complete(results.get(positions.get(call.key)));
+            }
+        } else {
+            failAll(calls, new AopInvocationException("Batch method " + this.batchMethod
+                    + " must return a Map or a List with one result per key, but returned " + result));
+        }
+    }
+
+    private static void failAll(List<Call> calls, Throwable ex) {
+        for (Call call : calls) {
+            call.fail(ex);
+        }
+    }
+
+
+    private static class Batch {
+        final List<Call> calls = new ArrayList<Call>();
+        boolean closed;
+    }
+
+    private static class Call {
+        final Object key;
+        final CountDownLatch done = new CountDownLatch(1);
+        Object result;
+        Throwable failure;
+
+        Call(Object key) {
+            this.key = key;
+        }
+
+        void complete(Object result) {
+            this.result = result;
+            this.done.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+            this.done.countDown();
+        }
+
+        Object await() throws Throwable {
+            this.done.await();
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            return this.result;
+        }
+    }
+}
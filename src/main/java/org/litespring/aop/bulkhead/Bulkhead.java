@@ -0,0 +1,16 @@
+package org.litespring.aop.bulkhead;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method whose concurrent calls {@link BulkheadAdvice} limits.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+    /**
+     * Most calls in flight at once; 0 uses the registry's default.
+     */
+    int value() default 0;
+}
@@ -0,0 +1,85 @@
+package org.litespring.aop.bulkhead;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.aspectj.AbstractAspectJAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.util.ClassUtils;
+
+/**
+ * Advice limiting the calls in flight through the matched methods, with the
+ * {@link ConcurrencyLimit}s of the {@link BulkheadRegistry} the aspect refers to.
+ * With {@code scope="method"} (the default) every method of every bean has its
+ * own limit, with {@code scope="bean"} all matched methods of a bean share one.
+ * Calls over the limit fail with a {@link BulkheadFullException}.
+ *
+ * <p>Without a pointcut, {@code <aop:bulkhead>} applies to the methods annotated
+ * with {@link Bulkhead}, whose value, if set, is the limit of the method.
+ */
+public class BulkheadAdvice extends AbstractAspectJAdvice {
+
+    public static final String SCOPE_METHOD = "method";
+
+    public static final String SCOPE_BEAN = "bean";
+
+    private String scope = SCOPE_METHOD;
+
+    public BulkheadAdvice(AspectJExpressionPointcut pointcut, AspectInstanceFactory adviceObjectFactory) {
+        super(null, pointcut, adviceObjectFactory);
+    }
+
+    public void setScope(String scope) {
+        if (!SCOPE_METHOD.equals(scope) && !SCOPE_BEAN.equals(scope)) {
+            throw new IllegalArgumentException("scope must be '" + SCOPE_METHOD + "' or '" + SCOPE_BEAN + "': " + scope);
+        }
+        this.scope = scope;
+    }
+
+    public String getScope() {
+        return this.scope;
+    }
+
+    public Object invoke(MethodInvocation mi) throws Throwable {
+        ConcurrencyLimit limit = getLimit(mi.getMethod(), mi.getThis());
+        BulkheadRegistry registry = getRegistry();
+        if (!limit.acquire(registry.getMaxWaitNanos(), registry.getMaxQueued())) {
+            throw new BulkheadFullException("Bulkhead '" + limit.getName() + "' is full: " + limit.getInFlight()
+                    + " calls in flight, limit " + limit.getLimit());
+        }
+        long start = (limit.isAdaptive() ? System.nanoTime() : 0);
+        try {
+            return mi.proceed();
+        } finally {
+            limit.release(start);
+        }
+    }
+
+    private ConcurrencyLimit getLimit(Method method, Object target) throws Exception {
+        BulkheadRegistry registry = getRegistry();
+        Method limitedMethod = (SCOPE_BEAN.equals(this.scope) ? null : method);
+        ConcurrencyLimit limit = registry.getLimit(target, limitedMethod);
+        if (limit != null) {
+            return limit;
+        }
+        Class<?> targetClass = ClassUtils.getUserClass(target);
+        if (limitedMethod == null) {
+            return registry.obtainLimit(target, null, targetClass.getName(), 0);
+        }
+        // 接口方法可能有多个实现，名字和 @Bulkhead 都取这个目标类上的实现方法
+        Bulkhead bulkhead = findAnnotation(method, target, Bulkhead.class);
+        return registry.obtainLimit(target, method,
+                ClassUtils.getQualifiedMethodName(ClassUtils.getMostSpecificMethod(method, targetClass)),
+                (bulkhead != null ? bulkhead.value() : 0));
+    }
+
+    private BulkheadRegistry getRegistry() throws Exception {
+        Object registry = getAdviceInstance();
+        if (!(registry instanceof BulkheadRegistry)) {
+            throw new AopConfigException("The aspect of <aop:bulkhead> must be a BulkheadRegistry, but was " + registry);
+        }
+        return (BulkheadRegistry) registry;
+    }
+}
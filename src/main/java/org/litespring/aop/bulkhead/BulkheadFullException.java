@@ -0,0 +1,12 @@
+package org.litespring.aop.bulkhead;
+
+/**
+ * Thrown by {@link BulkheadAdvice} when a call is rejected because the bulkhead
+ * it passes through is full.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String msg) {
+        super(msg);
+    }
+}
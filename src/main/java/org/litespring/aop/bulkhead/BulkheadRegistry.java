@@ -0,0 +1,167 @@
+package org.litespring.aop.bulkhead;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link ConcurrencyLimit}s used by {@link BulkheadAdvice}, declared
+ * as the bean the {@code <aop:bulkhead>} aspect refers to:
+ *
+ * <pre class="code">
+ * &lt;bean id="bulkheads" class="org.litespring.aop.bulkhead.BulkheadRegistry"&gt;
+ *     &lt;property name="maxConcurrent" value="20"/&gt;
+ *     &lt;property name="maxWaitMillis" value="50"/&gt;
+ *     &lt;property name="latencyThresholdMillis" value="200"/&gt;
+ * &lt;/bean&gt;
+ *
+ * &lt;aop:config&gt;
+ *     &lt;aop:aspect ref="bulkheads"&gt;
+ *         &lt;aop:bulkhead pointcut="execution(* org.example.dao.*.*(..))" scope="bean"/&gt;
+ *     &lt;/aop:aspect&gt;
+ * &lt;/aop:config&gt;</pre>
+ *
+ * Calls over the limit are rejected at once, unless {@code maxWaitMillis} lets up
+ * to {@code maxQueued} of them wait for a permit. A positive
+ * {@code latencyThresholdMillis} makes the limits adaptive, between
+ * {@code minConcurrent} and {@code maxConcurrent}.
+ *
+ * <p>Limits are kept per target instance for the life of the registry, which suits
+ * the singletons this is meant for: two beans of the same class never share one.
+ */
+public class BulkheadRegistry {
+
+    private int maxConcurrent = 64;
+
+    private int minConcurrent = 1;
+
+    private long maxWaitMillis = 0;
+
+    private int maxQueued = 64;
+
+    private long latencyThresholdMillis = 0;
+
+    private final ConcurrentMap<LimitKey, ConcurrencyLimit> limits = new ConcurrentHashMap<LimitKey, ConcurrencyLimit>(16);
+
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+        }
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getMaxConcurrent() {
+        return this.maxConcurrent;
+    }
+
+    public void setMinConcurrent(int minConcurrent) {
+        if (minConcurrent < 1) {
+            throw new IllegalArgumentException("minConcurrent must be positive: " + minConcurrent);
+        }
+        this.minConcurrent = minConcurrent;
+    }
+
+    public int getMinConcurrent() {
+        return this.minConcurrent;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return this.maxWaitMillis;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public int getMaxQueued() {
+        return this.maxQueued;
+    }
+
+    public void setLatencyThresholdMillis(long latencyThresholdMillis) {
+        this.latencyThresholdMillis = latencyThresholdMillis;
+    }
+
+    public long getLatencyThresholdMillis() {
+        return this.latencyThresholdMillis;
+    }
+
+    /**
+     * Return the bulkheads of the given name that have been used, one per bean:
+     * the qualified name of the implementation method for method scope, the
+     * class name for bean scope.
+     */
+    public List<ConcurrencyLimit> getLimits(String name) {
+        List<ConcurrencyLimit> result = new ArrayList<ConcurrencyLimit>();
+        for (ConcurrencyLimit limit : this.limits.values()) {
+            if (limit.getName().equals(name)) {
+                result.add(limit);
+            }
+        }
+        return result;
+    }
+
+    public Collection<ConcurrencyLimit> getAllLimits() {
+        return Collections.unmodifiableCollection(this.limits.values());
+    }
+
+    /**
+     * Return the limit of the given method of the target, or of the whole target
+     * if {@code method} is {@code null}, or {@code null} if it has not been created.
+     */
+    ConcurrencyLimit getLimit(Object target, Method method) {
+        return this.limits.get(new LimitKey(target, method));
+    }
+
+    ConcurrencyLimit obtainLimit(Object target, Method method, String name, int maxConcurrent) {
+        LimitKey key = new LimitKey(target, method);
+        ConcurrencyLimit limit = this.limits.get(key);
+        if (limit == null) {
+            limit = new ConcurrencyLimit(name, (maxConcurrent > 0 ? maxConcurrent : this.maxConcurrent),
+                    this.minConcurrent, TimeUnit.MILLISECONDS.toNanos(this.latencyThresholdMillis));
+            ConcurrencyLimit existing = this.limits.putIfAbsent(key, limit);
+            if (existing != null) {
+                limit = existing;
+            }
+        }
+        return limit;
+    }
+
+    long getMaxWaitNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis);
+    }
+
+
+    // 按目标对象的身份区分，而不是 equals，同一个类的两个 bean 各有各的 limit
+    private static final class LimitKey {
+        private final Object target;
+        private final Method method;
+
+        LimitKey(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof LimitKey)) {
+                return false;
+            }
+            LimitKey otherKey = (LimitKey) other;
+            return (otherKey.target == this.target
+                    && (this.method == null ? otherKey.method == null : this.method.equals(otherKey.method)));
+        }
+
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.target) + (this.method != null ? this.method.hashCode() : 0);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.litespring.aop.bulkhead;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The limit on calls in flight through one bulkhead, with its counters.
+ *
+ * <p>Permits are taken with a compare-and-set on the in-flight count, so calls
+ * under the limit never lock. Only callers allowed to wait for a permit block,
+ * on a condition signalled when a call completes.
+ *
+ * <p>With a latency threshold, the limit adapts like TCP congestion control
+ * (AIMD): a call slower than the threshold cuts the limit by
+ * {@link #BACKOFF_RATIO}, and every {@code limit} faster calls raise it by one,
+ * up to the configured maximum. Like a congestion window, the limit backs off
+ * once per round: only a slow call started after the last cut cuts it again,
+ * so a latency spike hitting every call in flight does not collapse the limit.
+ */
+public class ConcurrencyLimit {
+
+    static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+
+    private final int maxLimit;
+
+    private final int minLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger limit;
+
+    // 上次降低 limit 的时间，在这之前开始的慢调用不再降低
+    private final AtomicLong lastBackoffNanos = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // 自上次调整后的快速调用数
+    private final AtomicInteger fastCalls = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition available = this.lock.newCondition();
+
+    ConcurrencyLimit(String name, int maxLimit, int minLimit, long latencyThresholdNanos) {
+        this.name = name;
+        this.maxLimit = maxLimit;
+        this.minLimit = Math.min(minLimit, maxLimit);
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = new AtomicInteger(maxLimit);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Current limit; below the configured maximum while the limit is backing off.
+     */
+    public int getLimit() {
+        return this.limit.get();
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    public int getQueued() {
+        return this.queued.get();
+    }
+
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    boolean isAdaptive() {
+        return this.latencyThresholdNanos > 0;
+    }
+
+    boolean tryAcquire() {
+        for (;;) {
+            int current = this.inFlight.get();
+            if (current >= this.limit.get()) {
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Take a permit, waiting up to the given time if at most {@code maxQueued}
+     * other callers are already waiting.
+     * @return whether a permit was taken; if not, the call counts as rejected
+     */
+    boolean acquire(long maxWaitNanos, int maxQueued) throws InterruptedException {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (maxWaitNanos <= 0) {
+            this.rejected.increment();
+            return false;
+        }
+        if (this.queued.incrementAndGet() > maxQueued) {
+            this.queued.decrementAndGet();
+            this.rejected.increment();
+            return false;
+        }
+        this.lock.lock();
+        try {
+            long nanos = maxWaitNanos;
+            while (!tryAcquire()) {
+                if (nanos <= 0) {
+                    this.rejected.increment();
+                    return false;
+                }
+                nanos = this.available.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+            this.queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Return the permit of a call that started, if the limit is adaptive, at the
+     * given {@link System#nanoTime()}.
+     */
+    void release(long startNanos) {
+        this.inFlight.decrementAndGet();
+        if (isAdaptive()) {
+            adjust(startNanos, System.nanoTime());
+        }
+        if (this.queued.get() > 0) {
+            this.lock.lock();
+            try {
+                this.available.signal();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    private void adjust(long startNanos, long endNanos) {
+        if (endNanos - startNanos > this.latencyThresholdNanos) {
+            long lastBackoff = this.lastBackoffNanos.get();
+            // 每轮只退让一次：上次退让时已经在执行的调用不再算数
+            if (startNanos - lastBackoff >= 0 && this.lastBackoffNanos.compareAndSet(lastBackoff, endNanos)) {
+                this.fastCalls.set(0);
+                for (;;) {
+                    int current = this.limit.get();
+                    int next = Math.max(this.minLimit, (int) (current * BACKOFF_RATIO));
+                    if (next == current || this.limit.compareAndSet(current, next)) {
+                        break;
+                    }
+                }
+            }
+            return;
+        }
+        int current = this.limit.get();
+        if (current < this.maxLimit && this.fastCalls.incrementAndGet() >= current) {
+            this.fastCalls.set(0);
+            for (;;) {
+                if (current >= this.maxLimit || this.limit.compareAndSet(current, current + 1)) {
+                    break;
+                }
+                current = this.limit.get();
+            }
+        }
+    }
+
+    public String toString() {
+        return this.name + ": limit=" + getLimit() + ", inFlight=" + getInFlight() + ", queued=" + getQueued()
+                + ", rejected=" + getRejectedCount();
+    }
+}
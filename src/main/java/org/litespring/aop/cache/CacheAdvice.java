@@ -0,0 +1,58 @@
+package org.litespring.aop.cache;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.aspectj.AbstractAspectJAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+
+/**
+ * Advice memoizing the return value of every matched method in the
+ * {@link MemoizingCache} the aspect refers to, keyed by the target, the method
+ * and its arguments. Without a pointcut, {@code <aop:cache>} applies to the methods
+ * annotated with {@link Cacheable}. Methods returning {@code void} are not cached.
+ */
+public class CacheAdvice extends AbstractAspectJAdvice {
+
+    // 方法 -> @Cacheable 指定的 ttl（毫秒），0 表示使用缓存默认值
+    private final Map<Method, Long> ttlCache = new ConcurrentHashMap<Method, Long>(32);
+
+    public CacheAdvice(AspectJExpressionPointcut pointcut, AspectInstanceFactory adviceObjectFactory) {
+        super(null, pointcut, adviceObjectFactory);
+    }
+
+    public Object invoke(final MethodInvocation mi) throws Throwable {
+        Method method = mi.getMethod();
+        if (method.getReturnType() == void.class) {
+            return mi.proceed();
+        }
+        return getCache().get(new CacheKey(mi.getThis(), method, mi.getArguments()), getTtl(method, mi.getThis()),
+                new MemoizingCache.ValueLoader() {
+                    public Object load() throws Throwable {
+                        return mi.proceed();
+                    }
+                });
+    }
+
+    private long getTtl(Method method, Object target) {
+        Long ttl = this.ttlCache.get(method);
+        if (ttl == null) {
+            Cacheable cacheable = findAnnotation(method, target, Cacheable.class);
+            ttl = (cacheable != null ? cacheable.ttl() : 0L);
+            this.ttlCache.put(method, ttl);
+        }
+        return ttl;
+    }
+
+    private MemoizingCache getCache() throws Exception {
+        Object cache = getAdviceInstance();
+        if (!(cache instanceof MemoizingCache)) {
+            throw new AopConfigException("The aspect of <aop:cache> must be a MemoizingCache, but was " + cache);
+        }
+        return (MemoizingCache) cache;
+    }
+}
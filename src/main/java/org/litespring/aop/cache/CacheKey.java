@@ -0,0 +1,47 @@
+package org.litespring.aop.cache;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Key of a memoized call: the target instance, the method and a copy of its
+ * arguments. Beans of the same class sharing a cache keep apart entries.
+ */
+final class CacheKey {
+
+    private final Object target;
+
+    private final Method method;
+
+    private final Object[] args;
+
+    private final int hashCode;
+
+    CacheKey(Object target, Method method, Object[] args) {
+        this.target = target;
+        this.method = method;
+        this.args = (args != null ? args.clone() : new Object[0]);
+        this.hashCode = 31 * (31 * System.identityHashCode(target) + method.hashCode()) + Arrays.deepHashCode(this.args);
+    }
+
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey otherKey = (CacheKey) other;
+        return (this.hashCode == otherKey.hashCode && this.target == otherKey.target
+                && this.method.equals(otherKey.method)
+                && Arrays.deepEquals(this.args, otherKey.args));
+    }
+
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    public String toString() {
+        return this.method.getName() + Arrays.deepToString(this.args);
+    }
+}
@@ -0,0 +1,47 @@
+package org.litespring.aop.cache;
+
+/**
+ * Immutable statistics of a {@link MemoizingCache}.
+ */
+public class CacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    CacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * Number of lookups that had to compute the value. Callers waiting for a
+     * value another thread is computing count as hits.
+     */
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * Number of entries removed because the cache was full or they had expired.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public double getHitRate() {
+        long requests = this.hitCount + this.missCount;
+        return (requests == 0 ? 1.0 : (double) this.hitCount / requests);
+    }
+
+    public String toString() {
+        return "hits=" + this.hitCount + ", misses=" + this.missCount + ", evictions=" + this.evictionCount;
+    }
+}
@@ -0,0 +1,17 @@
+package org.litespring.aop.cache;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method whose return value can be memoized by {@link CacheAdvice},
+ * keyed by the method and its arguments.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cacheable {
+    /**
+     * Time to live of a cached value in milliseconds; 0 uses the cache's default.
+     */
+    long ttl() default 0;
+}
@@ -0,0 +1,350 @@
+package org.litespring.aop.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded concurrent cache used by {@link CacheAdvice}, declared as the bean the
+ * {@code <aop:cache>} aspect refers to:
+ *
+ * <pre class="code">
+ * &lt;bean id="cache" class="org.litespring.aop.cache.MemoizingCache"&gt;
+ *     &lt;property name="maximumSize" value="10000"/&gt;
+ *     &lt;property name="expireAfterWrite" value="60000"/&gt;
+ * &lt;/bean&gt;
+ *
+ * &lt;aop:config&gt;
+ *     &lt;aop:aspect ref="cache"&gt;
+ *         &lt;aop:cache/&gt;
+ *     &lt;/aop:aspect&gt;
+ * &lt;/aop:config&gt;</pre>
+ *
+ * <p>The cache is split into lock-striped segments, each evicting with a
+ * segmented LRU policy: new entries go to a probation area and are promoted to
+ * a protected area (80% of the segment) on their second hit, so a scan of
+ * one-off keys cannot flush the entries that are actually reused.
+ *
+ * <p>Concurrent misses for the same key compute the value once: the first caller
+ * loads it outside the segment lock, the others wait for its result. Values
+ * being loaded are kept apart from the LRU until they are complete, so they
+ * can't be evicted while others wait for them. A loader asking for its own key
+ * fails with an {@link IllegalStateException} instead of waiting for itself.
+ */
+public class MemoizingCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    // 一个段至少放这么多条目，太小的段 LRU 效果很差
+    private static final int MIN_SEGMENT_SIZE = 8;
+
+    private int maximumSize = 10000;
+
+    private long expireAfterWriteNanos = 0;
+
+    private volatile Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+
+    public void setMaximumSize(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.segments = null;
+    }
+
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * Default time to live of an entry in milliseconds; 0 (the default) keeps
+     * entries until they are evicted.
+     */
+    public void setExpireAfterWrite(long expireAfterWriteMillis) {
+        this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMillis);
+    }
+
+    public long getExpireAfterWrite() {
+        return TimeUnit.NANOSECONDS.toMillis(this.expireAfterWriteNanos);
+    }
+
+    public Object get(Object key, ValueLoader loader) throws Throwable {
+        return get(key, 0, loader);
+    }
+
+    /**
+     * Return the value cached for the key, loading it if absent or expired.
+     * A failed load is not cached: the exception is thrown to the loading caller
+     * and to everybody waiting for it.
+     * @param ttlMillis time to live of a newly loaded value, 0 for the default
+     */
+    public Object get(Object key, long ttlMillis, ValueLoader loader) throws Throwable {
+        Segment segment = segmentFor(key);
+        Entry entry;
+        boolean loading = false;
+        segment.lock();
+        try {
+            entry = segment.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                segment.remove(key, entry);
+                this.evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                entry = segment.pending.get(key);
+                if (entry != null && entry.loader == Thread.currentThread()) {
+                    throw new IllegalStateException("Recursive load of cache key " + key);
+                }
+            }
+            if (entry == null) {
+                entry = new Entry(Thread.currentThread());
+                segment.pending.put(key, entry);
+                loading = true;
+            }
+        } finally {
+            segment.unlock();
+        }
+
+        if (!loading) {
+            this.hits.increment();
+            return entry.await();
+        }
+
+        this.misses.increment();
+        Object value;
+        try {
+            value = loader.load();
+        } catch (Throwable ex) {
+            segment.lock();
+            try {
+                if (segment.pending.get(key) == entry) {
+                    segment.pending.remove(key);
+                }
+            } finally {
+                segment.unlock();
+            }
+            entry.fail(ex);
+            throw ex;
+        }
+        long ttlNanos = (ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : this.expireAfterWriteNanos);
+        entry.complete(value, ttlNanos);
+        segment.lock();
+        try {
+            // invalidateAll() 期间开始的加载不再放进缓存
+            if (segment.pending.get(key) == entry) {
+                segment.pending.remove(key);
+                this.evictions.add(segment.put(key, entry));
+            }
+        } finally {
+            segment.unlock();
+        }
+        return value;
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : getSegments()) {
+            segment.lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : getSegments()) {
+            segment.lock();
+            try {
+                size += segment.size();
+            } finally {
+                segment.unlock();
+            }
+        }
+        return size;
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum());
+    }
+
+    private Segment segmentFor(Object key) {
+        Segment[] segments = getSegments();
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    private Segment[] getSegments() {
+        Segment[] segments = this.segments;
+        if (segments == null) {
+            synchronized (this) {
+                segments = this.segments;
+                if (segments == null) {
+                    segments = createSegments(this.maximumSize);
+                    this.segments = segments;
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static Segment[] createSegments(int maximumSize) {
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maximumSize / MIN_SEGMENT_SIZE)));
+        Segment[] segments = new Segment[count];
+        // 容量按段均分，余数分给前面的段，总和正好是 maximumSize
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+        return segments;
+    }
+
+
+    /**
+     * Computes the value of a cache miss.
+     */
+    public interface ValueLoader {
+        Object load() throws Throwable;
+    }
+
+
+    private static final class Entry {
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        // 加载这个值的线程，用来发现递归加载
+        private final Thread loader;
+
+        private volatile boolean completed;
+
+        private Object value;
+
+        private Throwable failure;
+
+        // 0 表示永不过期；值算好之前也不会过期
+        private volatile long expiresAt;
+
+        Entry(Thread loader) {
+            this.loader = loader;
+        }
+
+        void complete(Object value, long ttlNanos) {
+            this.value = value;
+            if (ttlNanos > 0) {
+                this.expiresAt = System.nanoTime() + ttlNanos;
+            }
+            this.completed = true;
+            this.done.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+            this.completed = true;
+            this.done.countDown();
+        }
+
+        Object await() throws Throwable {
+            if (!this.completed) {
+                this.done.await();
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+            return this.value;
+        }
+
+        boolean isExpired(long now) {
+            long expiresAt = this.expiresAt;
+            return (expiresAt != 0 && now - expiresAt >= 0);
+        }
+    }
+
+
+    @SuppressWarnings("serial")
+    private static final class Segment extends ReentrantLock {
+
+        private final int capacity;
+
+        private final int protectedCapacity;
+
+        private final LinkedHashMap<Object, Entry> probation = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+
+        private final LinkedHashMap<Object, Entry> protectedEntries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+
+        // 正在加载的条目，不参与淘汰，加载完成后才放进 probation
+        final Map<Object, Entry> pending = new HashMap<Object, Entry>();
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            // 至少留一个位置给 probation，新条目才不会被立刻淘汰
+            this.protectedCapacity = Math.min(capacity * 4 / 5, capacity - 1);
+        }
+
+        Entry get(Object key) {
+            Entry entry = this.protectedEntries.get(key);
+            if (entry != null) {
+                return entry;
+            }
+            entry = this.probation.remove(key);
+            if (entry != null) {
+                // 第二次命中，晋升到 protected；protected 满了就把最久未用的降回 probation
+                this.protectedEntries.put(key, entry);
+                if (this.protectedEntries.size() > this.protectedCapacity) {
+                    Map.Entry<Object, Entry> eldest = removeEldest(this.protectedEntries);
+                    this.probation.put(eldest.getKey(), eldest.getValue());
+                }
+            }
+            return entry;
+        }
+
+        /**
+         * Add a new entry, returning the number of entries evicted to make room.
+         */
+        int put(Object key, Entry entry) {
+            this.probation.put(key, entry);
+            int evicted = 0;
+            while (size() > this.capacity) {
+                removeEldest(this.probation.isEmpty() ? this.protectedEntries : this.probation);
+                evicted++;
+            }
+            return evicted;
+        }
+
+        void remove(Object key, Entry entry) {
+            if (this.probation.get(key) == entry) {
+                this.probation.remove(key);
+            } else if (this.protectedEntries.get(key) == entry) {
+                this.protectedEntries.remove(key);
+            }
+        }
+
+        void clear() {
+            this.probation.clear();
+            this.protectedEntries.clear();
+            this.pending.clear();
+        }
+
+        int size() {
+            return this.probation.size() + this.protectedEntries.size();
+        }
+
+        private static Map.Entry<Object, Entry> removeEldest(LinkedHashMap<Object, Entry> map) {
+            Iterator<Map.Entry<Object, Entry>> it = map.entrySet().iterator();
+            Map.Entry<Object, Entry> eldest = it.next();
+            it.remove();
+            return eldest;
+        }
+    }
+}
@@ -21,6 +21,9 @@ public class AspectInstanceFactory implements BeanFactoryAware{
 
     private BeanFactory beanFactory;
 
+    // singleton 的 aspect 第一次获取之后缓存下来，之后的每次调用不再走 getBean
+    private volatile Object aspectInstance;
+
     public void setAspectBeanName(String aspectBeanName) {
         this.aspectBeanName = aspectBeanName;
     }
@@ -33,6 +36,22 @@ public class AspectInstanceFactory implements BeanFactoryAware{
     }
 
     public Object getAspectInstance() throws Exception {
-        return this.beanFactory.getBean(this.aspectBeanName);
+        Object instance = this.aspectInstance;
+        if (instance != null) {
+            return instance;
+        }
+        instance = this.beanFactory.getBean(this.aspectBeanName);
+        if (isSingleton()) {
+            this.aspectInstance = instance;
+        }
+        return instance;
+    }
+
+    /**
+     * Whether the aspect bean is a singleton, i.e. {@link #getAspectInstance()}
+     * can be resolved once and reused for every advised call.
+     */
+    public boolean isSingleton() {
+        return this.beanFactory.isSingleton(this.aspectBeanName);
     }
 }
\ No newline at end of file
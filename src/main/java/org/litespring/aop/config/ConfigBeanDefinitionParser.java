@@ -3,18 +3,31 @@ package org.litespring.aop.config;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.litespring.beans.factory.support.BeanDefinitionReaderUtils;
+import org.dom4j.Attribute;
 import org.dom4j.Element;
 import org.litespring.aop.aspectj.AspectJAfterReturningAdvice;
 import org.litespring.aop.aspectj.AspectJAfterThrowingAdvice;
+import org.litespring.aop.aspectj.AspectJAroundAdvice;
+import org.litespring.aop.aspectj.AspectJAutoProxyCreator;
 import org.litespring.aop.aspectj.AspectJBeforeAdvice;
 import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.async.AsyncAdvice;
+import org.litespring.aop.batch.BatchAdvice;
+import org.litespring.aop.bulkhead.BulkheadAdvice;
+import org.litespring.aop.cache.CacheAdvice;
+import org.litespring.aop.hedge.HedgeAdvice;
+import org.litespring.aop.lock.LockAdvice;
+import org.litespring.aop.metrics.MetricsAdvice;
 import org.litespring.beans.BeanDefinition;
 import org.litespring.beans.ConstructorArgument;
 import org.litespring.beans.PropertyValue;
 import org.litespring.beans.factory.config.RuntimeBeanReference;
+import org.litespring.beans.factory.config.TypedStringValue;
 import org.litespring.beans.factory.support.BeanDefinitionRegistry;
 import org.litespring.beans.factory.support.GenericBeanDefinition;
 import org.litespring.util.StringUtils;
@@ -35,10 +48,52 @@ public class ConfigBeanDefinitionParser /*implements BeanDefinitionParser*/ {
     private static final String AFTER_RETURNING_ELEMENT = "after-returning";
     private static final String AFTER_THROWING_ELEMENT = "after-throwing";
     private static final String AROUND = "around";
+    private static final String RETURNING = "returning";
+    private static final String RETURNING_PROPERTY = "returningName";
+    private static final String THROWING = "throwing";
+    private static final String THROWING_PROPERTY = "throwingName";
+    private static final String ARG_NAMES = "arg-names";
+    private static final String ARG_NAMES_PROPERTY = "argumentNames";
+    private static final String METRICS = "metrics";
+    private static final String CACHE = "cache";
+    private static final String BATCH = "batch";
+    private static final String HEDGE = "hedge";
+    private static final String ASYNC = "async";
+    private static final String BULKHEAD = "bulkhead";
+    private static final String LOCK = "lock";
     private static final String ASPECT_NAME_PROPERTY = "aspectName";
+    private static final String BYTECODE_INTERFACE_PROXIES = "bytecode-interface-proxies";
+    private static final String BYTECODE_INTERFACE_PROXIES_PROPERTY = "bytecodeInterfaceProxies";
+
+    // 内置的 advice：没有 method 属性，aspect 引用的 bean 就是 advice 使用的组件（例如 MetricsRegistry）
+    private static final Map<String, Class<?>> BUILTIN_ADVICE_CLASSES = new HashMap<String, Class<?>>();
+
+    // 内置 advice 没有写 pointcut 时使用的表达式
+    private static final Map<String, String> BUILTIN_DEFAULT_POINTCUTS = new HashMap<String, String>();
+
+    static {
+        BUILTIN_ADVICE_CLASSES.put(METRICS, MetricsAdvice.class);
+        BUILTIN_ADVICE_CLASSES.put(CACHE, CacheAdvice.class);
+        BUILTIN_ADVICE_CLASSES.put(BATCH, BatchAdvice.class);
+        BUILTIN_ADVICE_CLASSES.put(HEDGE, HedgeAdvice.class);
+        BUILTIN_ADVICE_CLASSES.put(ASYNC, AsyncAdvice.class);
+        BUILTIN_ADVICE_CLASSES.put(BULKHEAD, BulkheadAdvice.class);
+        BUILTIN_ADVICE_CLASSES.put(LOCK, LockAdvice.class);
+        BUILTIN_DEFAULT_POINTCUTS.put(CACHE, "@annotation(org.litespring.aop.cache.Cacheable)");
+        BUILTIN_DEFAULT_POINTCUTS.put(BATCH, "@annotation(org.litespring.aop.batch.Batched)");
+        BUILTIN_DEFAULT_POINTCUTS.put(HEDGE, "@annotation(org.litespring.aop.hedge.Idempotent)");
+        BUILTIN_DEFAULT_POINTCUTS.put(ASYNC, "@annotation(org.litespring.aop.async.Async)");
+        BUILTIN_DEFAULT_POINTCUTS.put(BULKHEAD, "@annotation(org.litespring.aop.bulkhead.Bulkhead)");
+        BUILTIN_DEFAULT_POINTCUTS.put(LOCK, "@annotation(org.litespring.aop.lock.ReadLocked)"
+                + " || @annotation(org.litespring.aop.lock.WriteLocked)");
+    }
 
     public BeanDefinition parse(Element element,BeanDefinitionRegistry registry) {
 
+        if (Boolean.valueOf(element.attributeValue(BYTECODE_INTERFACE_PROXIES))) {
+            forceBytecodeInterfaceProxies(registry);
+        }
+
         List<Element> childElts = element.elements();
         for (Element elt: childElts) {
             String localName = elt.getName();
@@ -104,19 +159,27 @@ public class ConfigBeanDefinitionParser /*implements BeanDefinitionParser*/ {
 
         String name = ele.getName();
         return (BEFORE.equals(name) || AFTER.equals(name) || AFTER_RETURNING_ELEMENT.equals(name) ||
-                AFTER_THROWING_ELEMENT.equals(name) || AROUND.equals(name));
+                AFTER_THROWING_ELEMENT.equals(name) || AROUND.equals(name) || isBuiltinAdviceNode(ele));
 
     }
 
 
+    private boolean isBuiltinAdviceNode(Element ele) {
+        return BUILTIN_ADVICE_CLASSES.containsKey(ele.getName());
+    }
+
+
     private GenericBeanDefinition parseAdvice(
             String aspectName, int order, Element aspectElement, Element adviceElement, BeanDefinitionRegistry registry,
             List<BeanDefinition> beanDefinitions, List<RuntimeBeanReference> beanReferences) {
 
-        GenericBeanDefinition methodDefinition = new GenericBeanDefinition(MethodLocatingFactory.class);
-        methodDefinition.getPropertyValues().add(new PropertyValue("targetBeanName", aspectName));
-        methodDefinition.getPropertyValues().add(new PropertyValue("methodName", adviceElement.attributeValue("method")));
-        methodDefinition.setSynthetic(true);
+        GenericBeanDefinition methodDefinition = null;
+        if (!isBuiltinAdviceNode(adviceElement)) {
+            methodDefinition = new GenericBeanDefinition(MethodLocatingFactory.class);
+            methodDefinition.getPropertyValues().add(new PropertyValue("targetBeanName", aspectName));
+            methodDefinition.getPropertyValues().add(new PropertyValue("methodName", adviceElement.attributeValue("method")));
+            methodDefinition.setSynthetic(true);
+        }
 
         // create instance factory definition
         GenericBeanDefinition aspectFactoryDef =
@@ -155,9 +218,17 @@ public class ConfigBeanDefinitionParser /*implements BeanDefinitionParser*/ {
 
 
         ConstructorArgument cav = adviceDefinition.getConstructorArgument();
-        cav.addArgumentValue(methodDef);
+        if (methodDef != null) {
+            cav.addArgumentValue(methodDef);
+            addBindingProperties(adviceElement, adviceDefinition);
+        } else {
+            addBuiltinAdviceProperties(adviceElement, adviceDefinition);
+        }
 
         Object pointcut = parsePointcutProperty(adviceElement);
+        if (pointcut == null && BUILTIN_DEFAULT_POINTCUTS.containsKey(adviceElement.getName())) {
+            pointcut = createPointcutDefinition(BUILTIN_DEFAULT_POINTCUTS.get(adviceElement.getName()));
+        }
         if (pointcut instanceof BeanDefinition) {
             cav.addArgumentValue(pointcut);
 
@@ -173,12 +244,64 @@ public class ConfigBeanDefinitionParser /*implements BeanDefinitionParser*/ {
         return adviceDefinition;
     }
 
+    /**
+     * Passes the {@code arg-names}, {@code returning} and {@code throwing}
+     * attributes on to the advice, which binds the advice method parameters with them.
+     */
+    private void addBindingProperties(Element adviceElement, GenericBeanDefinition adviceDefinition) {
+        if (adviceElement.attribute(ARG_NAMES) != null) {
+            adviceDefinition.getPropertyValues().add(new PropertyValue(ARG_NAMES_PROPERTY,
+                    new TypedStringValue(adviceElement.attributeValue(ARG_NAMES))));
+        }
+        if (AFTER_RETURNING_ELEMENT.equals(adviceElement.getName()) && adviceElement.attribute(RETURNING) != null) {
+            adviceDefinition.getPropertyValues().add(new PropertyValue(RETURNING_PROPERTY,
+                    new TypedStringValue(adviceElement.attributeValue(RETURNING))));
+        }
+        if (AFTER_THROWING_ELEMENT.equals(adviceElement.getName()) && adviceElement.attribute(THROWING) != null) {
+            adviceDefinition.getPropertyValues().add(new PropertyValue(THROWING_PROPERTY,
+                    new TypedStringValue(adviceElement.attributeValue(THROWING))));
+        }
+    }
+
+    /**
+     * Maps the remaining attributes of a built-in advice element to properties of
+     * the advice, e.g. {@code max-entries="100"} to {@code setMaxEntries}.
+     */
+    private void addBuiltinAdviceProperties(Element adviceElement, GenericBeanDefinition adviceDefinition) {
+        List<Attribute> attributes = adviceElement.attributes();
+        for (Attribute attribute : attributes) {
+            String name = attribute.getName();
+            if (POINTCUT.equals(name) || POINTCUT_REF.equals(name) || ID.equals(name)) {
+                continue;
+            }
+            adviceDefinition.getPropertyValues().add(
+                    new PropertyValue(toPropertyName(name), new TypedStringValue(attribute.getValue())));
+        }
+    }
+
+    private static String toPropertyName(String attributeName) {
+        StringBuilder sb = new StringBuilder(attributeName.length());
+        boolean upperCase = false;
+        for (char c : attributeName.toCharArray()) {
+            if (c == '-') {
+                upperCase = true;
+            } else {
+                sb.append(upperCase ? Character.toUpperCase(c) : c);
+                upperCase = false;
+            }
+        }
+        return sb.toString();
+    }
+
     /**
      * Gets the advice implementation class corresponding to the supplied {@link Element}.
      */
     private Class<?> getAdviceClass(Element adviceElement) {
         String elementName = adviceElement.getName();
-        if (BEFORE.equals(elementName)) {
+        if (isBuiltinAdviceNode(adviceElement)) {
+            return BUILTIN_ADVICE_CLASSES.get(elementName);
+        }
+        else if (BEFORE.equals(elementName)) {
             return AspectJBeforeAdvice.class;
         }
 		/*else if (AFTER.equals(elementName)) {
@@ -190,9 +313,9 @@ public class ConfigBeanDefinitionParser /*implements BeanDefinitionParser*/ {
         else if (AFTER_THROWING_ELEMENT.equals(elementName)) {
             return AspectJAfterThrowingAdvice.class;
         }
-		/*else if (AROUND.equals(elementName)) {
-			return AspectJAroundAdvice.class;
-		}*/
+        else if (AROUND.equals(elementName)) {
+            return AspectJAroundAdvice.class;
+        }
         else {
             throw new IllegalArgumentException("Unknown advice kind [" + elementName + "].");
         }
@@ -263,6 +386,24 @@ public class ConfigBeanDefinitionParser /*implements BeanDefinitionParser*/ {
         }
     }
 
+    /**
+     * Register the definition of the {@link AspectJAutoProxyCreator} used by the
+     * application context, switched to generated interface proxies. Any
+     * {@code <aop:config>} that turns it on applies to the whole context.
+     */
+    private void forceBytecodeInterfaceProxies(BeanDefinitionRegistry registry) {
+        String beanName = AspectJAutoProxyCreator.AUTO_PROXY_CREATOR_BEAN_NAME;
+        if (registry.getBeanDefinition(beanName) != null) {
+            return;
+        }
+        GenericBeanDefinition creatorDefinition = new GenericBeanDefinition(AspectJAutoProxyCreator.class);
+        creatorDefinition.setId(beanName);
+        creatorDefinition.setSynthetic(true);
+        creatorDefinition.getPropertyValues().add(
+                new PropertyValue(BYTECODE_INTERFACE_PROXIES_PROPERTY, new TypedStringValue("true")));
+        registry.registerBeanDefinition(beanName, creatorDefinition);
+    }
+
     /**
      * Creates a {@link BeanDefinition} for the {@link AspectJExpressionPointcut} class using
      * the supplied pointcut expression.
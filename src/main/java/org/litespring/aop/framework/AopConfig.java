@@ -3,6 +3,7 @@ package org.litespring.aop.framework;
 import java.lang.reflect.Method;
 import java.util.List;
 
+import org.aopalliance.intercept.MethodInterceptor;
 import org.litespring.aop.Advice;
 
 public interface AopConfig  {
@@ -28,6 +29,13 @@ public interface AopConfig  {
 
     List<Advice> getAdvices(Method method/*,Class<?> targetClass*/);
 
+    /**
+     * The advices for the given method as an interceptor array, ready to be
+     * handed to a {@link ReflectiveMethodInvocation}. The array is cached and
+     * shared: callers must not modify it.
+     */
+    MethodInterceptor[] getInterceptors(Method method);
+
     void setTargetObject(Object obj);
 
 
@@ -2,11 +2,17 @@ package org.litespring.aop.framework;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.aopalliance.intercept.MethodInterceptor;
 import org.litespring.aop.Advice;
 import org.litespring.aop.Pointcut;
 import org.litespring.util.Assert;
+import org.litespring.util.ClassUtils;
 
 
 
@@ -36,7 +42,10 @@ public class AopConfigSupport implements AopConfig {
 
     private Object targetObject = null;
 
-    private List<Advice> advices = new ArrayList<Advice>();
+    private List<Advice> advices = new CopyOnWriteArrayList<Advice>();
+
+    // Method -> 不可变的 advice 链，advice 变化时整体换成新的 map
+    private volatile Map<Method, AdviceChain> methodCache = new ConcurrentHashMap<Method, AdviceChain>(32);
 
     private List<Class> interfaces = new ArrayList<Class>();
 
@@ -96,6 +105,7 @@ public class AopConfigSupport implements AopConfig {
 
     public void addAdvice(Advice advice)  {
         this.advices.add(advice);
+        this.methodCache = new ConcurrentHashMap<Method, AdviceChain>(32);
     }
 
 
@@ -113,14 +123,48 @@ public class AopConfigSupport implements AopConfig {
         return this.advices;
     }
 
+    /**
+     * Return the advices that apply to the given method, in the order they were added.
+     * <p>The chain is computed once per method and cached until the next
+     * {@link #addAdvice}; the returned list is immutable and shared between calls.
+     */
     public List<Advice> getAdvices(Method method) {
+        return getAdviceChain(method).advices;
+    }
+
+    public MethodInterceptor[] getInterceptors(Method method) {
+        return getAdviceChain(method).interceptors;
+    }
+
+    private AdviceChain getAdviceChain(Method method) {
+        Map<Method, AdviceChain> cache = this.methodCache;
+        AdviceChain cached = cache.get(method);
+        if (cached != null) {
+            return cached;
+        }
+        // JDK 代理拿到的是接口方法，实现类上的方法（例如带注解的）也要参与匹配
+        Method specificMethod = (this.targetObject != null ?
+                ClassUtils.getMostSpecificMethod(method, getTargetClass()) : method);
         List<Advice> result = new ArrayList<Advice>();
         for(Advice advice : this.getAdvices()){
             Pointcut pc = advice.getPointcut();
-            if(pc.getMethodMatcher().matches(method)){
+            if(pc.getMethodMatcher().matches(method)
+                    || (specificMethod != method && pc.getMethodMatcher().matches(specificMethod))){
                 result.add(advice);
             }
         }
-        return result;
+        cached = new AdviceChain(result);
+        cache.put(method, cached);
+        return cached;
+    }
+
+    private static class AdviceChain {
+        final List<Advice> advices;
+        final MethodInterceptor[] interceptors;
+
+        AdviceChain(List<Advice> advices) {
+            this.advices = (advices.isEmpty() ? Collections.<Advice>emptyList() : Collections.unmodifiableList(advices));
+            this.interceptors = advices.toArray(new MethodInterceptor[advices.size()]);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package org.litespring.aop.framework;
+
+/**
+ * Interface-based {@link AopProxyFactory} generating the proxy class with CGLIB,
+ * as an alternative to {@link JdkAopProxyFactory}.
+ *
+ * <p>The proxy implements the interfaces of the {@link AopConfig} on top of
+ * {@code Object}. Unlike a {@code java.lang.reflect.Proxy}, whose every call goes
+ * through {@code InvocationHandler.invoke} and ends in {@code Method.invoke},
+ * methods no advice applies to call the target directly from the generated code,
+ * and advised methods invoke the target through a CGLIB {@code MethodProxy}.
+ * One class is generated per interface set, target class and advices, and reused.
+ */
+public class CglibInterfaceProxyFactory extends CglibProxyFactory {
+
+    public CglibInterfaceProxyFactory(AopConfig config) throws AopConfigException {
+        super(config, true);
+        if (config.getProxiedInterfaces().length == 0) {
+            throw new AopConfigException("No interfaces specified");
+        }
+    }
+
+}
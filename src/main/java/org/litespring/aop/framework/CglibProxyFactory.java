@@ -4,22 +4,30 @@ import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.litespring.aop.Advice;
+import org.litespring.aop.MethodMatcher;
 import org.litespring.aop.AopInvocationException;
 import org.litespring.aop.framework.AopConfig;
 import org.litespring.aop.framework.AopProxyFactory;
 import org.litespring.util.Assert;
+import org.litespring.util.ClassUtils;
 import org.springframework.cglib.core.CodeGenerationException;
+import org.springframework.cglib.core.Predicate;
 import org.springframework.cglib.core.SpringNamingPolicy;
 import org.springframework.cglib.proxy.Callback;
 import org.springframework.cglib.proxy.CallbackFilter;
+import org.springframework.cglib.proxy.Dispatcher;
 import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.Factory;
 import org.springframework.cglib.proxy.MethodInterceptor;
 import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.cglib.proxy.NoOp;
 
 
 /**
@@ -45,6 +53,9 @@ public class CglibProxyFactory implements AopProxyFactory {
 
     protected final AopConfig config;
 
+    // true 时生成实现 config 中接口的代理类（父类是 Object），而不是目标类的子类
+    private final boolean interfaceProxy;
+
     private Object[] constructorArgs;
 
     private Class<?>[] constructorArgTypes;
@@ -53,11 +64,16 @@ public class CglibProxyFactory implements AopProxyFactory {
 
 
     public CglibProxyFactory(AopConfig config) throws AopConfigException {
+        this(config, false);
+    }
+
+    protected CglibProxyFactory(AopConfig config, boolean interfaceProxy) throws AopConfigException {
         Assert.notNull(config, "AdvisedSupport must not be null");
         if (config.getAdvices().size() == 0 /*&& config.getTargetSource() == AdvisedSupport.EMPTY_TARGET_SOURCE*/) {
             throw new AopConfigException("No advisors and no TargetSource specified");
         }
         this.config = config;
+        this.interfaceProxy = interfaceProxy;
 
     }
 
@@ -96,9 +112,13 @@ public class CglibProxyFactory implements AopProxyFactory {
             if (classLoader != null) {
                 enhancer.setClassLoader(classLoader);
             }
-            enhancer.setSuperclass(rootClass);
+            if (this.interfaceProxy) {
+                enhancer.setInterfaces(this.config.getProxiedInterfaces());
+            } else {
+                enhancer.setSuperclass(rootClass);
+            }
 
-            enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE); //"BySpringCGLIB"
+            enhancer.setNamingPolicy(CountingNamingPolicy.INSTANCE); //"BySpringCGLIB"
             enhancer.setInterceptDuringConstruction(false);
 
             Callback[] callbacks = getCallbacks(rootClass);
@@ -107,7 +127,8 @@ public class CglibProxyFactory implements AopProxyFactory {
                 types[x] = callbacks[x].getClass();
             }
 
-            enhancer.setCallbackFilter(new ProxyCallbackFilter(this.config));
+            // filter 实现了 equals/hashCode，目标类和 advice 相同的 bean 会命中 CGLIB 的类缓存，复用同一个代理类
+            enhancer.setCallbackFilter(new ProxyCallbackFilter(rootClass, this.config.getAdvices(), this.interfaceProxy));
             enhancer.setCallbackTypes(types);
             enhancer.setCallbacks(callbacks);
 
@@ -154,18 +175,18 @@ public class CglibProxyFactory implements AopProxyFactory {
         Callback aopInterceptor = new DynamicAdvisedInterceptor(this.config);
 
 
-        //Callback targetInterceptor = new StaticUnadvisedExposedInterceptor(this.advised.getTargetObject());
+        Callback targetInterceptor = new StaticUnadvisedInterceptor(this.config.getTargetObject());
 
-        //Callback targetDispatcher = new StaticDispatcher(this.advised.getTargetObject());
+        Callback targetDispatcher = new StaticDispatcher(this.config.getTargetObject());
 
         Callback[] callbacks = new Callback[] {
                 aopInterceptor,  // AOP_PROXY for normal advice
-                /*targetInterceptor,  // INVOKE_TARGET invoke target without considering advice, if optimized
+                targetInterceptor,  // INVOKE_TARGET invoke target without considering advice, if optimized
                 new SerializableNoOp(),  // NO_OVERRIDE  no override for methods mapped to this
                 targetDispatcher,        //DISPATCH_TARGET
-                this.advisedDispatcher,  //DISPATCH_ADVISED
-                new EqualsInterceptor(this.advised),
-                new HashCodeInterceptor(this.advised)*/
+                new SerializableNoOp(),  //DISPATCH_ADVISED 没有 Advised 接口，这个位置不会被选中，只是占位
+                new EqualsInterceptor(this.config),
+                new HashCodeInterceptor(this.config)
         };
 
         return callbacks;
@@ -175,19 +196,159 @@ public class CglibProxyFactory implements AopProxyFactory {
      * Process a return value. Wraps a return of {@code this} if necessary to be the
      * {@code proxy} and also verifies that {@code null} is not returned as a primitive.
      */
-	/*private static Object processReturnType(Object proxy, Object target, Method method, Object retVal) {
-		
-		if (retVal != null && retVal == target && !RawTargetAccess.class.isAssignableFrom(method.getDeclaringClass())) {
-			
-			retVal = proxy;
-		}
-		Class<?> returnType = method.getReturnType();
-		if (retVal == null && returnType != Void.TYPE && returnType.isPrimitive()) {
-			throw new AopInvocationException(
-					"Null return value from advice does not match primitive return type for: " + method);
-		}
-		return retVal;
-	}*/
+    private static Object processReturnType(Object proxy, Object target, Method method, Object retVal) {
+
+        if (retVal != null && retVal == target) {
+
+            retVal = proxy;
+        }
+        Class<?> returnType = method.getReturnType();
+        if (retVal == null && returnType != Void.TYPE && returnType.isPrimitive()) {
+            throw new AopInvocationException(
+                    "Null return value from advice does not match primitive return type for: " + method);
+        }
+        return retVal;
+    }
+
+    /**
+     * Two proxies are equal if they proxy equal targets with the same advices.
+     */
+    private static boolean equalsInProxy(AopConfig a, AopConfig b) {
+        if (a == b) {
+            return true;
+        }
+        Object target = a.getTargetObject();
+        return (target == null ? b.getTargetObject() == null : target.equals(b.getTargetObject()))
+                && a.getAdvices().equals(b.getAdvices());
+    }
+
+
+    /**
+     * Invocation used by the proxy when there are advices: the joinpoint is invoked
+     * through the CGLIB {@link MethodProxy}, a direct call on the target, instead of
+     * {@code Method.invoke}.
+     */
+    private static class CglibMethodInvocation extends ReflectiveMethodInvocation {
+
+        private final MethodProxy methodProxy;
+
+        private final boolean publicMethod;
+
+        public CglibMethodInvocation(Object target, Method method, Object[] arguments,
+                                     org.aopalliance.intercept.MethodInterceptor[] interceptors, MethodProxy methodProxy) {
+            super(target, method, arguments, interceptors);
+            this.methodProxy = methodProxy;
+            this.publicMethod = Modifier.isPublic(method.getModifiers());
+        }
+
+        @Override
+        protected Object invokeJoinpoint() throws Throwable {
+            if (this.publicMethod) {
+                return this.methodProxy.invoke(this.targetObject, this.arguments);
+            }
+            else {
+                return super.invokeJoinpoint();
+            }
+        }
+    }
+
+
+    /**
+     * Serializable replacement for CGLIB's NoOp interface.
+     * Public to allow use elsewhere in the framework.
+     */
+    public static class SerializableNoOp implements NoOp, Serializable {
+    }
+
+
+    /**
+     * Method interceptor used for static targets with no advice chain. The call
+     * is passed directly back to the target. Used when the method may return
+     * {@code this}, which must then be replaced by the proxy.
+     */
+    private static class StaticUnadvisedInterceptor implements MethodInterceptor, Serializable {
+
+        private final Object target;
+
+        public StaticUnadvisedInterceptor(Object target) {
+            this.target = target;
+        }
+
+        public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+            Object retVal = methodProxy.invoke(this.target, args);
+            return processReturnType(proxy, this.target, method, retVal);
+        }
+    }
+
+
+    /**
+     * Dispatcher for a static target. Dispatcher is much faster than
+     * interceptor. This will be used whenever it can be determined that a
+     * method definitely does not return "this"
+     */
+    private static class StaticDispatcher implements Dispatcher, Serializable {
+
+        private Object target;
+
+        public StaticDispatcher(Object target) {
+            this.target = target;
+        }
+
+        public Object loadObject() {
+            return this.target;
+        }
+    }
+
+
+    /**
+     * Dispatcher for the {@code equals} method.
+     * Ensures that the method call is always handled by this class.
+     */
+    private static class EqualsInterceptor implements MethodInterceptor, Serializable {
+
+        private final AopConfig config;
+
+        public EqualsInterceptor(AopConfig config) {
+            this.config = config;
+        }
+
+        public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) {
+            Object other = args[0];
+            if (proxy == other) {
+                return true;
+            }
+            if (other instanceof Factory) {
+                Callback callback = ((Factory) other).getCallback(INVOKE_EQUALS);
+                if (!(callback instanceof EqualsInterceptor)) {
+                    return false;
+                }
+                AopConfig otherConfig = ((EqualsInterceptor) callback).config;
+                return equalsInProxy(this.config, otherConfig);
+            }
+            else {
+                return false;
+            }
+        }
+    }
+
+
+    /**
+     * Dispatcher for the {@code hashCode} method.
+     * Ensures that the method call is always handled by this class.
+     */
+    private static class HashCodeInterceptor implements MethodInterceptor, Serializable {
+
+        private final AopConfig config;
+
+        public HashCodeInterceptor(AopConfig config) {
+            this.config = config;
+        }
+
+        public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) {
+            Object target = this.config.getTargetObject();
+            return CglibProxyFactory.class.hashCode() * 13 + (target != null ? target.hashCode() : 0);
+        }
+    }
 
 
 
@@ -210,11 +371,11 @@ public class CglibProxyFactory implements AopProxyFactory {
             Object target = this.config.getTargetObject();
 
 
-            List<Advice> chain = this.config.getAdvices(method/*, targetClass*/);
+            org.aopalliance.intercept.MethodInterceptor[] chain = this.config.getInterceptors(method/*, targetClass*/);
             Object retVal;
             // Check whether we only have one InvokerInterceptor: that is,
             // no real advice, but just reflective invocation of the target.
-            if (chain.isEmpty() && Modifier.isPublic(method.getModifiers())) {
+            if (chain.length == 0 && Modifier.isPublic(method.getModifiers())) {
                 // We can skip creating a MethodInvocation: just invoke the target directly.
                 // Note that the final invoker must be an InvokerInterceptor, so we know
                 // it does nothing but a reflective operation on the target, and no hot
@@ -222,14 +383,8 @@ public class CglibProxyFactory implements AopProxyFactory {
                 retVal = methodProxy.invoke(target, args);
             }
             else {
-                List<org.aopalliance.intercept.MethodInterceptor> interceptors =
-                        new ArrayList<org.aopalliance.intercept.MethodInterceptor>();
-
-                interceptors.addAll(chain);
-
-
                 // We need to create a method invocation...
-                retVal = new ReflectiveMethodInvocation(target, method, args, interceptors).proceed();
+                retVal = new CglibMethodInvocation(target, method, args, chain, methodProxy).proceed();
             }
             //retVal = processReturnType(proxy, target, method, retVal);
             return retVal;
@@ -242,25 +397,138 @@ public class CglibProxyFactory implements AopProxyFactory {
 
     /**
      * CallbackFilter to assign Callbacks to methods.
+     * <p>Part of the key under which CGLIB caches generated classes, so it only
+     * holds what the generated class depends on (the target class and the advices),
+     * never the config or the target object, which would be pinned by the cache.
      */
     private static class ProxyCallbackFilter implements CallbackFilter {
 
-        private final AopConfig config;
+        private final Class<?> targetClass;
 
+        private final List<Advice> advices;
+
+        private final boolean interfaceProxy;
 
 
-        public ProxyCallbackFilter(AopConfig advised) {
-            this.config = advised;
+
+        public ProxyCallbackFilter(Class<?> targetClass, List<Advice> advices, boolean interfaceProxy) {
+            this.targetClass = targetClass;
+            this.advices = Collections.unmodifiableList(new ArrayList<Advice>(advices));
+            this.interfaceProxy = interfaceProxy;
 
         }
 
 
+        /**
+         * Implementation of CallbackFilter.accept() to return the index of the
+         * callback we need.
+         * <p>The callbacks for each proxy are built up of a set of fixed callbacks
+         * for general use and then a set of callbacks that are specific to a method:
+         * <ul>
+         * <li>{@code finalize} is not overridden at all;</li>
+         * <li>{@code equals} and {@code hashCode} are answered by the proxy itself;</li>
+         * <li>a method with at least one matching advice goes through the
+         * {@code DynamicAdvisedInterceptor} and its advice chain;</li>
+         * <li>an unadvised method that might return {@code this} is invoked on the
+         * target by the {@code StaticUnadvisedInterceptor}, which replaces a
+         * returned target with the proxy;</li>
+         * <li>any other unadvised method is dispatched straight to the target by the
+         * {@code StaticDispatcher}, without any interception.</li>
+         * </ul>
+         */
         public int accept(Method method) {
-            // 注意，这里做了简化
-            return AOP_PROXY;
+            if (isFinalizeMethod(method)) {
+                return NO_OVERRIDE;
+            }
+            if (isEqualsMethod(method)) {
+                return INVOKE_EQUALS;
+            }
+            if (isHashCodeMethod(method)) {
+                return INVOKE_HASHCODE;
+            }
+            if (this.interfaceProxy && method.getDeclaringClass() == Object.class
+                    && !method.getName().equals("toString")) {
+                // 接口代理的父类是 Object，clone 之类的方法不能转给目标对象
+                return NO_OVERRIDE;
+            }
+            // 接口代理拿到的是接口方法，和 AopConfigSupport 一样也用实现类上的方法匹配（例如带注解的）
+            Method specificMethod = ClassUtils.getMostSpecificMethod(method, this.targetClass);
+            for (Advice advice : this.advices) {
+                MethodMatcher matcher = advice.getPointcut().getMethodMatcher();
+                if (matcher.matches(method) || (specificMethod != method && matcher.matches(specificMethod))) {
+                    return AOP_PROXY;
+                }
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType.isAssignableFrom(this.targetClass)) {
+                return INVOKE_TARGET;
+            }
+            return DISPATCH_TARGET;
+
+        }
+
+        private static boolean isFinalizeMethod(Method method) {
+            return method.getName().equals("finalize") && method.getParameterTypes().length == 0;
+        }
+
+        private static boolean isEqualsMethod(Method method) {
+            Class<?>[] paramTypes = method.getParameterTypes();
+            return method.getName().equals("equals") && paramTypes.length == 1 && paramTypes[0] == Object.class;
+        }
+
+        private static boolean isHashCodeMethod(Method method) {
+            return method.getName().equals("hashCode") && method.getParameterTypes().length == 0;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ProxyCallbackFilter)) {
+                return false;
+            }
+            ProxyCallbackFilter otherFilter = (ProxyCallbackFilter) other;
+            return this.targetClass == otherFilter.targetClass && this.advices.equals(otherFilter.advices)
+                    && this.interfaceProxy == otherFilter.interfaceProxy;
+        }
 
+        @Override
+        public int hashCode() {
+            return this.targetClass.hashCode() * 31 + this.advices.hashCode();
         }
 
     }
 
+    /**
+     * Return the number of proxy classes generated so far by all CglibProxyFactory
+     * instances. Proxies sharing target class and advices reuse one class, so this
+     * should stay flat while creating more instances of the same advised bean.
+     */
+    public static long getProxyClassCount() {
+        return CountingNamingPolicy.INSTANCE.count.get();
+    }
+
+    /**
+     * {@link SpringNamingPolicy} counting the proxy classes it names: CGLIB only
+     * asks for a name when it actually generates a class. The policy is handed on
+     * to the FastClasses generated for {@code MethodProxy}, which are not counted.
+     */
+    private static class CountingNamingPolicy extends SpringNamingPolicy {
+
+        static final CountingNamingPolicy INSTANCE = new CountingNamingPolicy();
+
+        private static final String ENHANCER_SOURCE = Enhancer.class.getName();
+
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public String getClassName(String prefix, String source, Object key, Predicate names) {
+            if (ENHANCER_SOURCE.equals(source)) {
+                this.count.incrementAndGet();
+            }
+            return super.getClassName(prefix, source, key, names);
+        }
+    }
+
 }
\ No newline at end of file
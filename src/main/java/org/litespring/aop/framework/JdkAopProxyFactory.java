@@ -4,15 +4,13 @@ package org.litespring.aop.framework;
 
 
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.litespring.aop.Advice;
 import org.litespring.util.Assert;
 import org.litespring.util.ClassUtils;
 
@@ -56,25 +54,25 @@ public class JdkAopProxyFactory implements AopProxyFactory, InvocationHandler {
 
 
         // Get the interception chain for this method.
-        List<Advice> chain = this.config.getAdvices(method);
+        MethodInterceptor[] chain = this.config.getInterceptors(method);
 
         // Check whether we have any advice. If we don't, we can fallback on direct
         // reflective invocation of the target, and avoid creating a MethodInvocation.
-        if (chain.isEmpty()) {
+        if (chain.length == 0) {
             // We can skip creating a MethodInvocation: just invoke the target directly
             // Note that the final invoker must be an InvokerInterceptor so we know it does
             // nothing but a reflective operation on the target, and no hot swapping or fancy proxying.
-            retVal = method.invoke(target, args);
+            try {
+                retVal = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
         }
         else {
 
-            List<MethodInterceptor> interceptors = 	new ArrayList<MethodInterceptor>();
-
-            interceptors.addAll(chain);
-
-
             // We need to create a method invocation...
-            retVal = new ReflectiveMethodInvocation(target, method, args, interceptors).proceed();
+            // chain 是缓存的数组，直接交给 invocation，不再复制
+            retVal = new ReflectiveMethodInvocation(target, method, args, chain).proceed();
 
         }
 
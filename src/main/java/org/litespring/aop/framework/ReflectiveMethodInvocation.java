@@ -1,15 +1,26 @@
 package org.litespring.aop.framework;
 
 import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
-import java.util.Map;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.ProceedingJoinPoint;
 
-public class ReflectiveMethodInvocation implements MethodInvocation {
+/**
+ * {@link MethodInvocation} walking an interceptor chain and then invoking the
+ * target through reflection.
+ *
+ * <p>Also serves as the {@link ProceedingJoinPoint} handed to advice methods, so
+ * binding the join point costs no extra object.
+ */
+public class ReflectiveMethodInvocation implements MethodInvocation, ProceedingJoinPoint, Cloneable {
 
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final MethodInterceptor[] EMPTY_INTERCEPTORS = new MethodInterceptor[0];
 
 
     protected final Object targetObject; //petStoreService
@@ -21,9 +32,9 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 
 
     /**
-     * List of MethodInterceptor
+     * Array of MethodInterceptor, shared with the proxy: must not be modified
      */
-    protected final List<MethodInterceptor> interceptors;
+    protected final MethodInterceptor[] interceptors;
 
     /**
      * Index from 0 of the current interceptor we're invoking.
@@ -34,11 +45,26 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
 
     public ReflectiveMethodInvocation(
             Object target, Method method, Object[] arguments,
-            List<MethodInterceptor> interceptors) {
+            List<? extends MethodInterceptor> interceptors) {
+
+        this(target, method, arguments, interceptors.toArray(EMPTY_INTERCEPTORS));
+    }
+
+    /**
+     * Create an invocation over the given interceptors. The array is used as is,
+     * so proxies can pass their cached chain without copying it.
+     * <p>Instances are cheap, short-lived and never pooled. The position in the
+     * chain is restored when {@code proceed()} returns, so an interceptor that
+     * proceeds after returning (e.g. on another thread) must do so on an
+     * {@link #invocableClone()} taken while it is being invoked.
+     */
+    public ReflectiveMethodInvocation(
+            Object target, Method method, Object[] arguments,
+            MethodInterceptor[] interceptors) {
 
         this.targetObject = target;
         this.targetMethod = method;
-        this.arguments = arguments;
+        this.arguments = (arguments != null ? arguments : EMPTY_ARGS);
         this.interceptors = interceptors;
     }
 
@@ -59,24 +85,66 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
     }
 
     public final Object[] getArguments() {
-        return (this.arguments != null ? this.arguments : new Object[0]);
+        return this.arguments;
+    }
+
+    public final Object getTarget() {
+        return this.targetObject;
+    }
+
+    public final Object[] getArgs() {
+        return this.arguments;
     }
 
 
 
     public Object proceed() throws Throwable {
+        int index = this.currentInterceptorIndex;
         //	所有的拦截器已经调用完成
-        if (this.currentInterceptorIndex == this.interceptors.size() - 1) {
+        if (index == this.interceptors.length - 1) {
             return invokeJoinpoint();
         }
 
-        this.currentInterceptorIndex ++;
+        this.currentInterceptorIndex = index + 1;
+        try {
+            return this.interceptors[index + 1].invoke(this);
+        } finally {
+            // 回到本次 proceed 之前的位置：拦截器再次 proceed（如重试）时会重新经过后面的拦截器
+            this.currentInterceptorIndex = index;
+        }
+    }
 
-        MethodInterceptor interceptor =
-                this.interceptors.get(this.currentInterceptorIndex);
+    public Object proceed(Object[] args) throws Throwable {
+        if (args == null || args.length != this.arguments.length) {
+            throw new IllegalArgumentException("Expecting " + this.arguments.length + " arguments to proceed, but got "
+                    + (args == null ? 0 : args.length));
+        }
+        this.arguments = args;
+        return proceed();
+    }
 
-        return interceptor.invoke(this);
+    /**
+     * Whether {@code proceed()} goes straight to the joinpoint, i.e. the current
+     * interceptor is the innermost one.
+     */
+    public boolean isAtJoinpoint() {
+        return this.currentInterceptorIndex == this.interceptors.length - 1;
+    }
 
+    /**
+     * Create a copy of this invocation at its current position in the chain, with
+     * its own copy of the arguments. Calling {@code proceed()} on the copy runs
+     * the rest of the chain and the target once more, so an interceptor can
+     * invoke the remainder several times, even concurrently.
+     */
+    public ReflectiveMethodInvocation invocableClone() {
+        try {
+            ReflectiveMethodInvocation clone = (ReflectiveMethodInvocation) super.clone();
+            clone.arguments = this.arguments.clone();
+            return clone;
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException("Should be able to clone object of type [" + getClass() + "]: " + ex);
+        }
     }
 
     /**
@@ -86,7 +154,12 @@ public class ReflectiveMethodInvocation implements MethodInvocation {
      * @throws Throwable if invoking the joinpoint resulted in an exception
      */
     protected Object invokeJoinpoint() throws Throwable {
-        return this.targetMethod.invoke(this.targetObject, this.arguments);
+        try {
+            return this.targetMethod.invoke(this.targetObject, this.arguments);
+        } catch (InvocationTargetException ex) {
+            // 让 advice 和调用方看到目标方法抛出的原始异常
+            throw ex.getTargetException();
+        }
     }
 
     public AccessibleObject getStaticPart() {
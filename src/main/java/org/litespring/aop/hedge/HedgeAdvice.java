@@ -0,0 +1,258 @@
+package org.litespring.aop.hedge;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.aspectj.AbstractAspectJAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.aop.framework.ReflectiveMethodInvocation;
+import org.litespring.aop.metrics.LatencyHistogram;
+
+/**
+ * Advice hedging calls of {@link Idempotent} methods: the call runs on the
+ * caller's thread, and if it has not finished after the configured percentile
+ * of the method's latency, a second invocation is issued on the
+ * {@link HedgingExecutor} the aspect refers to. The first to succeed is returned
+ * and the other is interrupted; the caller returns the hedge's result once its
+ * own invocation gives up, so only invocations that respond to interruption are
+ * cut short.
+ *
+ * <p>The delay is taken from a histogram of the method's recent successful
+ * invocations, updated every {@value #SAMPLES_PER_UPDATE} samples and started
+ * afresh every {@value #SAMPLES_PER_WINDOW}; until the first update
+ * {@code initialDelayMillis} is used. Without a pointcut, {@code <aop:hedge>}
+ * applies to the methods annotated with {@link Idempotent}; matched methods
+ * without the annotation are invoked as is.
+ */
+public class HedgeAdvice extends AbstractAspectJAdvice {
+
+    static final int SAMPLES_PER_UPDATE = 64;
+
+    static final int SAMPLES_PER_WINDOW = 16 * SAMPLES_PER_UPDATE;
+
+    private static final MethodLatency NOT_IDEMPOTENT = new MethodLatency(0, 100);
+
+    private double percentile = 95;
+
+    private long initialDelayMillis = 10;
+
+    private final ConcurrentMap<Method, MethodLatency> latencies = new ConcurrentHashMap<Method, MethodLatency>(16);
+
+    public HedgeAdvice(AspectJExpressionPointcut pointcut, AspectInstanceFactory adviceObjectFactory) {
+        super(null, pointcut, adviceObjectFactory);
+    }
+
+    public void setPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in (0, 100]: " + percentile);
+        }
+        this.percentile = percentile;
+    }
+
+    public double getPercentile() {
+        return this.percentile;
+    }
+
+    public void setInitialDelayMillis(long initialDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+    }
+
+    public long getInitialDelayMillis() {
+        return this.initialDelayMillis;
+    }
+
+    public Object invoke(MethodInvocation mi) throws Throwable {
+        MethodLatency latency = getMethodLatency(mi.getMethod(), mi.getThis());
+        if (latency == NOT_IDEMPOTENT || !(mi instanceof ReflectiveMethodInvocation)) {
+            return mi.proceed();
+        }
+        HedgingExecutor executor = getHedgingExecutor();
+        executor.recordCall();
+        ReflectiveMethodInvocation invocation = (ReflectiveMethodInvocation) mi;
+        boolean interrupted = Thread.currentThread().isInterrupted();
+
+        // 第一次调用就在当前线程执行，不用交给线程池，也保留了调用线程的 ThreadLocal
+        HedgedCall call = new HedgedCall(invocation.invocableClone(), latency, executor, Thread.currentThread());
+        Future<?> timer = executor.getTimer().schedule(call, latency.getDelayNanos(), TimeUnit.NANOSECONDS);
+        Object result = null;
+        Throwable failure = null;
+        long start = System.nanoTime();
+        try {
+            result = invocation.proceed();
+            latency.record(System.nanoTime() - start);
+        } catch (Throwable ex) {
+            failure = ex;
+        } finally {
+            timer.cancel(false);
+        }
+
+        Future<?> hedge;
+        synchronized (call) {
+            call.primaryDone = true;
+            hedge = call.hedge;
+            if (hedge != null && (call.hedgeWon || failure != null)) {
+                // 对冲已经成功，或者第一次调用失败了还要等对冲的结果
+                try {
+                    while (!call.hedgeDone) {
+                        call.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    hedge.cancel(true);
+                    Thread.currentThread().interrupt();
+                    throw (failure != null ? failure : ex);
+                }
+                if (call.hedgeWon && !interrupted) {
+                    // 清掉对冲成功时发给当前线程的中断
+                    Thread.interrupted();
+                }
+                if (call.hedgeFailure == null) {
+                    executor.recordHedgeWon();
+                    return call.hedgeResult;
+                }
+            }
+        }
+        if (hedge != null) {
+            hedge.cancel(true);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+
+    private MethodLatency getMethodLatency(Method method, Object target) {
+        MethodLatency latency = this.latencies.get(method);
+        if (latency == null) {
+            if (findAnnotation(method, target, Idempotent.class) == null) {
+                latency = NOT_IDEMPOTENT;
+            } else {
+                latency = new MethodLatency(TimeUnit.MILLISECONDS.toNanos(this.initialDelayMillis), this.percentile);
+            }
+            MethodLatency existing = this.latencies.putIfAbsent(method, latency);
+            if (existing != null) {
+                latency = existing;
+            }
+        }
+        return latency;
+    }
+
+    private HedgingExecutor getHedgingExecutor() throws Exception {
+        Object executor = getAdviceInstance();
+        if (!(executor instanceof HedgingExecutor)) {
+            throw new AopConfigException("The aspect of <aop:hedge> must be a HedgingExecutor, but was " + executor);
+        }
+        return (HedgingExecutor) executor;
+    }
+
+
+    /**
+     * Latency of one method, and the hedge delay derived from it.
+     */
+    private static class MethodLatency {
+        // 只统计最近一个窗口的调用，延迟变化后对冲的时机跟着变
+        private volatile LatencyHistogram window = new LatencyHistogram();
+        private final AtomicLong samples = new AtomicLong();
+        private final double percentile;
+        private volatile long delayNanos;
+
+        MethodLatency(long initialDelayNanos, double percentile) {
+            this.delayNanos = initialDelayNanos;
+            this.percentile = percentile;
+        }
+
+        long getDelayNanos() {
+            return this.delayNanos;
+        }
+
+        void record(long nanos) {
+            LatencyHistogram window = this.window;
+            window.record(nanos);
+            long count = this.samples.incrementAndGet();
+            if (count % SAMPLES_PER_UPDATE == 0) {
+                this.delayNanos = window.snapshot().getValueAtPercentile(this.percentile);
+                if (count % SAMPLES_PER_WINDOW == 0) {
+                    this.window = new LatencyHistogram();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * One hedged call: started by the timer if the caller's invocation is still
+     * running after the delay, the hedge runs on the executor's pool.
+     */
+    private static class HedgedCall implements Runnable {
+        private final ReflectiveMethodInvocation invocation;
+        private final MethodLatency latency;
+        private final HedgingExecutor executor;
+        private final Thread caller;
+
+        // 以下字段都在 synchronized (this) 中访问
+        boolean primaryDone;
+        Future<?> hedge;
+        boolean hedgeDone;
+        boolean hedgeWon;
+        Object hedgeResult;
+        Throwable hedgeFailure;
+
+        HedgedCall(ReflectiveMethodInvocation invocation, MethodLatency latency,
+                   HedgingExecutor executor, Thread caller) {
+            this.invocation = invocation;
+            this.latency = latency;
+            this.executor = executor;
+            this.caller = caller;
+        }
+
+        public void run() {
+            // 定时器线程：第一次调用还没结束就发出对冲
+            synchronized (this) {
+                if (this.primaryDone) {
+                    return;
+                }
+                try {
+                    this.hedge = this.executor.getExecutor().submit(new Runnable() {
+                        public void run() {
+                            hedge();
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    // 没有空闲线程就只等第一次调用
+                    return;
+                }
+            }
+            this.executor.recordHedge();
+        }
+
+        private void hedge() {
+            Object result = null;
+            Throwable failure = null;
+            long start = System.nanoTime();
+            try {
+                result = this.invocation.proceed();
+                this.latency.record(System.nanoTime() - start);
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+            synchronized (this) {
+                this.hedgeDone = true;
+                this.hedgeResult = result;
+                this.hedgeFailure = failure;
+                if (failure == null && !this.primaryDone) {
+                    // 对冲先成功：中断调用线程上还在执行的第一次调用
+                    this.hedgeWon = true;
+                    this.caller.interrupt();
+                }
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.litespring.aop.hedge;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the invocations of {@link HedgeAdvice} and counts the hedges, declared as
+ * the bean the {@code <aop:hedge>} aspect refers to:
+ *
+ * <pre class="code">
+ * &lt;bean id="hedging" class="org.litespring.aop.hedge.HedgingExecutor"&gt;
+ *     &lt;property name="maxThreads" value="32"/&gt;
+ * &lt;/bean&gt;
+ *
+ * &lt;aop:config&gt;
+ *     &lt;aop:aspect ref="hedging"&gt;
+ *         &lt;aop:hedge percentile="99" initial-delay-millis="20"/&gt;
+ *     &lt;/aop:aspect&gt;
+ * &lt;/aop:config&gt;</pre>
+ *
+ * The first invocation runs on the caller's thread. Hedges are started by a
+ * timer thread and by default run on a pool of up to {@code maxThreads} daemon
+ * threads that hands work over directly: when all of them are busy, the call is
+ * not hedged instead of queueing.
+ */
+public class HedgingExecutor {
+
+    private int maxThreads = 64;
+
+    private volatile ExecutorService executor;
+
+    private volatile ScheduledExecutorService timer;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgesWon = new LongAdder();
+
+
+    public void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be positive: " + maxThreads);
+        }
+        this.maxThreads = maxThreads;
+    }
+
+    public int getMaxThreads() {
+        return this.maxThreads;
+    }
+
+    /**
+     * Use the given executor for hedges instead of the default pool. It should
+     * reject work rather than queue it, or hedges may wait behind the calls they
+     * back up.
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Number of hedged method calls made.
+     */
+    public long getCallCount() {
+        return this.calls.sum();
+    }
+
+    /**
+     * Number of backup invocations issued.
+     */
+    public long getHedgeCount() {
+        return this.hedges.sum();
+    }
+
+    /**
+     * Number of backup invocations that finished before the first invocation.
+     */
+    public long getHedgeWinCount() {
+        return this.hedgesWon.sum();
+    }
+
+    ExecutorService getExecutor() {
+        ExecutorService executor = this.executor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.executor;
+                if (executor == null) {
+                    executor = createExecutor();
+                    this.executor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    ScheduledExecutorService getTimer() {
+        ScheduledExecutorService timer = this.timer;
+        if (timer == null) {
+            synchronized (this) {
+                timer = this.timer;
+                if (timer == null) {
+                    timer = createTimer();
+                    this.timer = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
+    private ScheduledExecutorService createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // 大多数调用在对冲之前就结束了，取消的定时任务要立即移除
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private ExecutorService createExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(0, this.maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "hedge-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    void recordCall() {
+        this.calls.increment();
+    }
+
+    void recordHedge() {
+        this.hedges.increment();
+    }
+
+    void recordHedgeWon() {
+        this.hedgesWon.increment();
+    }
+}
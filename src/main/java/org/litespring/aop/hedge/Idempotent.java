@@ -0,0 +1,15 @@
+package org.litespring.aop.hedge;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method that may safely be invoked more than once for the same call,
+ * so that {@link HedgeAdvice} can issue a backup invocation when the first one
+ * is slow. The method should respond to interruption, which is how the losing
+ * invocation is cancelled.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Idempotent {
+}
@@ -0,0 +1,111 @@
+package org.litespring.aop.lock;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.aspectj.AbstractAspectJAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.aop.framework.ReflectiveMethodInvocation;
+
+/**
+ * Advice running {@link ReadLocked} and {@link WriteLocked} methods under the
+ * read or write lock of their target's {@link java.util.concurrent.locks.StampedLock},
+ * taken from the {@link LockRegistry} the aspect refers to. Optimistic reads run
+ * the method once without locking and validate the stamp afterwards; they are
+ * only tried when no other advice runs inside this one, and otherwise take the
+ * read lock.
+ *
+ * <p>Without a pointcut, {@code <aop:lock>} applies to the methods annotated
+ * with either annotation; matched methods without one are invoked as is.
+ */
+public class LockAdvice extends AbstractAspectJAdvice {
+
+    private static final int NONE = 0;
+    private static final int READ = 1;
+    private static final int OPTIMISTIC_READ = 2;
+    private static final int WRITE = 3;
+
+    private final Map<Method, Integer> lockModes = new ConcurrentHashMap<Method, Integer>(16);
+
+    public LockAdvice(AspectJExpressionPointcut pointcut, AspectInstanceFactory adviceObjectFactory) {
+        super(null, pointcut, adviceObjectFactory);
+    }
+
+    public Object invoke(MethodInvocation mi) throws Throwable {
+        int mode = getLockMode(mi.getMethod(), mi.getThis());
+        if (mode == NONE) {
+            return mi.proceed();
+        }
+        LockRegistry registry = getRegistry();
+        StampedLock lock = registry.obtainLock(mi.getThis());
+        if (mode == WRITE) {
+            long stamp = lock.writeLock();
+            try {
+                return mi.proceed();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        // 只有后面直接就是目标方法时才乐观读：内层 advice 的副作用无法随结果一起丢弃
+        if (mode == OPTIMISTIC_READ && mi instanceof ReflectiveMethodInvocation
+                && ((ReflectiveMethodInvocation) mi).isAtJoinpoint()) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Object result = null;
+                Throwable failure = null;
+                try {
+                    result = mi.proceed();
+                } catch (Throwable ex) {
+                    failure = ex;
+                }
+                boolean valid = lock.validate(stamp);
+                registry.recordOptimisticRead(valid);
+                if (valid) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return result;
+                }
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return mi.proceed();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int getLockMode(Method method, Object target) {
+        Integer mode = this.lockModes.get(method);
+        if (mode == null) {
+            ReadLocked readLocked = findAnnotation(method, target, ReadLocked.class);
+            WriteLocked writeLocked = findAnnotation(method, target, WriteLocked.class);
+            if (readLocked != null && writeLocked != null) {
+                throw new AopConfigException("Method " + method + " can't be both @ReadLocked and @WriteLocked");
+            }
+            if (writeLocked != null) {
+                mode = WRITE;
+            } else if (readLocked != null) {
+                mode = (readLocked.optimistic() ? OPTIMISTIC_READ : READ);
+            } else {
+                mode = NONE;
+            }
+            this.lockModes.put(method, mode);
+        }
+        return mode;
+    }
+
+    private LockRegistry getRegistry() throws Exception {
+        Object registry = getAdviceInstance();
+        if (!(registry instanceof LockRegistry)) {
+            throw new AopConfigException("The aspect of <aop:lock> must be a LockRegistry, but was " + registry);
+        }
+        return (LockRegistry) registry;
+    }
+}
@@ -0,0 +1,104 @@
+package org.litespring.aop.lock;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Holds the {@link StampedLock} of every bean locked by {@link LockAdvice},
+ * declared as the bean the {@code <aop:lock>} aspect refers to:
+ *
+ * <pre class="code">
+ * &lt;bean id="locks" class="org.litespring.aop.lock.LockRegistry"/&gt;
+ *
+ * &lt;aop:config&gt;
+ *     &lt;aop:aspect ref="locks"&gt;
+ *         &lt;aop:lock/&gt;
+ *     &lt;/aop:aspect&gt;
+ * &lt;/aop:config&gt;</pre>
+ *
+ * Locks are kept per target instance for the life of the registry, which suits
+ * the singletons this is meant for. They are not reentrant: a locked method must
+ * not call back into a locked method of the same bean through its proxy.
+ */
+public class LockRegistry {
+
+    private final ConcurrentMap<TargetKey, StampedLock> locks = new ConcurrentHashMap<TargetKey, StampedLock>(16);
+
+    // 大多数情况下一个 advice 只对应一个目标对象，缓存最近一次查找的结果
+    private volatile TargetLock lastLock;
+
+    private final LongAdder optimisticReads = new LongAdder();
+
+    private final LongAdder optimisticFailures = new LongAdder();
+
+
+    /**
+     * Number of optimistic reads whose result was used.
+     */
+    public long getOptimisticReadCount() {
+        return this.optimisticReads.sum();
+    }
+
+    /**
+     * Number of optimistic reads invalidated by a writer and run again under the read lock.
+     */
+    public long getOptimisticFailureCount() {
+        return this.optimisticFailures.sum();
+    }
+
+    StampedLock obtainLock(Object target) {
+        TargetLock lastLock = this.lastLock;
+        if (lastLock != null && lastLock.target == target) {
+            return lastLock.lock;
+        }
+        TargetKey key = new TargetKey(target);
+        StampedLock lock = this.locks.get(key);
+        if (lock == null) {
+            lock = new StampedLock();
+            StampedLock existing = this.locks.putIfAbsent(key, lock);
+            if (existing != null) {
+                lock = existing;
+            }
+        }
+        this.lastLock = new TargetLock(target, lock);
+        return lock;
+    }
+
+    void recordOptimisticRead(boolean valid) {
+        if (valid) {
+            this.optimisticReads.increment();
+        } else {
+            this.optimisticFailures.increment();
+        }
+    }
+
+
+    private static final class TargetLock {
+        final Object target;
+        final StampedLock lock;
+
+        TargetLock(Object target, StampedLock lock) {
+            this.target = target;
+            this.lock = lock;
+        }
+    }
+
+
+    private static final class TargetKey {
+        private final Object target;
+
+        TargetKey(Object target) {
+            this.target = target;
+        }
+
+        public boolean equals(Object other) {
+            return (other instanceof TargetKey && ((TargetKey) other).target == this.target);
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(this.target);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.litespring.aop.lock;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method that only reads the state of its bean, so {@link LockAdvice}
+ * lets it run concurrently with other readers, but not with a
+ * {@link WriteLocked} method of the same bean.
+ *
+ * <p>With {@link #optimistic()} set, the method first runs under an optimistic
+ * read, without taking the lock: if a writer got in meanwhile, its result (or
+ * exception) is dropped and the method runs again under the read lock. That is
+ * only safe for methods without side effects that tolerate seeing half-written
+ * state, so it must be enabled method by method.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadLocked {
+    /**
+     * Whether to try an optimistic read before taking the read lock.
+     */
+    boolean optimistic() default false;
+}
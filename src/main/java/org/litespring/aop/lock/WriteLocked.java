@@ -0,0 +1,14 @@
+package org.litespring.aop.lock;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a method that changes the state of its bean, so {@link LockAdvice} runs
+ * it alone, excluding every other {@link ReadLocked} or {@code WriteLocked}
+ * method of the same bean.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WriteLocked {
+}
@@ -0,0 +1,95 @@
+package org.litespring.aop.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets and a fixed memory footprint.
+ *
+ * <p>Values below 16 get a bucket each; above that every power of two is split
+ * into 16 linear sub-buckets, so a recorded value is reported with a relative
+ * error of at most 1/16. Values above 2<sup>37</sup> ns (about 2 minutes) all
+ * fall into the last bucket.
+ *
+ * <p>Buckets are striped by thread so that concurrent callers rarely update the
+ * same counter; {@link #snapshot()} sums the stripes.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    static final int MAX_EXPONENT = 36;
+
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private static final int MAX_STRIPES = 4;
+
+    private static final int STRIPES = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicLongArray buckets = new AtomicLongArray(STRIPES * BUCKET_COUNT);
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        this.buckets.incrementAndGet(stripe * BUCKET_COUNT + bucketIndex(nanos));
+        this.totalNanos.add(nanos);
+        long max = this.maxNanos.get();
+        while (nanos > max && !this.maxNanos.compareAndSet(max, nanos)) {
+            max = this.maxNanos.get();
+        }
+    }
+
+    /**
+     * Return a point-in-time copy of the histogram. Values recorded concurrently
+     * may or may not be included.
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int offset = stripe * BUCKET_COUNT;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long c = this.buckets.get(offset + i);
+                counts[i] += c;
+                count += c;
+            }
+        }
+        return new LatencySnapshot(counts, count, this.totalNanos.sum(), this.maxNanos.get());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        // 最高位之后的 4 位决定落在这个 2 的幂区间里的哪一份
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long highestValue(int index) {
+        return lowestValue(index + 1) - 1;
+    }
+}
@@ -0,0 +1,62 @@
+package org.litespring.aop.metrics;
+
+/**
+ * Immutable copy of a {@link LatencyHistogram}. All values are in nanoseconds.
+ */
+public class LatencySnapshot {
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long totalNanos;
+
+    private final long maxNanos;
+
+    LatencySnapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+        this.counts = counts;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public double getMean() {
+        return (this.count == 0 ? 0 : (double) this.totalNanos / this.count);
+    }
+
+    public long getMax() {
+        return this.maxNanos;
+    }
+
+    /**
+     * Return the value below or at which the given percentage of the recorded
+     * values fall, rounded up to the top of its bucket.
+     * @param percentile between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+        }
+        if (this.count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValue(i), this.maxNanos);
+            }
+        }
+        return this.maxNanos;
+    }
+
+    public String toString() {
+        return "count=" + this.count + ", mean=" + (long) getMean() + "ns, p50=" + getValueAtPercentile(50)
+                + "ns, p99=" + getValueAtPercentile(99) + "ns, max=" + this.maxNanos + "ns";
+    }
+}
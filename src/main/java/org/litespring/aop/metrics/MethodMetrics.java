@@ -0,0 +1,51 @@
+package org.litespring.aop.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency of one advised method.
+ */
+public class MethodMetrics {
+
+    private final Method method;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    MethodMetrics(Method method) {
+        this.method = method;
+    }
+
+    void record(long nanos, boolean failed) {
+        this.calls.increment();
+        if (failed) {
+            this.errors.increment();
+        }
+        this.latency.record(nanos);
+    }
+
+    public Method getMethod() {
+        return this.method;
+    }
+
+    public long getCallCount() {
+        return this.calls.sum();
+    }
+
+    public long getErrorCount() {
+        return this.errors.sum();
+    }
+
+    public LatencySnapshot getLatency() {
+        return this.latency.snapshot();
+    }
+
+    public String toString() {
+        return this.method.getDeclaringClass().getSimpleName() + "." + this.method.getName()
+                + ": calls=" + getCallCount() + ", errors=" + getErrorCount() + ", " + getLatency();
+    }
+}
@@ -0,0 +1,39 @@
+package org.litespring.aop.metrics;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.aspectj.AbstractAspectJAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+
+/**
+ * Advice recording the call count, error count and latency of every matched
+ * method into the {@link MetricsRegistry} the aspect refers to.
+ */
+public class MetricsAdvice extends AbstractAspectJAdvice {
+
+    public MetricsAdvice(AspectJExpressionPointcut pointcut, AspectInstanceFactory adviceObjectFactory) {
+        super(null, pointcut, adviceObjectFactory);
+    }
+
+    public Object invoke(MethodInvocation mi) throws Throwable {
+        MethodMetrics metrics = getRegistry().obtainMetrics(mi.getMethod());
+        long start = System.nanoTime();
+        try {
+            Object retVal = mi.proceed();
+            metrics.record(System.nanoTime() - start, false);
+            return retVal;
+        } catch (Throwable t) {
+            metrics.record(System.nanoTime() - start, true);
+            throw t;
+        }
+    }
+
+    private MetricsRegistry getRegistry() throws Exception {
+        Object registry = getAdviceInstance();
+        if (!(registry instanceof MetricsRegistry)) {
+            throw new AopConfigException("The aspect of <aop:metrics> must be a MetricsRegistry, but was " + registry);
+        }
+        return (MetricsRegistry) registry;
+    }
+}
@@ -0,0 +1,55 @@
+package org.litespring.aop.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the {@link MethodMetrics} recorded by {@link MetricsAdvice}. Declared as
+ * a bean and used as the aspect of the {@code <aop:metrics>} element:
+ *
+ * <pre class="code">
+ * &lt;bean id="metrics" class="org.litespring.aop.metrics.MetricsRegistry"/&gt;
+ *
+ * &lt;aop:config&gt;
+ *     &lt;aop:aspect ref="metrics"&gt;
+ *         &lt;aop:metrics pointcut="execution(* org.example.service.*.*(..))"/&gt;
+ *     &lt;/aop:aspect&gt;
+ * &lt;/aop:config&gt;</pre>
+ *
+ * Methods are keyed as seen by the proxy: an interface method for JDK proxies,
+ * the target class method for CGLIB proxies.
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentMap<Method, MethodMetrics> metrics = new ConcurrentHashMap<Method, MethodMetrics>(64);
+
+    MethodMetrics obtainMetrics(Method method) {
+        MethodMetrics methodMetrics = this.metrics.get(method);
+        if (methodMetrics == null) {
+            methodMetrics = new MethodMetrics(method);
+            MethodMetrics existing = this.metrics.putIfAbsent(method, methodMetrics);
+            if (existing != null) {
+                methodMetrics = existing;
+            }
+        }
+        return methodMetrics;
+    }
+
+    /**
+     * Return the metrics of the given method, or {@code null} if it has not been called.
+     */
+    public MethodMetrics getMetrics(Method method) {
+        return this.metrics.get(method);
+    }
+
+    public Collection<MethodMetrics> getAllMetrics() {
+        return Collections.unmodifiableCollection(this.metrics.values());
+    }
+
+    public void clear() {
+        this.metrics.clear();
+    }
+}
@@ -63,13 +63,13 @@ public class SimpleTypeConverter implements TypeConverter {
 		this.defaultEditors.put(Short.class, new CustomNumberEditor(Short.class, true));*/
         this.defaultEditors.put(int.class, new CustomNumberEditor(Integer.class, false));
         this.defaultEditors.put(Integer.class, new CustomNumberEditor(Integer.class, true));
-		/*this.defaultEditors.put(long.class, new CustomNumberEditor(Long.class, false));
-		this.defaultEditors.put(Long.class, new CustomNumberEditor(Long.class, true));
-		this.defaultEditors.put(float.class, new CustomNumberEditor(Float.class, false));
-		this.defaultEditors.put(Float.class, new CustomNumberEditor(Float.class, true));
-		this.defaultEditors.put(double.class, new CustomNumberEditor(Double.class, false));
-		this.defaultEditors.put(Double.class, new CustomNumberEditor(Double.class, true));
-		this.defaultEditors.put(BigDecimal.class, new CustomNumberEditor(BigDecimal.class, true));
+        this.defaultEditors.put(long.class, new CustomNumberEditor(Long.class, false));
+        this.defaultEditors.put(Long.class, new CustomNumberEditor(Long.class, true));
+		/*this.defaultEditors.put(float.class, new CustomNumberEditor(Float.class, false));
+		this.defaultEditors.put(Float.class, new CustomNumberEditor(Float.class, true));*/
+        this.defaultEditors.put(double.class, new CustomNumberEditor(Double.class, false));
+        this.defaultEditors.put(Double.class, new CustomNumberEditor(Double.class, true));
+		/*this.defaultEditors.put(BigDecimal.class, new CustomNumberEditor(BigDecimal.class, true));
 		this.defaultEditors.put(BigInteger.class, new CustomNumberEditor(BigInteger.class, true));*/
 
 
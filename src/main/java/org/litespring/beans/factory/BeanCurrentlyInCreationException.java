@@ -0,0 +1,19 @@
+package org.litespring.beans.factory;
+
+/**
+ * Exception thrown in case of a reference to a bean that's currently in creation.
+ * Typically happens when constructor autowiring matches the currently constructed bean.
+ */
+public class BeanCurrentlyInCreationException extends BeanCreationException {
+
+    /**
+     * Create a new BeanCurrentlyInCreationException,
+     * with a default error message that indicates a circular reference.
+     * @param beanName the name of the bean requested
+     */
+    public BeanCurrentlyInCreationException(String beanName) {
+        super(beanName,
+                "Requested bean is currently in creation: Is there an unresolvable circular reference?");
+    }
+
+}
@@ -9,5 +9,10 @@ public interface BeanFactory {
     Object getBean(String beanID);
     Class<?> getType(String name) throws NoSuchBeanDefinitionException;
 
+    /**
+     * Whether {@link #getBean} always returns the same instance for the given name.
+     */
+    boolean isSingleton(String name) throws NoSuchBeanDefinitionException;
+
     List<Object> getBeansByType(Class<?> type);
 }
@@ -0,0 +1,22 @@
+package org.litespring.beans.factory;
+
+import org.litespring.beans.BeansException;
+
+/**
+ * Defines a factory which can return an Object instance
+ * (possibly shared or independent) when invoked.
+ *
+ * <p>Used by the singleton registry to hand over the actual creation
+ * of a singleton to the bean factory.
+ */
+public interface ObjectFactory<T> {
+
+    /**
+     * Return an instance (possibly shared or independent)
+     * of the object managed by this factory.
+     * @return an instance of the bean (should never be {@code null})
+     * @throws BeansException in case of creation errors
+     */
+    T getObject() throws BeansException;
+
+}
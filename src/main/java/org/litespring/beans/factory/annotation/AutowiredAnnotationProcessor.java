@@ -5,9 +5,15 @@ import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.litespring.beans.BeansException;
 import org.litespring.beans.factory.BeanCreationException;
@@ -26,17 +32,48 @@ public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostP
     private final Set<Class<? extends Annotation>> autowiredAnnotationTypes =
             new LinkedHashSet<Class<? extends Annotation>>();
 
+    // 每个类的 InjectionMetadata 只构建一次，之后所有实例共用。元素绑定的 beanFactory 和这个 processor
+    // 同生命周期，所以缓存挂在 processor 上而不是 Class 上：key 只在 beanFactory 存活期间被引用，
+    // 而 beanFactory 本来就通过 BeanDefinition 引用着这些类，不会额外妨碍类的卸载
+    private final Map<Class<?>, InjectionMetadata> injectionMetadataCache =
+            new ConcurrentHashMap<Class<?>, InjectionMetadata>(256);
+
+    private final LongAdder metadataCacheRequests = new LongAdder();
+    private final LongAdder metadataCacheMisses = new LongAdder();
+
     public AutowiredAnnotationProcessor(){
         this.autowiredAnnotationTypes.add(Autowired.class);
     }
 
+    /**
+     * Return the injection metadata of the given class, built on first use and
+     * shared by all its instances.
+     */
     public InjectionMetadata buildAutowiringMetadata(Class<?> clazz) {
+        this.metadataCacheRequests.increment();
+        InjectionMetadata metadata = this.injectionMetadataCache.get(clazz);
+        if (metadata == null) {
+            this.metadataCacheMisses.increment();
+            List<InjectionElement> elements = new ArrayList<InjectionElement>();
+            for (AutowiredField autowiredField : findAutowiredFields(clazz)) {
+                elements.add(new AutowiredFieldElement(autowiredField.field, autowiredField.required, beanFactory));
+            }
+            metadata = new InjectionMetadata(clazz, Collections.unmodifiableList(elements));
+            InjectionMetadata existing = this.injectionMetadataCache.putIfAbsent(clazz, metadata);
+            if (existing != null) {
+                metadata = existing;
+            }
+        }
+        return metadata;
+    }
 
-        LinkedList<InjectionElement> elements = new LinkedList<InjectionElement>();
+    private AutowiredField[] findAutowiredFields(Class<?> clazz) {
+
+        LinkedList<AutowiredField> fields = new LinkedList<AutowiredField>();
         Class<?> targetClass = clazz;
 
         do {
-            LinkedList<InjectionElement> currElements = new LinkedList<InjectionElement>();
+            LinkedList<AutowiredField> currFields = new LinkedList<AutowiredField>();
             for (Field field : targetClass.getDeclaredFields()) {
                 Annotation ann = findAutowiredAnnotation(field);
                 if (ann != null) {
@@ -45,18 +82,27 @@ public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostP
                         continue;
                     }
                     boolean required = determineRequiredStatus(ann);
-                    currElements.add(new AutowiredFieldElement(field, required,beanFactory));
+                    ReflectionUtils.makeAccessible(field);
+                    currFields.add(new AutowiredField(field, required));
                 }
             }
             for (Method method : targetClass.getDeclaredMethods()) {
                 //TODO 处理方法注入
             }
-            elements.addAll(0, currElements);
+            fields.addAll(0, currFields);
             targetClass = targetClass.getSuperclass();
         }
         while (targetClass != null && targetClass != Object.class);
 
-        return new InjectionMetadata(clazz, elements);
+        return fields.toArray(new AutowiredField[fields.size()]);
+    }
+
+    public long getMetadataCacheHits() {
+        return this.metadataCacheRequests.sum() - this.metadataCacheMisses.sum();
+    }
+
+    public long getMetadataCacheMisses() {
+        return this.metadataCacheMisses.sum();
     }
 
     protected boolean determineRequiredStatus(Annotation ann) {
@@ -115,5 +161,17 @@ public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostP
 
     public void setBeanFactory(AutowireCapableBeanFactory beanFactory){
         this.beanFactory = beanFactory;
+        // 已缓存的元素绑定的是原来的 beanFactory
+        this.injectionMetadataCache.clear();
+    }
+
+    private static class AutowiredField {
+        final Field field;
+        final boolean required;
+
+        AutowiredField(Field field, boolean required) {
+            this.field = field;
+            this.required = required;
+        }
     }
 }
\ No newline at end of file
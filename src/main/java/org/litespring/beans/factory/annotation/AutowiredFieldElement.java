@@ -4,6 +4,7 @@ import java.lang.reflect.Field;
 
 import org.litespring.beans.factory.BeanCreationException;
 import org.litespring.beans.factory.config.AutowireCapableBeanFactory;
+import org.litespring.beans.factory.config.ConfigurableBeanFactory;
 import org.litespring.beans.factory.config.DependencyDescriptor;
 import org.litespring.util.ReflectionUtils;
 
@@ -30,8 +31,12 @@ public class AutowiredFieldElement extends InjectionElement {
 
             if (value != null) {
 
-                ReflectionUtils.makeAccessible(field);
-                field.set(target, value);
+                if (factory instanceof ConfigurableBeanFactory) {
+                    ((ConfigurableBeanFactory) factory).getFieldWriter(field).write(target, value);
+                } else {
+                    ReflectionUtils.makeAccessible(field);
+                    field.set(target, value);
+                }
             }
         }
         catch (Throwable ex) {
@@ -0,0 +1,41 @@
+package org.litespring.beans.factory.config;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Strategy used by a bean factory to create bean instances and to write
+ * injected values into them.
+ *
+ * <p>Implementations may generate and cache an accessor per member, so callers
+ * should ask for an accessor each time rather than hold on to it across
+ * factory reconfiguration.
+ *
+ * @see ConfigurableBeanFactory#setBeanAccessorStrategy
+ */
+public interface BeanAccessorStrategy {
+
+    /**
+     * Return an instantiator for the default (no-arg) constructor of the given class.
+     */
+    Instantiator getInstantiator(Class<?> beanClass) throws NoSuchMethodException;
+
+    Instantiator getInstantiator(Constructor<?> constructor);
+
+    /**
+     * Return a writer invoking the given setter (or any single-argument method).
+     */
+    PropertyWriter getPropertyWriter(Method writeMethod);
+
+    PropertyWriter getPropertyWriter(Field field);
+
+
+    interface Instantiator {
+        Object newInstance(Object[] args) throws Exception;
+    }
+
+    interface PropertyWriter {
+        void write(Object target, Object value) throws Exception;
+    }
+}
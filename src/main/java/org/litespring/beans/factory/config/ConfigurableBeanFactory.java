@@ -1,5 +1,6 @@
 package org.litespring.beans.factory.config;
 
+import java.lang.reflect.Field;
 import java.util.List;
 
 public interface ConfigurableBeanFactory extends AutowireCapableBeanFactory {
@@ -7,4 +8,12 @@ public interface ConfigurableBeanFactory extends AutowireCapableBeanFactory {
     ClassLoader getBeanClassLoader();
     void addBeanPostProcessor(BeanPostProcessor postProcessor);
     List<BeanPostProcessor> getBeanPostProcessors();
+    void setBeanAccessorStrategy(BeanAccessorStrategy beanAccessorStrategy);
+    BeanAccessorStrategy getBeanAccessorStrategy();
+
+    /**
+     * Return the writer of the given field from the current accessor strategy,
+     * created once per field until the strategy changes.
+     */
+    BeanAccessorStrategy.PropertyWriter getFieldWriter(Field field);
 }
@@ -0,0 +1,120 @@
+package org.litespring.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.litespring.beans.BeanDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index from a type to the names of the beans assignable to it, used by
+ * {@link DefaultBeanFactory} for autowiring and {@code getBeansByType}.
+ *
+ * <p>Every bean is filed under its class and all of its superclasses and
+ * interfaces, so a lookup is a single map access instead of an
+ * {@code isAssignableFrom} check against every definition. Bean classes are
+ * resolved lazily: definitions registered since the last lookup are indexed on
+ * the next one, so registering does not load classes (the bean class loader may
+ * not even be set yet at that point).
+ *
+ * <p>Lookups read an immutable snapshot and never lock; indexing is serialized.
+ */
+class BeanTypeIndex {
+
+    private static final Log logger = LogFactory.getLog(BeanTypeIndex.class);
+
+    private final DefaultBeanFactory beanFactory;
+
+    // 已注册但还没有建立索引的 bean，按注册顺序
+    private final Set<String> pendingBeanNames = new LinkedHashSet<String>();
+
+    private final Set<String> indexedBeanNames = new LinkedHashSet<String>();
+
+    private volatile boolean hasPending = false;
+
+    private volatile Map<Class<?>, List<String>> beanNamesByType = Collections.emptyMap();
+
+    BeanTypeIndex(DefaultBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    synchronized void beanDefinitionRegistered(String beanName, boolean replaced) {
+        if (replaced && this.indexedBeanNames.contains(beanName)) {
+            // 覆盖了已经建过索引的定义，旧的类型信息已经混在各个列表里，重建
+            this.pendingBeanNames.addAll(this.indexedBeanNames);
+            this.indexedBeanNames.clear();
+            this.beanNamesByType = Collections.emptyMap();
+        }
+        this.pendingBeanNames.add(beanName);
+        this.hasPending = true;
+    }
+
+    /**
+     * Return the names of all beans assignable to the given type, in registration order.
+     */
+    List<String> getBeanNamesForType(Class<?> type) {
+        if (this.hasPending) {
+            indexPendingBeans();
+        }
+        List<String> beanNames = this.beanNamesByType.get(type);
+        return (beanNames != null ? beanNames : Collections.<String>emptyList());
+    }
+
+    private synchronized void indexPendingBeans() {
+        if (!this.hasPending) {
+            return;
+        }
+        Map<Class<?>, List<String>> index = new HashMap<Class<?>, List<String>>();
+        for (Map.Entry<Class<?>, List<String>> entry : this.beanNamesByType.entrySet()) {
+            index.put(entry.getKey(), new ArrayList<String>(entry.getValue()));
+        }
+        for (String beanName : this.pendingBeanNames) {
+            this.indexedBeanNames.add(beanName);
+            BeanDefinition bd = this.beanFactory.getBeanDefinition(beanName);
+            Class<?> beanClass;
+            try {
+                this.beanFactory.resolveBeanClass(bd);
+                beanClass = bd.getBeanClass();
+            } catch (Exception e) {
+                logger.warn("can't load class for bean :" + beanName + ", skip it.");
+                continue;
+            }
+            for (Class<?> type : getTypeHierarchy(beanClass)) {
+                List<String> beanNames = index.get(type);
+                if (beanNames == null) {
+                    beanNames = new ArrayList<String>(2);
+                    index.put(type, beanNames);
+                }
+                beanNames.add(beanName);
+            }
+        }
+        for (Map.Entry<Class<?>, List<String>> entry : index.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.pendingBeanNames.clear();
+        this.beanNamesByType = index;
+        this.hasPending = false;
+    }
+
+    private static Set<Class<?>> getTypeHierarchy(Class<?> beanClass) {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        for (Class<?> clazz = beanClass; clazz != null; clazz = clazz.getSuperclass()) {
+            addWithInterfaces(clazz, types);
+        }
+        return types;
+    }
+
+    private static void addWithInterfaces(Class<?> type, Set<Class<?>> types) {
+        if (types.add(type)) {
+            for (Class<?> ifc : type.getInterfaces()) {
+                addWithInterfaces(ifc, types);
+            }
+        }
+    }
+}
@@ -5,11 +5,15 @@ import org.apache.commons.logging.LogFactory;
 import org.litespring.beans.BeanDefinition;
 import org.litespring.beans.ConstructorArgument;
 import org.litespring.beans.SimpleTypeConverter;
+import org.litespring.beans.TypeMismatchException;
 import org.litespring.beans.factory.BeanCreationException;
-import org.litespring.beans.factory.config.ConfigurableBeanFactory;
+import org.litespring.beans.factory.config.RuntimeBeanReference;
+import org.litespring.util.ClassUtils;
 
 import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ConstructorResolver {
     protected final Log logger = LogFactory.getLog(getClass());
@@ -17,21 +21,49 @@ public class ConstructorResolver {
 
     private final AbstractBeanFactory beanFactory;
 
+    private final BeanDefinitionValueResolver valueResolver;
+
+    // 每个 BeanDefinition 第一次解析出的构造函数和参数，之后创建实例（例如 prototype）直接复用
+    private final Map<BeanDefinition, ResolvedConstructor> resolvedConstructors =
+            new ConcurrentHashMap<BeanDefinition, ResolvedConstructor>(16);
+
 
     public ConstructorResolver(AbstractBeanFactory beanFactory) {
         this.beanFactory = beanFactory;
+        this.valueResolver = new BeanDefinitionValueResolver(beanFactory);
     }
 
     public Object autowireConstructor(final BeanDefinition bd) {
 
-        Constructor<?> constructorToUse = null;
-        Object[] argsToUse = null;
+        Object[] argsToUse;
+        ResolvedConstructor resolved = this.resolvedConstructors.get(bd);
+        if (resolved != null) {
+            argsToUse = resolved.resolveArguments(bd, this.valueResolver);
+        } else {
+            argsToUse = new Object[bd.getConstructorArgument().getArgumentCount()];
+            resolved = resolveConstructor(bd, argsToUse);
+            this.resolvedConstructors.put(bd, resolved);
+        }
 
-        Class<?> beanClass = null;
         try {
-            // 类加载是个比较耗时的 IO 操作，更好的实现是在 beandefinition 中做缓存
-            beanClass = this.beanFactory.getBeanClassLoader().loadClass(bd.getBeanClassName());
+            return this.beanFactory.getBeanAccessorStrategy().getInstantiator(resolved.constructor).newInstance(argsToUse);
+        } catch (Exception e) {
+            throw new BeanCreationException( bd.getID(), "can't find a create instance using "+resolved.constructor, e);
+        }
 
+    }
+
+    /**
+     * Pick the first public constructor the argument values can be converted to,
+     * filling {@code argsToUse} with the converted values.
+     */
+    private ResolvedConstructor resolveConstructor(BeanDefinition bd, Object[] argsToUse) {
+
+        Class<?> beanClass;
+        try {
+            // 类加载的结果缓存在 BeanDefinition 中
+            beanClass = bd.hasBeanClass() ? bd.getBeanClass()
+                    : bd.resolveBeanClass(this.beanFactory.getBeanClassLoader());
         } catch (ClassNotFoundException e) {
             throw new BeanCreationException( bd.getID(), "Instantiation of bean failed, can't resolve class", e);
         }
@@ -39,78 +71,123 @@ public class ConstructorResolver {
 
         Constructor<?>[] candidates = beanClass.getConstructors();
 
+        List<ConstructorArgument.ValueHolder> valueHolders = bd.getConstructorArgument().getArgumentValues();
+        Object[] originalValues = new Object[valueHolders.size()];
+        Object[] resolvedValues = new Object[valueHolders.size()];
+        boolean[] dynamic = new boolean[valueHolders.size()];
+        for (int i = 0; i < originalValues.length; i++) {
+            //获取参数的值，可能是TypedStringValue, 也可能是RuntimeBeanReference
+            originalValues[i] = valueHolders.get(i).getValue();
+            // 引用和内部 bean 只解析一次，在所有候选构造函数之间共享
+            resolvedValues[i] = this.valueResolver.resolveValueIfNecessary(originalValues[i]);
+            dynamic[i] = isReference(originalValues[i]);
+        }
 
-        BeanDefinitionValueResolver valueResolver = new BeanDefinitionValueResolver(this.beanFactory);
-
-        ConstructorArgument cargs = bd.getConstructorArgument();
         SimpleTypeConverter typeConverter = new SimpleTypeConverter();
 
         for(int i=0; i<candidates.length; i++){
 
             Class<?> [] parameterTypes = candidates[i].getParameterTypes();
             // 1. 先判断参数列表的长度是否满足
-            if(parameterTypes.length != cargs.getArgumentCount()){
+            if(parameterTypes.length != originalValues.length){
                 continue;
             }
             // 2. 再判断参数类型是否匹配
-            argsToUse = new Object[parameterTypes.length];
-
             boolean result = this.valuesMatchTypes(parameterTypes,
-                    cargs.getArgumentValues(),
+                    resolvedValues,
                     argsToUse,
-                    valueResolver,
                     typeConverter);
 
             if(result){
-                constructorToUse = candidates[i];
-                break;
+                return new ResolvedConstructor(candidates[i], originalValues, argsToUse, dynamic);
             }
 
         }
 
 
         //找不到一个合适的构造函数
-        if(constructorToUse == null){
-            throw new BeanCreationException( bd.getID(), "can't find a apporiate constructor");
-        }
-
-
-        try {
-            return constructorToUse.newInstance(argsToUse);
-        } catch (Exception e) {
-            throw new BeanCreationException( bd.getID(), "can't find a create instance using "+constructorToUse);
-        }
-
-
+        throw new BeanCreationException( bd.getID(), "can't find a apporiate constructor");
     }
 
     private boolean valuesMatchTypes(Class<?> [] parameterTypes,
-                                     List<ConstructorArgument.ValueHolder> valueHolders,
+                                     Object[] resolvedValues,
                                      Object[] argsToUse,
-                                     BeanDefinitionValueResolver valueResolver,
                                      SimpleTypeConverter typeConverter ){
 
 
         for(int i=0;i<parameterTypes.length;i++){
-            ConstructorArgument.ValueHolder valueHolder
-                    = valueHolders.get(i);
-            //获取参数的值，可能是TypedStringValue, 也可能是RuntimeBeanReference
-            Object originalValue = valueHolder.getValue();
-
             try{
-                //获得真正的值
-                Object resolvedValue = valueResolver.resolveValueIfNecessary( originalValue);
                 //如果参数类型是 int, 但是值是字符串,例如"3",还需要转型
                 //如果转型失败，则抛出异常。说明这个构造函数不可用
-                Object convertedValue = typeConverter.convertIfNecessary(resolvedValue, parameterTypes[i]);
+                Object convertedValue = typeConverter.convertIfNecessary(resolvedValues[i], parameterTypes[i]);
                 //转型成功，记录下来
                 argsToUse[i] = convertedValue;
             }catch(Exception e){
-                logger.error(e);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Argument " + i + " does not match parameter type [" + parameterTypes[i].getName() + "]", e);
+                }
                 return false;
             }
         }
         return true;
     }
 
+    private static boolean isReference(Object value) {
+        return value instanceof RuntimeBeanReference || value instanceof BeanDefinition;
+    }
+
+    /**
+     * The constructor chosen for a bean definition, with its literal arguments
+     * already converted. Reference arguments are resolved again for every instance.
+     */
+    private static class ResolvedConstructor {
+        final Constructor<?> constructor;
+        final Class<?>[] parameterTypes;
+        final Object[] originalValues;
+        final Object[] preparedArguments;
+        final boolean[] dynamic;
+        final boolean hasDynamicArguments;
+
+        ResolvedConstructor(Constructor<?> constructor, Object[] originalValues,
+                            Object[] convertedValues, boolean[] dynamic) {
+            this.constructor = constructor;
+            this.parameterTypes = constructor.getParameterTypes();
+            this.originalValues = originalValues;
+            this.preparedArguments = new Object[convertedValues.length];
+            this.dynamic = dynamic;
+            boolean hasDynamicArguments = false;
+            for (int i = 0; i < dynamic.length; i++) {
+                if (dynamic[i]) {
+                    hasDynamicArguments = true;
+                } else {
+                    this.preparedArguments[i] = convertedValues[i];
+                }
+            }
+            this.hasDynamicArguments = hasDynamicArguments;
+        }
+
+        Object[] resolveArguments(BeanDefinition bd, BeanDefinitionValueResolver valueResolver) {
+            Object[] args = this.preparedArguments.clone();
+            if (!this.hasDynamicArguments) {
+                return args;
+            }
+            for (int i = 0; i < args.length; i++) {
+                if (!this.dynamic[i]) {
+                    continue;
+                }
+                Object value = valueResolver.resolveValueIfNecessary(this.originalValues[i]);
+                if (!ClassUtils.isAssignableValue(this.parameterTypes[i], value)) {
+                    try {
+                        value = new SimpleTypeConverter().convertIfNecessary(value, this.parameterTypes[i]);
+                    } catch (TypeMismatchException e) {
+                        throw new BeanCreationException(bd.getID(),
+                                "argument " + i + " doesn't match constructor " + this.constructor, e);
+                    }
+                }
+                args[i] = value;
+            }
+            return args;
+        }
+    }
+
 }
@@ -8,21 +8,20 @@ import org.dom4j.Element;
 import org.dom4j.io.SAXReader;
 import org.litespring.beans.*;
 import org.litespring.beans.factory.*;
+import org.litespring.beans.factory.config.BeanAccessorStrategy;
 import org.litespring.beans.factory.config.BeanPostProcessor;
 import org.litespring.beans.factory.config.ConfigurableBeanFactory;
 import org.litespring.beans.factory.config.DependencyDescriptor;
 import org.litespring.beans.factory.config.InstantiationAwareBeanPostProcessor;
 import org.litespring.util.ClassUtils;
 
-import java.beans.BeanInfo;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.Map;
 
 public class DefaultBeanFactory extends AbstractBeanFactory
@@ -30,7 +29,22 @@ public class DefaultBeanFactory extends AbstractBeanFactory
 
     private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<String, BeanDefinition>(64);
     private ClassLoader beanClassLoader;
-    private List<BeanPostProcessor> beanPostProcessors = new ArrayList<BeanPostProcessor>();
+    private int preInstantiationParallelism = Runtime.getRuntime().availableProcessors();
+    // 类型 -> bean 名称的索引，避免每次按类型查找都遍历所有 BeanDefinition
+    private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex(this);
+    private final List<BeanPostProcessor> beanPostProcessors = new CopyOnWriteArrayList<BeanPostProcessor>();
+    // 创建实例、调用 setter 的方式，默认走反射
+    private volatile BeanAccessorStrategy beanAccessorStrategy = new ReflectiveBeanAccessorStrategy();
+    private final BeanDefinitionValueResolver valueResolver = new BeanDefinitionValueResolver(this);
+    // 缓存了每个 BeanDefinition 选中的构造函数，所以整个 factory 共用一个
+    private final ConstructorResolver constructorResolver = new ConstructorResolver(this);
+    // 每个 BeanDefinition 编译好的 setter 注入计划
+    private final Map<BeanDefinition, PropertyInjectionPlan> propertyInjectionPlans =
+            new ConcurrentHashMap<BeanDefinition, PropertyInjectionPlan>(64);
+    // @Autowired 字段的 writer，和注入计划一样在更换策略时清空
+    private final Map<Field, BeanAccessorStrategy.PropertyWriter> fieldWriters =
+            new ConcurrentHashMap<Field, BeanAccessorStrategy.PropertyWriter>(64);
+    private static final Object[] NO_ARGS = new Object[0];
     private static final Log logger = LogFactory.getLog(DefaultBeanFactory.class);
 
     public DefaultBeanFactory() {
@@ -41,12 +55,30 @@ public class DefaultBeanFactory extends AbstractBeanFactory
     }
 
     public void registerBeanDefinition(String beanID, BeanDefinition beanDefinition) {
-        this.beanDefinitionMap.put(beanID, beanDefinition);
+        BeanDefinition old = this.beanDefinitionMap.put(beanID, beanDefinition);
+        this.beanTypeIndex.beanDefinitionRegistered(beanID, old != null);
+    }
+
+    public List<String> getBeanDefinitionNames() {
+        return new ArrayList<String>(this.beanDefinitionMap.keySet());
+    }
+
+    public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+        this.preInstantiationParallelism = preInstantiationParallelism;
+    }
+
+    public int getPreInstantiationParallelism() {
+        return this.preInstantiationParallelism;
+    }
+
+    public void preInstantiateSingletons() {
+        // 按依赖图在 ForkJoinPool 上并行创建所有 singleton，把创建开销从第一次请求挪到启动阶段
+        new SingletonPreInstantiator(this, this.preInstantiationParallelism).preInstantiate();
     }
 
     public Object getBean(String beanID) {
         // 根据 id 创建对应的 bean 对象
-        BeanDefinition bd = this.getBeanDefinition(beanID);
+        final BeanDefinition bd = this.getBeanDefinition(beanID);
         if(bd == null){
             throw new BeanCreationException("Bean Definition does not exists");
         }
@@ -54,8 +86,12 @@ public class DefaultBeanFactory extends AbstractBeanFactory
         if(bd.isSingleton()){
             Object bean = this.getSingleton(beanID);
             if(bean == null){
-                bean = createBean(bd);
-                this.registerSingleton(beanID, bean);
+                // 多个线程同时获取同一个 singleton 时，只有一个线程会真正创建，其它线程等待其完成
+                bean = this.getSingleton(beanID, new ObjectFactory<Object>() {
+                    public Object getObject() throws BeansException {
+                        return createBean(bd);
+                    }
+                });
             }
             return bean;
         }
@@ -71,11 +107,27 @@ public class DefaultBeanFactory extends AbstractBeanFactory
         return bd.getBeanClass();
     }
 
+    public boolean isSingleton(String name) throws NoSuchBeanDefinitionException {
+        BeanDefinition bd = this.getBeanDefinition(name);
+        if(bd == null){
+            throw new NoSuchBeanDefinitionException(name);
+        }
+        return bd.isSingleton();
+    }
+
     protected Object createBean(BeanDefinition bd) {
-        // 创建实例
-        Object bean = instantiateBean(bd);
-        // 设置属性（通过 setter 方式注入的 property）
-        populateBean(bd, bean);
+        Object bean;
+        ObjectFactory<?> instanceSupplier = getInstanceSupplier(bd);
+        if (instanceSupplier != null) {
+            // 生成的代码已经直接 new 出实例并调用了 setter
+            bean = instanceSupplier.getObject();
+            applyInstantiationAwareBeanPostProcessors(bd, bean);
+        } else {
+            // 创建实例
+            bean = instantiateBean(bd);
+            // 设置属性（通过 setter 方式注入的 property）
+            populateBean(bd, bean);
+        }
 
         bean = initializeBean(bd,bean);
 
@@ -110,13 +162,21 @@ public class DefaultBeanFactory extends AbstractBeanFactory
         }
     }
 
-    private void populateBean(BeanDefinition bd, Object bean) {
+    private static ObjectFactory<?> getInstanceSupplier(BeanDefinition bd) {
+        return (bd instanceof GenericBeanDefinition ? ((GenericBeanDefinition) bd).getInstanceSupplier() : null);
+    }
+
+    private void applyInstantiationAwareBeanPostProcessors(BeanDefinition bd, Object bean) {
         // 在实例化之后、初始化之前，遍历并执行所有的 beanPostProcessor
         for(BeanPostProcessor processor : this.getBeanPostProcessors()){
             if(processor instanceof InstantiationAwareBeanPostProcessor){
                 ((InstantiationAwareBeanPostProcessor)processor).postProcessPropertyValues(bean, bd.getID());
             }
         }
+    }
+
+    private void populateBean(BeanDefinition bd, Object bean) {
+        applyInstantiationAwareBeanPostProcessors(bd, bean);
 
         // 执行初始化
         List<PropertyValue> pvs = bd.getPropertyValues();
@@ -125,47 +185,32 @@ public class DefaultBeanFactory extends AbstractBeanFactory
             return;
         }
 
-        BeanDefinitionValueResolver valueResolver = new BeanDefinitionValueResolver(this);
-        TypeConverter converter = new SimpleTypeConverter();
-
+        // setter 查找和字面量的类型转换每个 BeanDefinition 只做一次，之后创建实例直接按计划注入
+        PropertyInjectionPlan plan = getPropertyInjectionPlan(bd, bean.getClass());
         try{
-            BeanInfo beanInfo = Introspector.getBeanInfo(bean.getClass()); // 获取 bean 信息
-            PropertyDescriptor[] pds = beanInfo.getPropertyDescriptors(); // 进一步获取 bean 的属性信息
-
-            for (PropertyValue pv : pvs){
-                String propertyName = pv.getName();
-                Object originalValue = pv.getValue();
-                Object resolvedValue = valueResolver.resolveValueIfNecessary(originalValue);
-                // 假设现在 originalValue 表示 ref=AccountDao，那么 resolvedValue 就是一个 AccountDao 对象
-                // 下面需要调用 PetStoreService 中的 setAccountDao 方法完成注入
-
-                for (PropertyDescriptor pd : pds) {  // 遍历属性，找到对应名称的属性
-                    if(pd.getName().equals(propertyName)){
-                        // 注意，此时的 resolvedValue 可能是 runtimeBeanReference，可以直接调用写方法赋值
-                        // 但也可能是 typedString，需要先转换成指定类型才能调用写方法赋值
-                        // 因此，必须先调用以下方法
-                        Object convertedValue = converter.convertIfNecessary(resolvedValue, pd.getPropertyType());
-                        // 调用写方法赋值
-                        pd.getWriteMethod().invoke(bean, convertedValue);
-                        break;
-                    }
-                }
-            }
+            plan.apply(bean, this.valueResolver);
         }catch(Exception ex){
-            throw new BeanCreationException("Failed to obtain BeanInfo for class [" + bd.getBeanClassName() + "]", ex);
+            throw new BeanCreationException("Failed to set property values for class [" + bd.getBeanClassName() + "]", ex);
+        }
+    }
+
+    private PropertyInjectionPlan getPropertyInjectionPlan(BeanDefinition bd, Class<?> beanClass) {
+        PropertyInjectionPlan plan = this.propertyInjectionPlans.get(bd);
+        if (plan == null || plan.getBeanClass() != beanClass) {
+            plan = PropertyInjectionPlan.compile(bd, beanClass, this.valueResolver, this.beanAccessorStrategy);
+            this.propertyInjectionPlans.put(bd, plan);
         }
+        return plan;
     }
 
     private Object instantiateBean(BeanDefinition bd) {
         if(bd.hasConstructorArgumentValues()){
-            ConstructorResolver resolver = new ConstructorResolver(this);
-            return resolver.autowireConstructor(bd);
+            return this.constructorResolver.autowireConstructor(bd);
         }else{
-            ClassLoader cl = this.getBeanClassLoader();
             String beanClassName = bd.getBeanClassName();
             try {
-                Class<?> clz = cl.loadClass(beanClassName);
-                return clz.newInstance();
+                resolveBeanClass(bd);
+                return this.beanAccessorStrategy.getInstantiator(bd.getBeanClass()).newInstance(NO_ARGS);
             } catch (Exception e) {
                 throw new BeanCreationException("create bean for "+ beanClassName +" failed",e);
             }
@@ -180,18 +225,34 @@ public class DefaultBeanFactory extends AbstractBeanFactory
         return this.beanClassLoader != null ? this.beanClassLoader : ClassUtils.getDefaultClassLoader();
     }
 
+    public void setBeanAccessorStrategy(BeanAccessorStrategy beanAccessorStrategy) {
+        this.beanAccessorStrategy = beanAccessorStrategy;
+        // 已经编译好的注入计划里持有旧策略生成的 writer
+        this.propertyInjectionPlans.clear();
+        this.fieldWriters.clear();
+    }
+
+    public BeanAccessorStrategy getBeanAccessorStrategy() {
+        return this.beanAccessorStrategy;
+    }
+
+    public BeanAccessorStrategy.PropertyWriter getFieldWriter(Field field) {
+        BeanAccessorStrategy.PropertyWriter writer = this.fieldWriters.get(field);
+        if (writer == null) {
+            writer = this.beanAccessorStrategy.getPropertyWriter(field);
+            this.fieldWriters.put(field, writer);
+        }
+        return writer;
+    }
+
     public Object resolveDependency(DependencyDescriptor descriptor) {
 
         Class<?> typeToMatch = descriptor.getDependencyType();
-        for(BeanDefinition bd: this.beanDefinitionMap.values()){
-            //确保BeanDefinition 有Class对象
-            resolveBeanClass(bd);
-            Class<?> beanClass = bd.getBeanClass();
-            if(typeToMatch.isAssignableFrom(beanClass)){
-                return this.getBean(bd.getID());
-            }
+        List<String> candidates = this.beanTypeIndex.getBeanNamesForType(typeToMatch);
+        if(candidates.isEmpty()){
+            return null;
         }
-        return null;
+        return this.getBean(candidates.get(0));
     }
     public void resolveBeanClass(BeanDefinition bd) {
         if(bd.hasBeanClass()){
@@ -221,21 +282,7 @@ public class DefaultBeanFactory extends AbstractBeanFactory
         return result;
     }
 
-    private List<String> getBeanIDsByType(Class<?> type){
-        List<String> result = new ArrayList<String>();
-        for(String beanName :this.beanDefinitionMap.keySet()){
-            Class<?> beanClass = null;
-            try{
-                beanClass = this.getType(beanName);
-            }catch(Exception e){
-                logger.warn("can't load class for bean :"+beanName+", skip it.");
-                continue;
-            }
-
-            if((beanClass != null) && type.isAssignableFrom(beanClass)){
-                result.add(beanName);
-            }
-        }
-        return result;
+    List<String> getBeanIDsByType(Class<?> type){
+        return this.beanTypeIndex.getBeanNamesForType(type);
     }
 }
@@ -1,24 +1,36 @@
 package org.litespring.beans.factory.support;
 
+import org.litespring.beans.factory.BeanCreationException;
+import org.litespring.beans.factory.BeanCurrentlyInCreationException;
+import org.litespring.beans.factory.ObjectFactory;
 import org.litespring.beans.factory.config.SingletonBeanRegistry;
 import org.litespring.util.Assert;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
 
 public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
-    private final Map<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(64);
+    private final ConcurrentMap<String, Object> singletonObjects = new ConcurrentHashMap<String, Object>(64);
+
+    // 正在创建中的 singleton：每个 bean 一个 latch，只有抢到它的线程执行创建，其它线程等待
+    private final ConcurrentMap<String, SingletonCreation> singletonsInCreation =
+            new ConcurrentHashMap<String, SingletonCreation>(16);
+
+    // 每个线程当前正在等待的 singleton，用来发现跨线程的循环依赖
+    private final ConcurrentMap<Thread, SingletonCreation> awaitedCreations =
+            new ConcurrentHashMap<Thread, SingletonCreation>(16);
 
     public void registerSingleton(String beanName, Object singletonObject) {
 
         Assert.notNull(beanName, "'beanName' must not be null");
 
-        Object oldObject = this.singletonObjects.get(beanName);
+        Object oldObject = this.singletonObjects.putIfAbsent(beanName, singletonObject);
         if (oldObject != null) {
             throw new IllegalStateException("Could not register object [" + singletonObject +
                     "] under bean name '" + beanName + "': there is already object [" + oldObject + "] bound");
         }
-        this.singletonObjects.put(beanName, singletonObject);
 
     }
 
@@ -26,4 +38,132 @@ public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
 
         return this.singletonObjects.get(beanName);
     }
+
+    /**
+     * Return the singleton object registered under the given name,
+     * creating and registering a new one if none registered yet.
+     * <p>Exactly one thread runs the given factory for a bean name; concurrent
+     * callers for the same name block until that creation finishes, while
+     * callers for other names are never held up.
+     * @param beanName the name of the bean
+     * @param singletonFactory the ObjectFactory to lazily create the singleton with
+     * @return the registered singleton object
+     */
+    public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+        Assert.notNull(beanName, "'beanName' must not be null");
+
+        for (;;) {
+            Object singletonObject = this.singletonObjects.get(beanName);
+            if (singletonObject != null) {
+                return singletonObject;
+            }
+
+            SingletonCreation creation = new SingletonCreation(beanName, Thread.currentThread());
+            SingletonCreation existing = this.singletonsInCreation.putIfAbsent(beanName, creation);
+            if (existing == null) {
+                return createSingleton(creation, singletonFactory);
+            }
+
+            singletonObject = awaitSingleton(existing);
+            if (singletonObject != null) {
+                return singletonObject;
+            }
+            // 创建者失败了，重新尝试，由当前线程自己去创建（并得到它自己的异常）
+        }
+    }
+
+    private Object createSingleton(SingletonCreation creation, ObjectFactory<?> singletonFactory) {
+        String beanName = creation.beanName;
+        Object singletonObject = null;
+        try {
+            // 在我们抢到 latch 之前，上一个创建者可能刚刚完成
+            singletonObject = this.singletonObjects.get(beanName);
+            if (singletonObject == null) {
+                singletonObject = singletonFactory.getObject();
+                Object oldObject = this.singletonObjects.putIfAbsent(beanName, singletonObject);
+                if (oldObject != null) {
+                    singletonObject = oldObject;
+                }
+            }
+            return singletonObject;
+        } finally {
+            this.singletonsInCreation.remove(beanName, creation);
+            creation.complete(singletonObject);
+        }
+    }
+
+    private Object awaitSingleton(SingletonCreation creation) {
+        Thread current = Thread.currentThread();
+        if (creation.creator == current) {
+            throw new BeanCurrentlyInCreationException(creation.beanName);
+        }
+
+        this.awaitedCreations.put(current, creation);
+        try {
+            if (isAwaitedBy(creation, current)) {
+                throw new BeanCurrentlyInCreationException(creation.beanName);
+            }
+            return creation.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BeanCreationException(creation.beanName,
+                    "Interrupted while waiting for singleton creation in another thread", e);
+        } finally {
+            this.awaitedCreations.remove(current);
+        }
+    }
+
+    /**
+     * Follow the chain "creation -> creator thread -> creation that thread waits for"
+     * and check whether it leads back to the given thread, which would mean
+     * the threads wait for each other forever.
+     */
+    private boolean isAwaitedBy(SingletonCreation creation, Thread thread) {
+        SingletonCreation next = creation;
+        for (int i = 0; next != null && i <= this.awaitedCreations.size(); i++) {
+            if (next.creator == thread) {
+                return true;
+            }
+            next = this.awaitedCreations.get(next.creator);
+        }
+        return false;
+    }
+
+    /**
+     * A {@link ForkJoinPool.ManagedBlocker}, so that a pool worker waiting here
+     * lets the pool start a compensating thread instead of starving it.
+     */
+    private static class SingletonCreation implements ForkJoinPool.ManagedBlocker {
+        final String beanName;
+        final Thread creator;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Object singletonObject;
+
+        SingletonCreation(String beanName, Thread creator) {
+            this.beanName = beanName;
+            this.creator = creator;
+        }
+
+        void complete(Object singletonObject) {
+            this.singletonObject = singletonObject;
+            this.latch.countDown();
+        }
+
+        /**
+         * @return the created singleton, or {@code null} if the creator failed
+         */
+        Object await() throws InterruptedException {
+            ForkJoinPool.managedBlock(this);
+            return this.singletonObject;
+        }
+
+        public boolean block() throws InterruptedException {
+            this.latch.await();
+            return true;
+        }
+
+        public boolean isReleasable() {
+            return this.latch.getCount() == 0;
+        }
+    }
 }
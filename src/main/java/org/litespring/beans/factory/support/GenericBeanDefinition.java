@@ -3,6 +3,7 @@ package org.litespring.beans.factory.support;
 import org.litespring.beans.BeanDefinition;
 import org.litespring.beans.ConstructorArgument;
 import org.litespring.beans.PropertyValue;
+import org.litespring.beans.factory.ObjectFactory;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +21,8 @@ public class GenericBeanDefinition implements BeanDefinition {
     private ConstructorArgument constructorArgument = new ConstructorArgument();
     //表明这个Bean定义是不是我们litespring自己合成的。
     private boolean isSynthetic = false;
+    // 由预先生成的代码直接创建并注入好的实例，设置后不再反射调用构造函数和 setter
+    private ObjectFactory<?> instanceSupplier;
 
 
     public GenericBeanDefinition(String id, String beanClassName) {
@@ -108,4 +111,17 @@ public class GenericBeanDefinition implements BeanDefinition {
     public void setSynthetic(boolean isSynthetic) {
         this.isSynthetic = isSynthetic;
     }
+
+    /**
+     * Set a factory creating the bean with its constructor arguments and
+     * properties already applied, used instead of the reflective instantiation
+     * and property injection. Bean post processors still apply.
+     */
+    public void setInstanceSupplier(ObjectFactory<?> instanceSupplier) {
+        this.instanceSupplier = instanceSupplier;
+    }
+
+    public ObjectFactory<?> getInstanceSupplier() {
+        return this.instanceSupplier;
+    }
 }
@@ -0,0 +1,261 @@
+package org.litespring.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.litespring.beans.factory.config.BeanAccessorStrategy;
+import org.litespring.util.ClassUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link BeanAccessorStrategy} that generates accessors instead of going through
+ * reflection on every call.
+ *
+ * <p>Public no-arg constructors and public setters of public classes visible to
+ * this class' loader are bound through {@link LambdaMetafactory} to a
+ * {@link Supplier} / {@link BiConsumer}, which the JIT can inline like a direct
+ * call. Everything else (constructors with arguments, non-public members, fields)
+ * goes through a {@link MethodHandle}, and a member no handle can be created for
+ * falls back to {@link ReflectiveBeanAccessorStrategy}.
+ *
+ * <p>Accessors are generated once per member and cached.
+ */
+public class MethodHandleBeanAccessorStrategy implements BeanAccessorStrategy {
+
+    private static final Log logger = LogFactory.getLog(MethodHandleBeanAccessorStrategy.class);
+
+    private static final MethodType INSTANTIATOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private static final MethodType WRITER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    private final ReflectiveBeanAccessorStrategy fallback = new ReflectiveBeanAccessorStrategy();
+
+    private final ConcurrentMap<Class<?>, Instantiator> defaultInstantiators =
+            new ConcurrentHashMap<Class<?>, Instantiator>(64);
+
+    private final ConcurrentMap<Constructor<?>, Instantiator> instantiators =
+            new ConcurrentHashMap<Constructor<?>, Instantiator>(64);
+
+    private final ConcurrentMap<Method, PropertyWriter> methodWriters =
+            new ConcurrentHashMap<Method, PropertyWriter>(64);
+
+    private final ConcurrentMap<Field, PropertyWriter> fieldWriters =
+            new ConcurrentHashMap<Field, PropertyWriter>(64);
+
+    public Instantiator getInstantiator(Class<?> beanClass) throws NoSuchMethodException {
+        Instantiator instantiator = this.defaultInstantiators.get(beanClass);
+        if (instantiator == null) {
+            instantiator = getInstantiator(beanClass.getDeclaredConstructor());
+            this.defaultInstantiators.putIfAbsent(beanClass, instantiator);
+        }
+        return instantiator;
+    }
+
+    public Instantiator getInstantiator(Constructor<?> constructor) {
+        Instantiator instantiator = this.instantiators.get(constructor);
+        if (instantiator == null) {
+            instantiator = createInstantiator(constructor);
+            Instantiator existing = this.instantiators.putIfAbsent(constructor, instantiator);
+            if (existing != null) {
+                instantiator = existing;
+            }
+        }
+        return instantiator;
+    }
+
+    public PropertyWriter getPropertyWriter(Method writeMethod) {
+        PropertyWriter writer = this.methodWriters.get(writeMethod);
+        if (writer == null) {
+            writer = createPropertyWriter(writeMethod);
+            PropertyWriter existing = this.methodWriters.putIfAbsent(writeMethod, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    public PropertyWriter getPropertyWriter(Field field) {
+        PropertyWriter writer = this.fieldWriters.get(field);
+        if (writer == null) {
+            writer = createPropertyWriter(field);
+            PropertyWriter existing = this.fieldWriters.putIfAbsent(field, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    private Instantiator createInstantiator(Constructor<?> constructor) {
+        Class<?> beanClass = constructor.getDeclaringClass();
+        try {
+            if (constructor.getParameterTypes().length == 0
+                    && Modifier.isPublic(constructor.getModifiers()) && isLinkable(beanClass)) {
+                MethodHandle handle = this.lookup.unreflectConstructor(constructor);
+                CallSite site = LambdaMetafactory.metafactory(this.lookup, "get",
+                        MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                        handle, MethodType.methodType(beanClass));
+                return new SupplierInstantiator((Supplier<?>) site.getTarget().invoke());
+            }
+        } catch (Throwable ex) {
+            logDowngrade(constructor, ex);
+        }
+        try {
+            if (!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(beanClass.getModifiers())) {
+                constructor.setAccessible(true);
+            }
+            MethodHandle handle = this.lookup.unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterTypes().length)
+                    .asType(INSTANTIATOR_TYPE);
+            return new MethodHandleInstantiator(handle);
+        } catch (Throwable ex) {
+            logDowngrade(constructor, ex);
+            return this.fallback.getInstantiator(constructor);
+        }
+    }
+
+    private PropertyWriter createPropertyWriter(Method writeMethod) {
+        Class<?> declaringClass = writeMethod.getDeclaringClass();
+        Class<?> parameterType = writeMethod.getParameterTypes()[0];
+        try {
+            if (Modifier.isPublic(writeMethod.getModifiers()) && !Modifier.isStatic(writeMethod.getModifiers())
+                    && isLinkable(declaringClass) && isLinkable(parameterType)) {
+                MethodHandle handle = this.lookup.unreflect(writeMethod);
+                CallSite site = LambdaMetafactory.metafactory(this.lookup, "accept",
+                        MethodType.methodType(BiConsumer.class), WRITER_TYPE, handle,
+                        MethodType.methodType(void.class, declaringClass, MethodType.methodType(parameterType).wrap().returnType()));
+                return new BiConsumerWriter((BiConsumer<?, ?>) site.getTarget().invoke());
+            }
+        } catch (Throwable ex) {
+            logDowngrade(writeMethod, ex);
+        }
+        try {
+            if (!Modifier.isPublic(writeMethod.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers())) {
+                writeMethod.setAccessible(true);
+            }
+            return new MethodHandleWriter(this.lookup.unreflect(writeMethod).asType(WRITER_TYPE));
+        } catch (Throwable ex) {
+            logDowngrade(writeMethod, ex);
+            return this.fallback.getPropertyWriter(writeMethod);
+        }
+    }
+
+    private PropertyWriter createPropertyWriter(Field field) {
+        try {
+            if (!Modifier.isPublic(field.getModifiers()) || !Modifier.isPublic(field.getDeclaringClass().getModifiers())) {
+                field.setAccessible(true);
+            }
+            return new MethodHandleWriter(this.lookup.unreflectSetter(field).asType(WRITER_TYPE));
+        } catch (Throwable ex) {
+            // 例如 final 字段，老版本 JDK 不允许通过 MethodHandle 写
+            logDowngrade(field, ex);
+            return this.fallback.getPropertyWriter(field);
+        }
+    }
+
+    /**
+     * Whether a class generated by {@link LambdaMetafactory} next to this class can
+     * refer to the given type: it must be public and resolve to the same class
+     * through our class loader.
+     */
+    private static boolean isLinkable(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        return Modifier.isPublic(type.getModifiers())
+                && ClassUtils.isVisible(type, MethodHandleBeanAccessorStrategy.class.getClassLoader());
+    }
+
+    private static void logDowngrade(Object member, Throwable ex) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Could not generate accessor for " + member + ", using a slower one", ex);
+        }
+    }
+
+    private static Exception rethrow(Throwable ex) {
+        if (ex instanceof Error) {
+            throw (Error) ex;
+        }
+        if (ex instanceof Exception) {
+            return (Exception) ex;
+        }
+        return new UndeclaredThrowableException(ex);
+    }
+
+
+    private static class SupplierInstantiator implements Instantiator {
+        private final Supplier<?> supplier;
+
+        SupplierInstantiator(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        public Object newInstance(Object[] args) {
+            return this.supplier.get();
+        }
+    }
+
+    private static class MethodHandleInstantiator implements Instantiator {
+        private final MethodHandle handle;
+
+        MethodHandleInstantiator(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        public Object newInstance(Object[] args) throws Exception {
+            try {
+                return (Object) this.handle.invokeExact(args);
+            } catch (Throwable ex) {
+                throw rethrow(ex);
+            }
+        }
+    }
+
+    private static class BiConsumerWriter implements PropertyWriter {
+        private final BiConsumer<Object, Object> consumer;
+
+        @SuppressWarnings("unchecked")
+        BiConsumerWriter(BiConsumer<?, ?> consumer) {
+            this.consumer = (BiConsumer<Object, Object>) consumer;
+        }
+
+        public void write(Object target, Object value) {
+            this.consumer.accept(target, value);
+        }
+    }
+
+    private static class MethodHandleWriter implements PropertyWriter {
+        private final MethodHandle handle;
+
+        MethodHandleWriter(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        public void write(Object target, Object value) throws Exception {
+            try {
+                this.handle.invokeExact(target, value);
+            } catch (Throwable ex) {
+                throw rethrow(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.litespring.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.litespring.beans.BeanDefinition;
+import org.litespring.beans.PropertyValue;
+import org.litespring.beans.SimpleTypeConverter;
+import org.litespring.beans.TypeMismatchException;
+import org.litespring.beans.factory.BeanCreationException;
+import org.litespring.beans.factory.config.BeanAccessorStrategy;
+import org.litespring.beans.factory.config.RuntimeBeanReference;
+import org.litespring.util.ClassUtils;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The setter injection of one {@link BeanDefinition}, compiled once and
+ * replayed for every instance created from it.
+ *
+ * <p>Compiling looks up the write method of every property value and converts
+ * constant values ({@code TypedStringValue} literals and plain objects) to the
+ * property type up front. Applying the plan only resolves the reference slots
+ * (bean references and inner beans) and invokes the setters through the
+ * writers of the factory's {@link BeanAccessorStrategy}.
+ */
+class PropertyInjectionPlan {
+
+    private static final Log logger = LogFactory.getLog(PropertyInjectionPlan.class);
+
+    private final Class<?> beanClass;
+
+    private final Slot[] slots;
+
+    private PropertyInjectionPlan(Class<?> beanClass, Slot[] slots) {
+        this.beanClass = beanClass;
+        this.slots = slots;
+    }
+
+    static PropertyInjectionPlan compile(BeanDefinition bd, Class<?> beanClass,
+                                         BeanDefinitionValueResolver valueResolver,
+                                         BeanAccessorStrategy accessorStrategy) {
+        Map<String, PropertyDescriptor> pds = new HashMap<String, PropertyDescriptor>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(beanClass); // 获取 bean 信息
+            for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+                pds.put(pd.getName(), pd);
+            }
+        } catch (IntrospectionException ex) {
+            throw new BeanCreationException("Failed to obtain BeanInfo for class [" + bd.getBeanClassName() + "]", ex);
+        }
+
+        SimpleTypeConverter converter = new SimpleTypeConverter();
+        List<Slot> slots = new ArrayList<Slot>();
+        for (PropertyValue pv : bd.getPropertyValues()) {
+            PropertyDescriptor pd = pds.get(pv.getName());
+            if (pd == null || pd.getWriteMethod() == null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("No writable property '" + pv.getName() + "' on class [" + beanClass.getName() + "], skip it.");
+                }
+                continue;
+            }
+            Object originalValue = pv.getValue();
+            if (isReference(originalValue)) {
+                slots.add(new Slot(accessorStrategy.getPropertyWriter(pd.getWriteMethod()),
+                        pd.getPropertyType(), originalValue, false));
+            } else {
+                // 字面量在编译时就解析并转换好，之后每次创建直接复用
+                Object convertedValue;
+                try {
+                    convertedValue = converter.convertIfNecessary(
+                            valueResolver.resolveValueIfNecessary(originalValue), pd.getPropertyType());
+                } catch (TypeMismatchException ex) {
+                    throw new BeanCreationException("Failed to convert value of property '" + pv.getName()
+                            + "' for class [" + bd.getBeanClassName() + "]", ex);
+                }
+                slots.add(new Slot(accessorStrategy.getPropertyWriter(pd.getWriteMethod()),
+                        pd.getPropertyType(), convertedValue, true));
+            }
+        }
+        return new PropertyInjectionPlan(beanClass, slots.toArray(new Slot[slots.size()]));
+    }
+
+    private static boolean isReference(Object value) {
+        return value instanceof RuntimeBeanReference || value instanceof BeanDefinition;
+    }
+
+    Class<?> getBeanClass() {
+        return this.beanClass;
+    }
+
+    void apply(Object bean, BeanDefinitionValueResolver valueResolver) throws Exception {
+        for (Slot slot : this.slots) {
+            Object value = slot.value;
+            if (!slot.constant) {
+                value = valueResolver.resolveValueIfNecessary(value);
+                if (!ClassUtils.isAssignableValue(slot.propertyType, value)) {
+                    value = new SimpleTypeConverter().convertIfNecessary(value, slot.propertyType);
+                }
+            }
+            slot.writer.write(bean, value);
+        }
+    }
+
+    private static class Slot {
+        final BeanAccessorStrategy.PropertyWriter writer;
+        final Class<?> propertyType;
+        // constant 为 true 时是已经转换好的值，否则是待解析的 RuntimeBeanReference 或内部 BeanDefinition
+        final Object value;
+        final boolean constant;
+
+        Slot(BeanAccessorStrategy.PropertyWriter writer, Class<?> propertyType, Object value, boolean constant) {
+            this.writer = writer;
+            this.propertyType = propertyType;
+            this.value = value;
+            this.constant = constant;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.litespring.beans.factory.support;
+
+import org.litespring.beans.factory.config.BeanAccessorStrategy;
+import org.litespring.util.ReflectionUtils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Default {@link BeanAccessorStrategy}, going through {@code Constructor.newInstance},
+ * {@code Method.invoke} and {@code Field.set}.
+ */
+public class ReflectiveBeanAccessorStrategy implements BeanAccessorStrategy {
+
+    public Instantiator getInstantiator(Class<?> beanClass) throws NoSuchMethodException {
+        return getInstantiator(beanClass.getDeclaredConstructor());
+    }
+
+    public Instantiator getInstantiator(final Constructor<?> constructor) {
+        if (!Modifier.isPublic(constructor.getModifiers())
+                || !Modifier.isPublic(constructor.getDeclaringClass().getModifiers())) {
+            constructor.setAccessible(true);
+        }
+        return new Instantiator() {
+            public Object newInstance(Object[] args) throws Exception {
+                return constructor.newInstance(args);
+            }
+        };
+    }
+
+    public PropertyWriter getPropertyWriter(final Method writeMethod) {
+        if (!Modifier.isPublic(writeMethod.getModifiers())
+                || !Modifier.isPublic(writeMethod.getDeclaringClass().getModifiers())) {
+            writeMethod.setAccessible(true);
+        }
+        return new PropertyWriter() {
+            public void write(Object target, Object value) throws Exception {
+                writeMethod.invoke(target, value);
+            }
+        };
+    }
+
+    public PropertyWriter getPropertyWriter(final Field field) {
+        ReflectionUtils.makeAccessible(field);
+        return new PropertyWriter() {
+            public void write(Object target, Object value) throws Exception {
+                field.set(target, value);
+            }
+        };
+    }
+}
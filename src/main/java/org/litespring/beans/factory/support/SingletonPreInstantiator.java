@@ -0,0 +1,393 @@
+package org.litespring.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.litespring.beans.BeanDefinition;
+import org.litespring.beans.ConstructorArgument;
+import org.litespring.beans.PropertyValue;
+import org.litespring.beans.factory.BeanCreationException;
+import org.litespring.beans.factory.annotation.AutowiredAnnotationProcessor;
+import org.litespring.beans.factory.annotation.AutowiredFieldElement;
+import org.litespring.beans.factory.annotation.InjectionElement;
+import org.litespring.beans.factory.config.BeanPostProcessor;
+import org.litespring.beans.factory.config.RuntimeBeanReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Eagerly creates all singletons of a {@link DefaultBeanFactory}.
+ *
+ * <p>A dependency graph is built from the {@link RuntimeBeanReference}s found in
+ * property values and constructor arguments (including inner beans and prototype
+ * beans in between) and from {@code @Autowired} fields. Singletons whose
+ * dependencies are all created are then built concurrently on a {@link ForkJoinPool},
+ * in topological order. Beans that take part in a reference cycle are created one by
+ * one afterwards, so that the factory can report the cycle as usual.
+ *
+ * <p>A failing singleton does not stop the phase, so that the other failures get
+ * logged as well; once the graph is done, the first failure (in definition order)
+ * is rethrown as a {@link BeanCreationException}. Singletons whose class can't be
+ * loaded at all are not pre-instantiated: like before this phase existed, they
+ * only fail if they are actually requested.
+ */
+public class SingletonPreInstantiator {
+
+    private static final Log logger = LogFactory.getLog(SingletonPreInstantiator.class);
+
+    private final DefaultBeanFactory beanFactory;
+
+    private final int parallelism;
+
+    public SingletonPreInstantiator(DefaultBeanFactory beanFactory, int parallelism) {
+        this.beanFactory = beanFactory;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public Report preInstantiate() {
+        long start = System.nanoTime();
+
+        Map<String, Node> nodes = buildGraph();
+
+        // Kahn：能排进拓扑序的节点并行创建，剩下的都在环上或依赖环
+        List<Node> roots = new ArrayList<Node>();
+        for (Node node : nodes.values()) {
+            if (node.pending.get() == 0) {
+                roots.add(node);
+            }
+        }
+        Set<Node> scheduled = topologicallyReachable(roots);
+
+        if (!roots.isEmpty()) {
+            if (this.parallelism == 1) {
+                LinkedList<Node> ready = new LinkedList<Node>(roots);
+                while (!ready.isEmpty()) {
+                    Node node = ready.removeFirst();
+                    node.create();
+                    ready.addAll(node.release());
+                }
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+                try {
+                    pool.invoke(new CreateTask(roots));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+        for (Node node : nodes.values()) {
+            if (!scheduled.contains(node)) {
+                node.create();
+            }
+        }
+
+        long totalNanos = System.nanoTime() - start;
+        Report report = new Report(nodes.values(), totalNanos, this.parallelism);
+        if (logger.isInfoEnabled()) {
+            logger.info(report);
+        }
+        for (Node node : nodes.values()) {
+            RuntimeException failure = node.failure;
+            if (failure != null) {
+                if (failure instanceof BeanCreationException) {
+                    throw failure;
+                }
+                throw new BeanCreationException(node.beanName, "Pre-instantiation of singleton failed", failure);
+            }
+        }
+        return report;
+    }
+
+    private Map<String, Node> buildGraph() {
+        Map<String, Node> nodes = new LinkedHashMap<String, Node>();
+        for (String beanName : this.beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition bd = this.beanFactory.getBeanDefinition(beanName);
+            if (bd != null && bd.isSingleton()) {
+                if (!isBeanClassLoadable(bd)) {
+                    logger.warn("Class of singleton '" + beanName + "' can't be loaded, "
+                            + "leaving it to be created on first access");
+                    continue;
+                }
+                nodes.put(beanName, new Node(beanName));
+            }
+        }
+        for (Node node : nodes.values()) {
+            Set<String> dependencies = new LinkedHashSet<String>();
+            collectDependencies(this.beanFactory.getBeanDefinition(node.beanName),
+                    dependencies, new HashSet<BeanDefinition>(), nodes);
+            dependencies.remove(node.beanName);
+            for (String dependency : dependencies) {
+                Node dependencyNode = nodes.get(dependency);
+                node.dependencies.add(dependencyNode);
+                dependencyNode.dependents.add(node);
+            }
+            node.pending.set(node.dependencies.size());
+        }
+        return nodes;
+    }
+
+    private boolean isBeanClassLoadable(BeanDefinition bd) {
+        try {
+            this.beanFactory.resolveBeanClass(bd);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Collect the names of the singletons that must exist before the bean described
+     * by the given definition can be created. Prototype beans are looked through,
+     * since they are created as part of the referencing bean.
+     */
+    private void collectDependencies(BeanDefinition bd, Set<String> result,
+                                     Set<BeanDefinition> visited, Map<String, Node> singletons) {
+        if (bd == null || !visited.add(bd)) {
+            return;
+        }
+        for (PropertyValue pv : bd.getPropertyValues()) {
+            collectValueDependencies(pv.getValue(), result, visited, singletons);
+        }
+        for (ConstructorArgument.ValueHolder holder : bd.getConstructorArgument().getArgumentValues()) {
+            collectValueDependencies(holder.getValue(), result, visited, singletons);
+        }
+        for (Class<?> type : getAutowiredTypes(bd)) {
+            for (String candidate : this.beanFactory.getBeanIDsByType(type)) {
+                collectNamedDependency(candidate, result, visited, singletons);
+                // resolveDependency 只会注入第一个匹配的 bean
+                break;
+            }
+        }
+    }
+
+    private void collectValueDependencies(Object value, Set<String> result,
+                                          Set<BeanDefinition> visited, Map<String, Node> singletons) {
+        if (value instanceof RuntimeBeanReference) {
+            collectNamedDependency(((RuntimeBeanReference) value).getBeanName(), result, visited, singletons);
+        } else if (value instanceof BeanDefinition) {
+            collectDependencies((BeanDefinition) value, result, visited, singletons);
+        }
+    }
+
+    private void collectNamedDependency(String beanName, Set<String> result,
+                                        Set<BeanDefinition> visited, Map<String, Node> singletons) {
+        if (singletons.containsKey(beanName)) {
+            result.add(beanName);
+        } else {
+            collectDependencies(this.beanFactory.getBeanDefinition(beanName), result, visited, singletons);
+        }
+    }
+
+    private List<Class<?>> getAutowiredTypes(BeanDefinition bd) {
+        List<Class<?>> types = new ArrayList<Class<?>>();
+        Class<?> beanClass;
+        try {
+            this.beanFactory.resolveBeanClass(bd);
+            beanClass = bd.getBeanClass();
+        } catch (Exception e) {
+            // 类加载失败的 bean 会在创建时报错，这里当作没有依赖
+            return types;
+        }
+        for (BeanPostProcessor processor : this.beanFactory.getBeanPostProcessors()) {
+            if (processor instanceof AutowiredAnnotationProcessor) {
+                for (InjectionElement element :
+                        ((AutowiredAnnotationProcessor) processor).buildAutowiringMetadata(beanClass).getInjectionElements()) {
+                    if (element instanceof AutowiredFieldElement) {
+                        types.add(((AutowiredFieldElement) element).getField().getType());
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    private static Set<Node> topologicallyReachable(List<Node> roots) {
+        Map<Node, Integer> remaining = new HashMap<Node, Integer>();
+        Set<Node> result = new HashSet<Node>(roots);
+        LinkedList<Node> queue = new LinkedList<Node>(roots);
+        while (!queue.isEmpty()) {
+            Node node = queue.removeFirst();
+            for (Node dependent : node.dependents) {
+                Integer count = remaining.get(dependent);
+                int left = (count != null ? count : dependent.dependencies.size()) - 1;
+                remaining.put(dependent, left);
+                if (left == 0 && result.add(dependent)) {
+                    queue.addLast(dependent);
+                }
+            }
+        }
+        return result;
+    }
+
+    private class Node {
+        final String beanName;
+        final List<Node> dependencies = new ArrayList<Node>();
+        final List<Node> dependents = new ArrayList<Node>();
+        final AtomicInteger pending = new AtomicInteger();
+
+        // 以下字段在节点创建完成后写入，依赖方读取前总是经过 pending 的递减，可见性有保证
+        long durationNanos;
+        long criticalPathNanos;
+        Node criticalPredecessor;
+        RuntimeException failure;
+
+        Node(String beanName) {
+            this.beanName = beanName;
+        }
+
+        void create() {
+            long start = System.nanoTime();
+            try {
+                beanFactory.getBean(this.beanName);
+            } catch (RuntimeException e) {
+                // 先记下来，整个图跑完后再抛出第一个
+                this.failure = e;
+                logger.warn("Pre-instantiation of singleton '" + this.beanName + "' failed", e);
+            }
+            this.durationNanos = System.nanoTime() - start;
+
+            for (Node dependency : this.dependencies) {
+                if (dependency.criticalPathNanos > this.criticalPathNanos) {
+                    this.criticalPathNanos = dependency.criticalPathNanos;
+                    this.criticalPredecessor = dependency;
+                }
+            }
+            this.criticalPathNanos += this.durationNanos;
+        }
+
+        /**
+         * Count this node off its dependents and return those left with no
+         * dependency to wait for.
+         */
+        List<Node> release() {
+            List<Node> ready = new ArrayList<Node>();
+            for (Node dependent : this.dependents) {
+                if (dependent.pending.decrementAndGet() == 0) {
+                    ready.add(dependent);
+                }
+            }
+            return ready;
+        }
+
+        public String toString() {
+            return this.beanName;
+        }
+    }
+
+    /**
+     * Creates one node, then forks a task for every dependent it releases. The
+     * dependents are never created on the current stack, so the stack depth does
+     * not grow with the length of a dependency chain; the root task completes once
+     * all the tasks forked from it have.
+     */
+    @SuppressWarnings("serial")
+    private class CreateTask extends CountedCompleter<Void> {
+        private final Node node;
+        private final List<Node> roots;
+
+        CreateTask(List<Node> roots) {
+            this.node = null;
+            this.roots = roots;
+        }
+
+        CreateTask(CreateTask parent, Node node) {
+            super(parent);
+            this.node = node;
+            this.roots = null;
+        }
+
+        public void compute() {
+            List<Node> ready = this.roots;
+            if (this.node != null) {
+                this.node.create();
+                ready = this.node.release();
+            }
+            for (Node next : ready) {
+                addToPendingCount(1);
+                new CreateTask(this, next).fork();
+            }
+            tryComplete();
+        }
+    }
+
+    /**
+     * Timings of a pre-instantiation phase.
+     */
+    public static class Report {
+        private final int beanCount;
+        private final List<String> failedBeanNames = new ArrayList<String>();
+        private final LinkedList<String> criticalPath = new LinkedList<String>();
+        private final long totalNanos;
+        private final long criticalPathNanos;
+        private final int parallelism;
+
+        private Report(Iterable<Node> nodes, long totalNanos, int parallelism) {
+            int count = 0;
+            Node last = null;
+            for (Node node : nodes) {
+                count++;
+                if (node.failure != null) {
+                    this.failedBeanNames.add(node.beanName);
+                }
+                if (last == null || node.criticalPathNanos > last.criticalPathNanos) {
+                    last = node;
+                }
+            }
+            for (Node node = last; node != null; node = node.criticalPredecessor) {
+                this.criticalPath.addFirst(node.beanName);
+            }
+            this.beanCount = count;
+            this.totalNanos = totalNanos;
+            this.criticalPathNanos = (last != null ? last.criticalPathNanos : 0);
+            this.parallelism = parallelism;
+        }
+
+        public int getBeanCount() {
+            return this.beanCount;
+        }
+
+        public List<String> getFailedBeanNames() {
+            return Collections.unmodifiableList(this.failedBeanNames);
+        }
+
+        /**
+         * @return the chain of singletons, dependencies first, whose creation
+         * times add up to the longest path through the dependency graph
+         */
+        public List<String> getCriticalPath() {
+            return Collections.unmodifiableList(this.criticalPath);
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        public long getCriticalPathNanos() {
+            return this.criticalPathNanos;
+        }
+
+        public int getParallelism() {
+            return this.parallelism;
+        }
+
+        public String toString() {
+            return "Pre-instantiated " + this.beanCount + " singletons in " + (this.totalNanos / 1000000) + " ms"
+                    + " (critical path " + (this.criticalPathNanos / 1000000) + " ms: " + this.criticalPath
+                    + ", parallelism " + this.parallelism
+                    + (this.failedBeanNames.isEmpty() ? "" : ", failed " + this.failedBeanNames) + ")";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.litespring.context.aot;
+
+import org.litespring.context.support.AbstractApplicationContext;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.core.io.Resource;
+import org.litespring.util.ClassUtils;
+
+/**
+ * Application context started from the code generated by
+ * {@link BeanFactoryAotGenerator}: no XML is parsed and no class path scanned,
+ * and beans with a generated instance supplier are created without reflection.
+ *
+ * <pre class="code">
+ * ApplicationContext ctx = new AotApplicationContext(new PetStoreBeans());</pre>
+ */
+public class AotApplicationContext extends AbstractApplicationContext {
+
+    public AotApplicationContext(BeanFactoryInitializer initializer) {
+        this(initializer, ClassUtils.getDefaultClassLoader());
+    }
+
+    public AotApplicationContext(BeanFactoryInitializer initializer, ClassLoader cl) {
+        super(initializer, cl);
+    }
+
+    @Override
+    protected Resource getResourceByPath(String path) {
+        return new ClassPathResource(path, this.getBeanClassLoader());
+    }
+}
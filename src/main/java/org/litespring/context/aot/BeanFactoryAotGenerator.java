@@ -0,0 +1,382 @@
+package org.litespring.context.aot;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.litespring.beans.BeanDefinition;
+import org.litespring.beans.ConstructorArgument;
+import org.litespring.beans.PropertyValue;
+import org.litespring.beans.SimpleTypeConverter;
+import org.litespring.beans.factory.config.RuntimeBeanReference;
+import org.litespring.beans.factory.config.TypedStringValue;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.util.ClassUtils;
+
+/**
+ * Generates, at build time, the Java source of a {@link BeanFactoryInitializer}
+ * registering the bean definitions of a bean factory, so that an
+ * {@link AotApplicationContext} starts without parsing XML or scanning classes.
+ *
+ * <p>Every definition, including the ones of {@code <aop:config>} and
+ * {@code <context:component-scan>}, is registered as is. When the bean class,
+ * its constructor and its setters can be determined ahead of time, the
+ * definition also gets an instance supplier calling them directly:
+ *
+ * <pre class="code">
+ * bd.setInstanceSupplier(new ObjectFactory&lt;Object&gt;() {
+ *     public Object getObject() {
+ *         org.example.PetStoreService bean = new org.example.PetStoreService();
+ *         bean.setAccountDao((org.example.AccountDao) beanFactory.getBean("accountDao"));
+ *         bean.setVersion(2);
+ *         return bean;
+ *     }
+ * });</pre>
+ *
+ * Other definitions (e.g. with inner beans or an ambiguous constructor) are
+ * still instantiated reflectively. Proxies are created at startup as before.
+ *
+ * <p>Run from the build with
+ * {@code java org.litespring.context.aot.BeanFactoryAotGenerator <config> <output dir> <class name>}.
+ */
+public class BeanFactoryAotGenerator {
+
+    private static final String INDENT = "    ";
+
+    private final DefaultBeanFactory beanFactory;
+
+    private final SimpleTypeConverter typeConverter = new SimpleTypeConverter();
+
+    public BeanFactoryAotGenerator(DefaultBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: BeanFactoryAotGenerator <class path config> <output dir> <class name>");
+            System.exit(1);
+        }
+        DefaultBeanFactory beanFactory = new DefaultBeanFactory();
+        new XmlBeanDefinitionReader(beanFactory).loadBeanDefinitions(new ClassPathResource(args[0]));
+        File file = new BeanFactoryAotGenerator(beanFactory).generate(args[2], new File(args[1]));
+        System.out.println("Generated " + file);
+    }
+
+    /**
+     * Write the source of the given class below the given source directory.
+     * @return the file written
+     */
+    public File generate(String className, File outputDir) throws IOException {
+        String source = generate(className);
+        File file = new File(outputDir, className.replace('.', File.separatorChar) + ".java");
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    /**
+     * Return the source of a {@link BeanFactoryInitializer} with the given fully
+     * qualified name, registering the current bean definitions.
+     */
+    public String generate(String className) {
+        int lastDot = className.lastIndexOf('.');
+        String packageName = (lastDot > 0 ? className.substring(0, lastDot) : null);
+        String simpleName = className.substring(lastDot + 1);
+
+        List<String> beanNames = this.beanFactory.getBeanDefinitionNames();
+        Collections.sort(beanNames);
+
+        StringBuilder sb = new StringBuilder();
+        if (packageName != null) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("import org.litespring.beans.ConstructorArgument;\n");
+        sb.append("import org.litespring.beans.PropertyValue;\n");
+        sb.append("import org.litespring.beans.factory.ObjectFactory;\n");
+        sb.append("import org.litespring.beans.factory.config.RuntimeBeanReference;\n");
+        sb.append("import org.litespring.beans.factory.config.TypedStringValue;\n");
+        sb.append("import org.litespring.beans.factory.support.DefaultBeanFactory;\n");
+        sb.append("import org.litespring.beans.factory.support.GenericBeanDefinition;\n");
+        sb.append("import org.litespring.context.aot.BeanFactoryInitializer;\n\n");
+        sb.append("/**\n * Generated by ").append(BeanFactoryAotGenerator.class.getSimpleName())
+                .append(", do not edit.\n */\n");
+        sb.append("public class ").append(simpleName).append(" implements BeanFactoryInitializer {\n\n");
+        sb.append(INDENT).append("public void initialize(DefaultBeanFactory beanFactory) {\n");
+        for (int i = 0; i < beanNames.size(); i++) {
+            sb.append(INDENT).append(INDENT).append("registerBean").append(i).append("(beanFactory);\n");
+        }
+        sb.append(INDENT).append("}\n");
+
+        for (int i = 0; i < beanNames.size(); i++) {
+            String beanName = beanNames.get(i);
+            BeanDefinition bd = this.beanFactory.getBeanDefinition(beanName);
+            sb.append("\n").append(INDENT).append("// ").append(beanName.replace('\n', ' ')).append("\n");
+            sb.append(INDENT).append("private static void registerBean").append(i)
+                    .append("(final DefaultBeanFactory beanFactory) {\n");
+            int[] counter = new int[1];
+            String variable = appendDefinition(sb, bd, counter);
+            sb.append(INDENT).append(INDENT).append("beanFactory.registerBeanDefinition(").append(literal(beanName))
+                    .append(", ").append(variable).append(");\n");
+            sb.append(INDENT).append("}\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Append the statements creating the given definition, and return the name
+     * of the variable holding it.
+     */
+    private String appendDefinition(StringBuilder sb, BeanDefinition bd, int[] counter) {
+        String variable = "bd" + counter[0]++;
+        String indent = INDENT + INDENT;
+
+        // 内部 bean 先生成，作为外层定义的参数
+        List<String> argumentValues = new ArrayList<String>();
+        for (ConstructorArgument.ValueHolder holder : bd.getConstructorArgument().getArgumentValues()) {
+            argumentValues.add(valueExpression(sb, holder.getValue(), counter, bd));
+        }
+        List<String> propertyValues = new ArrayList<String>();
+        for (PropertyValue pv : bd.getPropertyValues()) {
+            propertyValues.add(valueExpression(sb, pv.getValue(), counter, bd));
+        }
+
+        sb.append(indent).append("GenericBeanDefinition ").append(variable).append(" = new GenericBeanDefinition(")
+                .append(literal(bd.getID())).append(", ").append(literal(bd.getBeanClassName())).append(");\n");
+        if (bd.getScope() != null && !BeanDefinition.SCOPE_DEFAULT.equals(bd.getScope())) {
+            sb.append(indent).append(variable).append(".setScope(").append(literal(bd.getScope())).append(");\n");
+        }
+        if (bd.isSynthetic()) {
+            sb.append(indent).append(variable).append(".setSynthetic(true);\n");
+        }
+        List<ConstructorArgument.ValueHolder> holders = bd.getConstructorArgument().getArgumentValues();
+        for (int i = 0; i < holders.size(); i++) {
+            ConstructorArgument.ValueHolder holder = holders.get(i);
+            sb.append(indent).append(variable).append(".getConstructorArgument().addArgumentValue(")
+                    .append("new ConstructorArgument.ValueHolder(").append(argumentValues.get(i)).append(", ")
+                    .append(literal(holder.getType())).append(", ").append(literal(holder.getName())).append("));\n");
+        }
+        for (int i = 0; i < bd.getPropertyValues().size(); i++) {
+            PropertyValue pv = bd.getPropertyValues().get(i);
+            sb.append(indent).append(variable).append(".getPropertyValues().add(new PropertyValue(")
+                    .append(literal(pv.getName())).append(", ").append(propertyValues.get(i)).append("));\n");
+        }
+
+        List<String> instantiation = generateInstantiation(bd);
+        if (instantiation != null) {
+            sb.append(indent).append(variable).append(".setInstanceSupplier(new ObjectFactory<Object>() {\n");
+            sb.append(indent).append(INDENT).append("public Object getObject() {\n");
+            for (String line : instantiation) {
+                sb.append(indent).append(INDENT).append(INDENT).append(line).append("\n");
+            }
+            sb.append(indent).append(INDENT).append(INDENT).append("return bean;\n");
+            sb.append(indent).append(INDENT).append("}\n");
+            sb.append(indent).append("});\n");
+        }
+        return variable;
+    }
+
+    private String valueExpression(StringBuilder sb, Object value, int[] counter, BeanDefinition owner) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof String) {
+            return literal((String) value);
+        }
+        if (value instanceof TypedStringValue) {
+            return "new TypedStringValue(" + literal(((TypedStringValue) value).getValue()) + ")";
+        }
+        if (value instanceof RuntimeBeanReference) {
+            return "new RuntimeBeanReference(" + literal(((RuntimeBeanReference) value).getBeanName()) + ")";
+        }
+        if (value instanceof BeanDefinition) {
+            return appendDefinition(sb, (BeanDefinition) value, counter);
+        }
+        throw new IllegalStateException("Can't generate code for value [" + value + "] of bean '"
+                + owner.getID() + "' of type [" + owner.getBeanClassName() + "]");
+    }
+
+    /**
+     * Return the statements creating the bean into a variable {@code bean}, or
+     * {@code null} if that can't be decided ahead of time.
+     */
+    private List<String> generateInstantiation(BeanDefinition bd) {
+        Class<?> beanClass;
+        try {
+            beanClass = ClassUtils.forName(bd.getBeanClassName(), this.beanFactory.getBeanClassLoader());
+        } catch (Throwable ex) {
+            return null;
+        }
+        if (!isAccessible(beanClass) || Modifier.isAbstract(beanClass.getModifiers())) {
+            return null;
+        }
+        String typeName = beanClass.getCanonicalName();
+
+        List<String> lines = new ArrayList<String>();
+        Constructor<?> constructor = findConstructor(beanClass, bd.getConstructorArgument().getArgumentCount());
+        if (constructor == null) {
+            return null;
+        }
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        List<ConstructorArgument.ValueHolder> holders = bd.getConstructorArgument().getArgumentValues();
+        StringBuilder arguments = new StringBuilder();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            String argument = argumentExpression(holders.get(i).getValue(), parameterTypes[i]);
+            if (argument == null) {
+                return null;
+            }
+            arguments.append(i > 0 ? ", " : "").append(argument);
+        }
+        lines.add(typeName + " bean = new " + typeName + "(" + arguments + ");");
+
+        if (!bd.getPropertyValues().isEmpty()) {
+            // 和 PropertyInjectionPlan 一样按 JavaBeans 规则查找 setter，找不到的属性跳过
+            Map<String, PropertyDescriptor> pds = new HashMap<String, PropertyDescriptor>();
+            try {
+                BeanInfo beanInfo = Introspector.getBeanInfo(beanClass);
+                for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+                    pds.put(pd.getName(), pd);
+                }
+            } catch (IntrospectionException ex) {
+                return null;
+            }
+            for (PropertyValue pv : bd.getPropertyValues()) {
+                PropertyDescriptor pd = pds.get(pv.getName());
+                if (pd == null || pd.getWriteMethod() == null) {
+                    continue;
+                }
+                String argument = argumentExpression(pv.getValue(), pd.getPropertyType());
+                if (argument == null) {
+                    return null;
+                }
+                lines.add("bean." + pd.getWriteMethod().getName() + "(" + argument + ");");
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The constructor {@code ConstructorResolver} would pick, if there is only one candidate.
+     */
+    private static Constructor<?> findConstructor(Class<?> beanClass, int argumentCount) {
+        Constructor<?> found = null;
+        for (Constructor<?> candidate : beanClass.getConstructors()) {
+            if (candidate.getParameterTypes().length == argumentCount) {
+                if (found != null) {
+                    return null;
+                }
+                found = candidate;
+            }
+        }
+        return found;
+    }
+
+    private String argumentExpression(Object value, Class<?> type) {
+        if (value == null) {
+            return (type.isPrimitive() ? null : "null");
+        }
+        if (value instanceof RuntimeBeanReference) {
+            if (type.isPrimitive() || !isAccessible(type)) {
+                return null;
+            }
+            String getBean = "beanFactory.getBean(" + literal(((RuntimeBeanReference) value).getBeanName()) + ")";
+            return (type == Object.class ? getBean : "(" + type.getCanonicalName() + ") " + getBean);
+        }
+        String text;
+        if (value instanceof TypedStringValue) {
+            text = ((TypedStringValue) value).getValue();
+        } else if (value instanceof String) {
+            text = (String) value;
+        } else {
+            // 内部 bean 等运行时才能创建的值
+            return null;
+        }
+        Object converted;
+        try {
+            converted = this.typeConverter.convertIfNecessary(text, type);
+        } catch (Exception ex) {
+            return null;
+        }
+        return constantExpression(converted);
+    }
+
+    private static String constantExpression(Object value) {
+        if (value instanceof String) {
+            return literal((String) value);
+        }
+        if (value instanceof Integer || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Long) {
+            return value + "L";
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return (Double.isNaN(d) || Double.isInfinite(d) ? null : value + "d");
+        }
+        return null;
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+        if (type.isArray()) {
+            return isAccessible(type.getComponentType());
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> c = type; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())
+                    || (c.getDeclaringClass() != null && !Modifier.isStatic(c.getModifiers()))) {
+                return false;
+            }
+        }
+        return type.getCanonicalName() != null;
+    }
+
+    private static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
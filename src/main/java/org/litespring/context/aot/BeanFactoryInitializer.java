@@ -0,0 +1,13 @@
+package org.litespring.context.aot;
+
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+
+/**
+ * Registers bean definitions in a bean factory in code. Implemented by the
+ * classes {@link BeanFactoryAotGenerator} generates, and used by
+ * {@link AotApplicationContext} in place of reading XML.
+ */
+public interface BeanFactoryInitializer {
+
+    void initialize(DefaultBeanFactory beanFactory);
+}
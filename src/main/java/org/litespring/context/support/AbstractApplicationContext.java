@@ -6,6 +6,7 @@ import org.litespring.beans.factory.annotation.AutowiredAnnotationProcessor;
 import org.litespring.beans.factory.config.ConfigurableBeanFactory;
 import org.litespring.beans.factory.support.DefaultBeanFactory;
 import org.litespring.context.ApplicationContext;
+import org.litespring.context.aot.BeanFactoryInitializer;
 import org.litespring.core.io.Resource;
 import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
 import org.litespring.util.ClassUtils;
@@ -25,8 +26,26 @@ public abstract class AbstractApplicationContext implements ApplicationContext {
         XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
         Resource resource = this.getResourceByPath(configFile);
         reader.loadBeanDefinitions(resource);
+        refresh(cl);
+    }
+
+    /**
+     * Create a context whose bean definitions are registered by the given
+     * initializer, e.g. one generated by
+     * {@link org.litespring.context.aot.BeanFactoryAotGenerator},
+     * instead of being read from XML and scanned from the class path.
+     */
+    protected AbstractApplicationContext(BeanFactoryInitializer initializer, ClassLoader cl) {
+        factory = new DefaultBeanFactory();
+        initializer.initialize(factory);
+        refresh(cl);
+    }
+
+    private void refresh(ClassLoader cl) {
         factory.setBeanClassLoader(cl);
         registerBeanPostProcessors(factory);
+        // 启动时就把所有 singleton 创建好，而不是等到第一次 getBean
+        factory.preInstantiateSingletons();
     }
 
     public Object getBean(String beanID) {
@@ -52,7 +71,14 @@ public abstract class AbstractApplicationContext implements ApplicationContext {
             beanFactory.addBeanPostProcessor(postProcessor);
         }
         {
-            AspectJAutoProxyCreator postProcessor = new AspectJAutoProxyCreator();
+            AspectJAutoProxyCreator postProcessor;
+            if (this.factory.getBeanDefinition(AspectJAutoProxyCreator.AUTO_PROXY_CREATOR_BEAN_NAME) != null) {
+                // <aop:config> 修改了代理方式，按它注册的定义创建
+                postProcessor = (AspectJAutoProxyCreator) beanFactory.getBean(
+                        AspectJAutoProxyCreator.AUTO_PROXY_CREATOR_BEAN_NAME);
+            } else {
+                postProcessor = new AspectJAutoProxyCreator();
+            }
             postProcessor.setBeanFactory(beanFactory);
             beanFactory.addBeanPostProcessor(postProcessor);
         }
@@ -62,6 +88,10 @@ public abstract class AbstractApplicationContext implements ApplicationContext {
         return this.factory.getType(name);
     }
 
+    public boolean isSingleton(String name) throws NoSuchBeanDefinitionException {
+        return this.factory.isSingleton(name);
+    }
+
     public List<Object> getBeansByType(Class<?> type) {
         return this.factory.getBeansByType(type);
     }
@@ -0,0 +1,106 @@
+package org.litespring.bench;
+
+import java.lang.reflect.Method;
+
+import org.litespring.beans.BeanDefinition;
+import org.litespring.beans.factory.config.BeanAccessorStrategy;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.support.MethodHandleBeanAccessorStrategy;
+import org.litespring.beans.factory.support.ReflectiveBeanAccessorStrategy;
+import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.service.v2.PetStoreService;
+
+/**
+ * Compares the accessor strategies on instantiation + setter injection, and on
+ * prototype creation through a whole factory.
+ *
+ * <p>Not a unit test: run {@code main} by hand, e.g. with {@code -Xmx256m}. It
+ * is a plain warm-up / measure loop, so only the relative numbers matter.
+ */
+public class BeanAccessorBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final int OPERATIONS = 2000000;
+    private static final int GET_BEAN_OPERATIONS = 200000;
+
+    // 防止 JIT 把结果当作死代码消除
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        Method setOwner = PetStoreService.class.getMethod("setOwner", String.class);
+        Method setVersion = PetStoreService.class.getMethod("setVersion", int.class);
+
+        report("direct", new Operation() {
+            public void run(int n) {
+                for (int i = 0; i < n; i++) {
+                    PetStoreService petStore = new PetStoreService();
+                    petStore.setOwner("zjl");
+                    petStore.setVersion(i);
+                    sink += petStore.getVersion();
+                }
+            }
+        });
+        report("reflective", accessorOperation(new ReflectiveBeanAccessorStrategy(), setOwner, setVersion));
+        report("method handle", accessorOperation(new MethodHandleBeanAccessorStrategy(), setOwner, setVersion));
+
+        report("getBean, reflective", getBeanOperation(new ReflectiveBeanAccessorStrategy()), GET_BEAN_OPERATIONS);
+        report("getBean, method handle", getBeanOperation(new MethodHandleBeanAccessorStrategy()), GET_BEAN_OPERATIONS);
+
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static Operation accessorOperation(BeanAccessorStrategy strategy, Method setOwner, Method setVersion)
+            throws Exception {
+        final BeanAccessorStrategy.Instantiator instantiator = strategy.getInstantiator(PetStoreService.class);
+        final BeanAccessorStrategy.PropertyWriter ownerWriter = strategy.getPropertyWriter(setOwner);
+        final BeanAccessorStrategy.PropertyWriter versionWriter = strategy.getPropertyWriter(setVersion);
+        final Object[] noArgs = new Object[0];
+        return new Operation() {
+            public void run(int n) throws Exception {
+                for (int i = 0; i < n; i++) {
+                    PetStoreService petStore = (PetStoreService) instantiator.newInstance(noArgs);
+                    ownerWriter.write(petStore, "zjl");
+                    versionWriter.write(petStore, i);
+                    sink += petStore.getVersion();
+                }
+            }
+        };
+    }
+
+    private static Operation getBeanOperation(BeanAccessorStrategy strategy) {
+        final DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.setBeanAccessorStrategy(strategy);
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new ClassPathResource("petstore-v2.xml"));
+        factory.getBeanDefinition("petStore").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        return new Operation() {
+            public void run(int n) {
+                for (int i = 0; i < n; i++) {
+                    sink += ((PetStoreService) factory.getBean("petStore")).getVersion();
+                }
+            }
+        };
+    }
+
+    private static void report(String name, Operation operation) throws Exception {
+        report(name, operation, OPERATIONS);
+    }
+
+    private static void report(String name, Operation operation, int operations) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            operation.run(operations);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            operation.run(operations);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println(String.format("%-24s %8.1f ns/op", name, (double) best / operations));
+    }
+
+    private interface Operation {
+        void run(int n) throws Exception;
+    }
+}
@@ -0,0 +1,138 @@
+package org.litespring.bench;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.litespring.aop.Advice;
+import org.litespring.aop.ClassFilter;
+import org.litespring.aop.MethodMatcher;
+import org.litespring.aop.Pointcut;
+import org.litespring.aop.framework.AopConfigSupport;
+import org.litespring.aop.framework.AopProxyFactory;
+import org.litespring.aop.framework.CglibInterfaceProxyFactory;
+import org.litespring.aop.framework.CglibProxyFactory;
+import org.litespring.aop.framework.JdkAopProxyFactory;
+
+/**
+ * Measures the cost of a call through a JDK proxy, a CGLIB interface proxy and a
+ * CGLIB class proxy with 0, 1, 3 and 10 pass-through interceptors, against a
+ * direct call.
+ *
+ * <p>Not a unit test: run {@code main} by hand. "0 interceptors" means the proxy
+ * has an advice, but not for the measured method.
+ */
+public class ProxyInvocationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static final int OPERATIONS = 5000000;
+
+    private static final int JDK = 0;
+    private static final int CGLIB_INTERFACE = 1;
+    private static final int CGLIB = 2;
+
+    // 防止 JIT 把结果当作死代码消除
+    private static int sink;
+
+    public static void main(String[] args) throws Exception {
+        report("direct", new CounterImpl());
+        for (int interceptors : new int[]{0, 1, 3, 10}) {
+            report("jdk, " + interceptors, createProxy(interceptors, JDK));
+            report("cglib-intf, " + interceptors, createProxy(interceptors, CGLIB_INTERFACE));
+            report("cglib, " + interceptors, createProxy(interceptors, CGLIB));
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private static Counter createProxy(int interceptorCount, int proxyType) {
+        AopConfigSupport config = new AopConfigSupport();
+        config.setTargetObject(new CounterImpl());
+        if (interceptorCount == 0) {
+            config.addAdvice(new PassThroughAdvice("other"));
+        }
+        for (int i = 0; i < interceptorCount; i++) {
+            config.addAdvice(new PassThroughAdvice("next"));
+        }
+        AopProxyFactory proxyFactory;
+        if (proxyType == CGLIB) {
+            proxyFactory = new CglibProxyFactory(config);
+        } else {
+            config.addInterface(Counter.class);
+            proxyFactory = (proxyType == JDK ? new JdkAopProxyFactory(config) : new CglibInterfaceProxyFactory(config));
+        }
+        return (Counter) proxyFactory.getProxy();
+    }
+
+    private static void report(String name, Counter counter) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(counter);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            run(counter);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println(String.format("%-18s %8.1f ns/op", name, (double) best / OPERATIONS));
+    }
+
+    private static void run(Counter counter) {
+        int value = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            value = counter.next(value);
+        }
+        sink += value;
+    }
+
+    public interface Counter {
+        int next(int value);
+
+        int other(int value);
+    }
+
+    public static class CounterImpl implements Counter {
+        public int next(int value) {
+            return value + 1;
+        }
+
+        public int other(int value) {
+            return value - 1;
+        }
+    }
+
+    private static class PassThroughAdvice implements Advice, Pointcut, ClassFilter, MethodMatcher {
+        private final String methodName;
+
+        PassThroughAdvice(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            return invocation.proceed();
+        }
+
+        public Pointcut getPointcut() {
+            return this;
+        }
+
+        public ClassFilter getClassFilter() {
+            return this;
+        }
+
+        public MethodMatcher getMethodMatcher() {
+            return this;
+        }
+
+        public String getExpression() {
+            return "execution(* *." + this.methodName + "(..))";
+        }
+
+        public boolean matches(Class<?> clazz) {
+            return true;
+        }
+
+        public boolean matches(Method method) {
+            return method.getName().equals(this.methodName);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.litespring.service.v7;
+
+public interface AccountBook {
+
+    int getTotal();
+
+    int getTotalLocked();
+
+    void transfer(int amount);
+
+    void audit();
+}
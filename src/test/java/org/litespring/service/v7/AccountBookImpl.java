@@ -0,0 +1,34 @@
+package org.litespring.service.v7;
+
+import org.litespring.aop.lock.ReadLocked;
+import org.litespring.aop.lock.WriteLocked;
+
+public class AccountBookImpl implements AccountBook {
+
+    // 两个账户的总额始终是 100，只有在写的中途才会不一致
+    private int checking = 100;
+
+    private int savings = 0;
+
+    @ReadLocked(optimistic = true)
+    public int getTotal() {
+        return checking + savings;
+    }
+
+    @ReadLocked
+    public int getTotalLocked() {
+        return checking + savings;
+    }
+
+    @WriteLocked
+    public void transfer(int amount) {
+        checking -= amount;
+        Thread.yield();
+        savings += amount;
+    }
+
+    @ReadLocked
+    @WriteLocked
+    public void audit() {
+    }
+}
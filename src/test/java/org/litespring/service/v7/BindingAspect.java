@@ -0,0 +1,50 @@
+package org.litespring.service.v7;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.litespring.aop.JoinPoint;
+import org.litespring.aop.ProceedingJoinPoint;
+
+public class BindingAspect {
+
+    private final List<String> calls = new ArrayList<String>();
+
+    public Object aroundFind(ProceedingJoinPoint jp) throws Throwable {
+        calls.add("around:" + jp.getMethod().getName());
+        String id = (String) jp.getArgs()[0];
+        if ("upper".equals(id)) {
+            return jp.proceed(new Object[]{"UPPER"});
+        }
+        return "[" + jp.proceed() + "]";
+    }
+
+    public Object retryFind(ProceedingJoinPoint jp) throws Throwable {
+        calls.add("retry:" + jp.getMethod().getName());
+        try {
+            return jp.proceed();
+        } catch (IllegalArgumentException ex) {
+            return jp.proceed();
+        }
+    }
+
+    public void beforeFind(JoinPoint jp, String id) {
+        calls.add("before:" + jp.getTarget().getClass().getSimpleName() + ":" + id);
+    }
+
+    public void afterFind(String result) {
+        calls.add("returned:" + result);
+    }
+
+    public void afterFailure(JoinPoint jp, IllegalArgumentException ex) {
+        calls.add("failed:" + ex.getMessage());
+    }
+
+    public void afterUnrelatedFailure(IllegalStateException ex) {
+        calls.add("unexpected:" + ex.getMessage());
+    }
+
+    public List<String> getCalls() {
+        return calls;
+    }
+}
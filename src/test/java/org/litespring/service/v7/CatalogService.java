@@ -0,0 +1,12 @@
+package org.litespring.service.v7;
+
+public interface CatalogService {
+
+    String findItem(String id);
+
+    String findItemUncached(String id);
+
+    String findFreshItem(String id);
+
+    int getInvocationCount();
+}
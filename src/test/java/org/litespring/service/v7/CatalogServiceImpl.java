@@ -0,0 +1,33 @@
+package org.litespring.service.v7;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.litespring.aop.cache.Cacheable;
+
+public class CatalogServiceImpl implements CatalogService {
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    @Cacheable
+    public String findItem(String id) {
+        invocations.incrementAndGet();
+        if (id == null) {
+            throw new IllegalArgumentException("id is required");
+        }
+        return "item-" + id;
+    }
+
+    public String findItemUncached(String id) {
+        invocations.incrementAndGet();
+        return "item-" + id;
+    }
+
+    @Cacheable(ttl = 50)
+    public String findFreshItem(String id) {
+        return "item-" + id + "-" + invocations.incrementAndGet();
+    }
+
+    public int getInvocationCount() {
+        return invocations.get();
+    }
+}
@@ -0,0 +1,13 @@
+package org.litespring.service.v7;
+
+public class ChainedService {
+    private ChainedService previous;
+
+    public ChainedService getPrevious() {
+        return previous;
+    }
+
+    public void setPrevious(ChainedService previous) {
+        this.previous = previous;
+    }
+}
@@ -0,0 +1,13 @@
+package org.litespring.service.v7;
+
+public class CycleA {
+    private CycleB cycleB;
+
+    public CycleB getCycleB() {
+        return cycleB;
+    }
+
+    public void setCycleB(CycleB cycleB) {
+        this.cycleB = cycleB;
+    }
+}
@@ -0,0 +1,13 @@
+package org.litespring.service.v7;
+
+public class CycleB {
+    private CycleA cycleA;
+
+    public CycleA getCycleA() {
+        return cycleA;
+    }
+
+    public void setCycleA(CycleA cycleA) {
+        this.cycleA = cycleA;
+    }
+}
@@ -0,0 +1,10 @@
+package org.litespring.service.v7;
+
+public interface GatewayService {
+
+    String call(String request);
+
+    String slowLookup(long millis);
+
+    void release();
+}
@@ -0,0 +1,34 @@
+package org.litespring.service.v7;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.litespring.aop.bulkhead.Bulkhead;
+
+public class GatewayServiceImpl implements GatewayService {
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @Bulkhead(2)
+    public String call(String request) {
+        // 卡住直到测试放行，模拟变慢的下游
+        try {
+            released.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return "done " + request;
+    }
+
+    public String slowLookup(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return "found";
+    }
+
+    public void release() {
+        released.countDown();
+    }
+}
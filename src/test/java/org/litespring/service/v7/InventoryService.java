@@ -0,0 +1,17 @@
+package org.litespring.service.v7;
+
+import java.util.List;
+import java.util.Map;
+
+public interface InventoryService {
+
+    Integer getStock(String sku);
+
+    Map<String, Integer> getStocks(List<String> skus);
+
+    String getLocation(String sku);
+
+    List<String> getLocations(List<String> skus);
+
+    int getBatchCallCount();
+}
@@ -0,0 +1,49 @@
+package org.litespring.service.v7;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.litespring.aop.batch.Batched;
+
+public class InventoryServiceImpl implements InventoryService {
+
+    private final AtomicInteger batchCalls = new AtomicInteger();
+
+    @Batched(value = "getStocks", maxSize = 10, maxDelayMicros = 200000)
+    public Integer getStock(String sku) {
+        throw new UnsupportedOperationException("only called in batches");
+    }
+
+    public Map<String, Integer> getStocks(List<String> skus) {
+        batchCalls.incrementAndGet();
+        Map<String, Integer> stocks = new HashMap<String, Integer>();
+        for (String sku : skus) {
+            if ("broken".equals(sku)) {
+                throw new IllegalStateException("backend failure");
+            }
+            stocks.put(sku, sku.length());
+        }
+        return stocks;
+    }
+
+    @Batched(value = "getLocations", maxDelayMicros = 1000)
+    public String getLocation(String sku) {
+        throw new UnsupportedOperationException("only called in batches");
+    }
+
+    public List<String> getLocations(List<String> skus) {
+        batchCalls.incrementAndGet();
+        List<String> locations = new ArrayList<String>();
+        for (String sku : skus) {
+            locations.add("shelf-" + sku);
+        }
+        return locations;
+    }
+
+    public int getBatchCallCount() {
+        return batchCalls.get();
+    }
+}
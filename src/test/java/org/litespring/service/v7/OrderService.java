@@ -0,0 +1,22 @@
+package org.litespring.service.v7;
+
+public class OrderService {
+    private SlowService first;
+    private SlowService second;
+
+    public SlowService getFirst() {
+        return first;
+    }
+
+    public void setFirst(SlowService first) {
+        this.first = first;
+    }
+
+    public SlowService getSecond() {
+        return second;
+    }
+
+    public void setSecond(SlowService second) {
+        this.second = second;
+    }
+}
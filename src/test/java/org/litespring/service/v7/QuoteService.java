@@ -0,0 +1,14 @@
+package org.litespring.service.v7;
+
+public interface QuoteService {
+
+    String getQuote(String symbol);
+
+    String placeTrade(String symbol);
+
+    int getInvocationCount();
+
+    int getInterruptedCount();
+
+    Thread getLastQuoteThread();
+}
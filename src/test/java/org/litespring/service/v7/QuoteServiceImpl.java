@@ -0,0 +1,50 @@
+package org.litespring.service.v7;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.litespring.aop.hedge.Idempotent;
+
+public class QuoteServiceImpl implements QuoteService {
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    private final AtomicInteger interrupted = new AtomicInteger();
+
+    private volatile Thread lastQuoteThread;
+
+    @Idempotent
+    public String getQuote(String symbol) {
+        int n = invocations.incrementAndGet();
+        lastQuoteThread = Thread.currentThread();
+        if ("broken".equals(symbol)) {
+            throw new IllegalStateException("no quote for " + symbol);
+        }
+        // "slow" 开头的 symbol：第奇数次调用卡住，直到被取消
+        if (symbol.startsWith("slow") && n % 2 == 1) {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                throw new IllegalStateException("cancelled");
+            }
+        }
+        return symbol + ":" + n;
+    }
+
+    public String placeTrade(String symbol) {
+        invocations.incrementAndGet();
+        return "traded " + symbol;
+    }
+
+    public int getInvocationCount() {
+        return invocations.get();
+    }
+
+    public int getInterruptedCount() {
+        return interrupted.get();
+    }
+
+    public Thread getLastQuoteThread() {
+        return lastQuoteThread;
+    }
+}
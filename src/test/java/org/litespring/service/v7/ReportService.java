@@ -0,0 +1,21 @@
+package org.litespring.service.v7;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+public interface ReportService {
+
+    void sendReport(String name);
+
+    CompletableFuture<String> buildReport(String name);
+
+    Future<String> loadReport(String name);
+
+    CompletableFuture<String> failReport(String name);
+
+    String renderReport(String name);
+
+    String getLastThreadName();
+
+    void release();
+}
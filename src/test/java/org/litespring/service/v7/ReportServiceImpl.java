@@ -0,0 +1,54 @@
+package org.litespring.service.v7;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import org.litespring.aop.async.Async;
+
+public class ReportServiceImpl implements ReportService {
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private volatile String lastThreadName;
+
+    @Async
+    public void sendReport(String name) {
+        lastThreadName = Thread.currentThread().getName();
+    }
+
+    @Async
+    public CompletableFuture<String> buildReport(String name) {
+        // 等测试放行，证明调用方没有被阻塞
+        try {
+            released.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        lastThreadName = Thread.currentThread().getName();
+        return CompletableFuture.completedFuture("report " + name);
+    }
+
+    @Async
+    public Future<String> loadReport(String name) {
+        return CompletableFuture.completedFuture("loaded " + name);
+    }
+
+    @Async
+    public CompletableFuture<String> failReport(String name) {
+        throw new IllegalStateException("cannot build " + name);
+    }
+
+    @Async
+    public String renderReport(String name) {
+        return name;
+    }
+
+    public String getLastThreadName() {
+        return lastThreadName;
+    }
+
+    public void release() {
+        released.countDown();
+    }
+}
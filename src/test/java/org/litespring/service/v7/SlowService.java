@@ -0,0 +1,21 @@
+package org.litespring.service.v7;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SlowService {
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    public SlowService() throws InterruptedException {
+        INSTANCES.incrementAndGet();
+        Thread.sleep(50);
+    }
+
+    public static int getInstanceCount() {
+        return INSTANCES.get();
+    }
+
+    public static void resetInstanceCount() {
+        INSTANCES.set(0);
+    }
+}
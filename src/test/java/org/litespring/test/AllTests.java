@@ -8,10 +8,11 @@ import org.litespring.test.v3.V3AllTests;
 import org.litespring.test.v4.V4AllTest;
 import org.litespring.test.v5.V5AllTests;
 import org.litespring.test.v6.V6AllTests;
+import org.litespring.test.v7.V7AllTests;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({V1AllTests.class, V2AllTests.class, V3AllTests.class, V4AllTest.class,
-        V5AllTests.class, V6AllTests.class})
+        V5AllTests.class, V6AllTests.class, V7AllTests.class})
 public class AllTests {
 
 }
@@ -0,0 +1,61 @@
+package org.litespring.test.v7;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.Advice;
+import org.litespring.aop.aspectj.AspectJAfterReturningAdvice;
+import org.litespring.aop.aspectj.AspectJBeforeAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigSupport;
+import org.litespring.service.v5.PetStoreService;
+import org.litespring.test.v5.AbstractV5Test;
+
+public class AdviceChainCacheTest extends AbstractV5Test {
+
+    private AspectJBeforeAdvice beforeAdvice = null;
+    private AspectJAfterReturningAdvice afterAdvice = null;
+
+    @Before
+    public void setUp() throws Exception {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v5.*.placeOrder(..))");
+
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory("tx");
+        aspectInstanceFactory.setBeanFactory(this.getBeanFactory("petstore-v5.xml"));
+
+        beforeAdvice = new AspectJBeforeAdvice(getAdviceMethod("start"), pc, aspectInstanceFactory);
+        afterAdvice = new AspectJAfterReturningAdvice(getAdviceMethod("commit"), pc, aspectInstanceFactory);
+    }
+
+    @Test
+    public void testChainIsComputedOncePerMethod() throws Exception {
+        AopConfigSupport config = new AopConfigSupport();
+        config.addAdvice(beforeAdvice);
+        config.setTargetObject(new PetStoreService());
+        Method placeOrder = PetStoreService.class.getMethod("placeOrder");
+
+        List<Advice> chain = config.getAdvices(placeOrder);
+        Assert.assertEquals(1, chain.size());
+        Assert.assertSame(chain, config.getAdvices(placeOrder));
+        Assert.assertTrue(config.getAdvices(PetStoreService.class.getMethod("toString")).isEmpty());
+
+        try {
+            chain.add(afterAdvice);
+            Assert.fail("cached chain must not be modifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        // 添加 advice 之后缓存失效
+        config.addAdvice(afterAdvice);
+        List<Advice> newChain = config.getAdvices(placeOrder);
+        Assert.assertEquals(2, newChain.size());
+        Assert.assertSame(beforeAdvice, newChain.get(0));
+        Assert.assertSame(afterAdvice, newChain.get(1));
+    }
+}
@@ -0,0 +1,139 @@
+package org.litespring.test.v7;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.aot.AotApplicationContext;
+import org.litespring.context.aot.BeanFactoryAotGenerator;
+import org.litespring.context.aot.BeanFactoryInitializer;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.service.v7.BindingAspect;
+import org.litespring.service.v7.CatalogService;
+
+public class AotGeneratorTest {
+
+    private File outputDir;
+
+    @Before
+    public void setUp() throws Exception {
+        outputDir = File.createTempFile("litespring-aot", "");
+        Assert.assertTrue(outputDir.delete() && outputDir.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        delete(outputDir);
+    }
+
+    @Test
+    public void testSetterInjection() throws Exception {
+        String source = generateSource("petstore-v2.xml", "org.litespring.aot.PetStoreV2Beans");
+        Assert.assertTrue(source.contains("new org.litespring.service.v2.PetStoreService()"));
+        Assert.assertTrue(source.contains("bean.setVersion(2);"));
+
+        ApplicationContext ctx = new AotApplicationContext(compile("org.litespring.aot.PetStoreV2Beans"));
+        org.litespring.service.v2.PetStoreService petStore =
+                (org.litespring.service.v2.PetStoreService) ctx.getBean("petStore");
+
+        Assert.assertSame(ctx.getBean("accountDao"), petStore.getAccountDao());
+        Assert.assertSame(ctx.getBean("itemDao"), petStore.getItemDao());
+        Assert.assertEquals("zjl", petStore.getOwner());
+        Assert.assertEquals(2, petStore.getVersion());
+    }
+
+    @Test
+    public void testConstructorInjection() throws Exception {
+        String source = generateSource("petstore-v3.xml", "org.litespring.aot.PetStoreV3Beans");
+        Assert.assertTrue(source.contains("new org.litespring.service.v3.PetStoreService("));
+
+        ApplicationContext ctx = new AotApplicationContext(compile("org.litespring.aot.PetStoreV3Beans"));
+        org.litespring.service.v3.PetStoreService petStore =
+                (org.litespring.service.v3.PetStoreService) ctx.getBean("petStore");
+
+        Assert.assertSame(ctx.getBean("accountDao"), petStore.getAccountDao());
+        Assert.assertSame(ctx.getBean("itemDao"), petStore.getItemDao());
+        Assert.assertEquals(1, petStore.getVersion());
+    }
+
+    @Test
+    public void testScannedComponents() throws Exception {
+        String source = generateSource("petstore-v4.xml", "org.litespring.aot.PetStoreV4Beans");
+        Assert.assertFalse(source.contains("component-scan"));
+
+        ApplicationContext ctx = new AotApplicationContext(compile("org.litespring.aot.PetStoreV4Beans"));
+        org.litespring.service.v4.PetStoreService petStore =
+                (org.litespring.service.v4.PetStoreService) ctx.getBean("petStore");
+
+        // @Autowired 字段仍由 AutowiredAnnotationProcessor 注入
+        Assert.assertNotNull(petStore.getAccountDao());
+        Assert.assertNotNull(petStore.getItemDao());
+    }
+
+    @Test
+    public void testAdviceApplied() throws Exception {
+        generateSource("petstore-v7-around.xml", "org.litespring.aot.AroundBeans");
+
+        ApplicationContext ctx = new AotApplicationContext(compile("org.litespring.aot.AroundBeans"));
+        CatalogService catalog = (CatalogService) ctx.getBean("catalog");
+        BindingAspect aspect = (BindingAspect) ctx.getBean("binding");
+
+        Assert.assertEquals("[item-1]", catalog.findItem("1"));
+        Assert.assertTrue(aspect.getCalls().contains("around:findItem"));
+        Assert.assertEquals(1, catalog.getInvocationCount());
+    }
+
+    @Test
+    public void testAopConfigAttributes() throws Exception {
+        generateSource("petstore-v7-cache-cglib.xml", "org.litespring.aot.CacheCglibBeans");
+
+        ApplicationContext ctx = new AotApplicationContext(compile("org.litespring.aot.CacheCglibBeans"));
+        CatalogService catalog = (CatalogService) ctx.getBean("catalog");
+
+        Assert.assertFalse(Proxy.isProxyClass(catalog.getClass()));
+        Assert.assertEquals("item-1", catalog.findItem("1"));
+        Assert.assertEquals("item-1", catalog.findItem("1"));
+        Assert.assertEquals(1, catalog.getInvocationCount());
+    }
+
+    private String generateSource(String config, String className) throws Exception {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new ClassPathResource(config));
+        BeanFactoryAotGenerator generator = new BeanFactoryAotGenerator(factory);
+        generator.generate(className, outputDir);
+        return generator.generate(className);
+    }
+
+    private BeanFactoryInitializer compile(String className) throws Exception {
+        File source = new File(outputDir, className.replace('.', File.separatorChar) + ".java");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"),
+                "-d", outputDir.getPath(), source.getPath());
+        Assert.assertEquals(0, result);
+
+        URLClassLoader cl = new URLClassLoader(new URL[] { outputDir.toURI().toURL() },
+                getClass().getClassLoader());
+        return (BeanFactoryInitializer) cl.loadClass(className).newInstance();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,159 @@
+package org.litespring.test.v7;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.JoinPoint;
+import org.litespring.aop.ProceedingJoinPoint;
+import org.litespring.aop.aspectj.AspectJAfterReturningAdvice;
+import org.litespring.aop.aspectj.AspectJAroundAdvice;
+import org.litespring.aop.aspectj.AspectJBeforeAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.cache.CacheAdvice;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v7.BindingAspect;
+import org.litespring.service.v7.CatalogService;
+import org.litespring.test.v5.AbstractV5Test;
+
+public class AroundAdviceTest extends AbstractV5Test {
+
+    private CatalogService catalog;
+
+    private BindingAspect aspect;
+
+    @Before
+    public void setUp() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-around.xml");
+        catalog = (CatalogService) ctx.getBean("catalog");
+        aspect = (BindingAspect) ctx.getBean("binding");
+    }
+
+    @Test
+    public void testAroundAndBoundParameters() {
+        Assert.assertEquals("[item-1]", catalog.findItem("1"));
+
+        List<String> calls = aspect.getCalls();
+        Assert.assertEquals(Arrays.asList(
+                "before:CatalogServiceImpl:1",
+                "around:findItem",
+                // after-returning 在 around 之前配置，包在 around 外面，看到的是 around 的返回值
+                "returned:[item-1]"), calls);
+        Assert.assertEquals(1, catalog.getInvocationCount());
+    }
+
+    @Test
+    public void testProceedWithNewArguments() {
+        Assert.assertEquals("item-UPPER", catalog.findItem("upper"));
+        Assert.assertTrue(aspect.getCalls().contains("returned:item-UPPER"));
+    }
+
+    @Test
+    public void testExceptionBinding() {
+        try {
+            catalog.findItem(null);
+            Assert.fail("exception expected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("id is required", e.getMessage());
+        }
+        List<String> calls = aspect.getCalls();
+        Assert.assertTrue(calls.contains("failed:id is required"));
+        // 异常类型与绑定的参数不匹配时不调用
+        for (String call : calls) {
+            Assert.assertFalse(call, call.startsWith("unexpected:"));
+            Assert.assertFalse(call, call.startsWith("returned:"));
+        }
+        Assert.assertTrue(calls.contains("before:CatalogServiceImpl:null"));
+    }
+
+    @Test
+    public void testRetryRunsInnerAdviceAgain() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-retry.xml");
+        CatalogService catalog = (CatalogService) ctx.getBean("catalog");
+        BindingAspect aspect = (BindingAspect) ctx.getBean("binding");
+
+        try {
+            catalog.findItem(null);
+            Assert.fail("exception expected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("id is required", e.getMessage());
+        }
+        // 第二次 proceed 要重新经过 before advice，而不是直接调用目标方法
+        Assert.assertEquals(Arrays.asList(
+                "retry:findItem",
+                "before:CatalogServiceImpl:null",
+                "before:CatalogServiceImpl:null"), aspect.getCalls());
+        Assert.assertEquals(2, catalog.getInvocationCount());
+    }
+
+    @Test
+    public void testMisnamedReturningParameter() throws Exception {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v7.*.findItem(..))");
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory("binding");
+        AspectJAroundAdvice advice = new AspectJAroundAdvice(
+                BindingAspect.class.getMethod("afterFind", String.class), pc, aspectInstanceFactory);
+        advice.setArgumentNames("result");
+        try {
+            advice.setThrowingName("ex");
+            Assert.fail("binding to a missing parameter must fail");
+        } catch (AopConfigException e) {
+            // expected
+        }
+        Assert.assertNotNull(BindingAspect.class.getMethod("aroundFind", ProceedingJoinPoint.class));
+    }
+
+    @Test
+    public void testProceedingJoinPointOnlyForAroundAdvice() throws Exception {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v7.*.findItem(..))");
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory("binding");
+        try {
+            new AspectJBeforeAdvice(BindingAspect.class.getMethod("aroundFind", ProceedingJoinPoint.class),
+                    pc, aspectInstanceFactory);
+            Assert.fail("AopConfigException expected");
+        } catch (AopConfigException e) {
+            Assert.assertTrue(e.getMessage().contains("ProceedingJoinPoint"));
+        }
+        try {
+            new AspectJAfterReturningAdvice(BindingAspect.class.getMethod("aroundFind", ProceedingJoinPoint.class),
+                    pc, aspectInstanceFactory);
+            Assert.fail("AopConfigException expected");
+        } catch (AopConfigException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBoundAdviceMethodNeedsJoinPoint() throws Throwable {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v7.*.findItem(..))");
+        AspectJBeforeAdvice advice = new AspectJBeforeAdvice(
+                BindingAspect.class.getMethod("beforeFind", JoinPoint.class, String.class),
+                pc, this.getAspectInstanceFactory("binding"));
+        try {
+            advice.invokeAdviceMethod();
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("beforeFind"));
+        }
+    }
+
+    @Test
+    public void testBuiltInAdviceHasNoAdviceMethod() throws Throwable {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v7.*.findItem(..))");
+        CacheAdvice advice = new CacheAdvice(pc, this.getAspectInstanceFactory("binding"));
+        try {
+            advice.invokeAdviceMethod();
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains(CacheAdvice.class.getName()));
+        }
+    }
+}
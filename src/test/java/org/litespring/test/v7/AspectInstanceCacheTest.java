@@ -0,0 +1,107 @@
+package org.litespring.test.v7;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.aspectj.AspectJAfterThrowingAdvice;
+import org.litespring.aop.aspectj.AspectJBeforeAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.support.GenericBeanDefinition;
+import org.litespring.test.v5.AbstractV5Test;
+
+public class AspectInstanceCacheTest extends AbstractV5Test {
+
+    private DefaultBeanFactory beanFactory;
+
+    private AspectJExpressionPointcut pc;
+
+    @Before
+    public void setUp() {
+        CountingAspect.instances.clear();
+        beanFactory = new DefaultBeanFactory();
+        beanFactory.registerBeanDefinition("singletonAspect",
+                new GenericBeanDefinition("singletonAspect", CountingAspect.class.getName()));
+        GenericBeanDefinition prototype = new GenericBeanDefinition("prototypeAspect", CountingAspect.class.getName());
+        prototype.setScope(GenericBeanDefinition.SCOPE_PROTOTYPE);
+        beanFactory.registerBeanDefinition("prototypeAspect", prototype);
+
+        pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v5.*.placeOrder(..))");
+    }
+
+    @Test
+    public void testSingletonAspectIsResolvedOnce() throws Throwable {
+        AspectInstanceFactory aspectInstanceFactory = newAspectInstanceFactory("singletonAspect");
+        Assert.assertTrue(aspectInstanceFactory.isSingleton());
+        Assert.assertSame(aspectInstanceFactory.getAspectInstance(), aspectInstanceFactory.getAspectInstance());
+
+        AspectJBeforeAdvice advice = new AspectJBeforeAdvice(
+                CountingAspect.class.getMethod("before"), pc, aspectInstanceFactory);
+        for (int i = 0; i < 3; i++) {
+            advice.invokeAdviceMethod();
+        }
+        Assert.assertEquals(1, CountingAspect.instances.size());
+        Assert.assertEquals(3, CountingAspect.instances.get(0).calls);
+        Assert.assertSame(beanFactory.getBean("singletonAspect"), CountingAspect.instances.get(0));
+    }
+
+    @Test
+    public void testPrototypeAspectIsResolvedForEveryCall() throws Throwable {
+        AspectInstanceFactory aspectInstanceFactory = newAspectInstanceFactory("prototypeAspect");
+        Assert.assertFalse(aspectInstanceFactory.isSingleton());
+
+        AspectJBeforeAdvice advice = new AspectJBeforeAdvice(
+                CountingAspect.class.getMethod("before"), pc, aspectInstanceFactory);
+        for (int i = 0; i < 3; i++) {
+            advice.invokeAdviceMethod();
+        }
+        Assert.assertEquals(3, CountingAspect.instances.size());
+        for (CountingAspect aspect : CountingAspect.instances) {
+            Assert.assertEquals(1, aspect.calls);
+        }
+    }
+
+    @Test
+    public void testAdviceExceptionIsNotWrapped() throws Throwable {
+        AspectJAfterThrowingAdvice advice = new AspectJAfterThrowingAdvice(
+                CountingAspect.class.getMethod("fail"), pc, newAspectInstanceFactory("singletonAspect"));
+        // 第一次走未绑定的 handle，第二次走绑定了实例的 handle
+        for (int i = 0; i < 2; i++) {
+            try {
+                advice.invokeAdviceMethod();
+                Assert.fail("advice exception expected");
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("advice failed", e.getMessage());
+            }
+        }
+    }
+
+    private AspectInstanceFactory newAspectInstanceFactory(String aspectBeanName) {
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory(aspectBeanName);
+        aspectInstanceFactory.setBeanFactory(beanFactory);
+        return aspectInstanceFactory;
+    }
+
+    public static class CountingAspect {
+        static final List<CountingAspect> instances = new ArrayList<CountingAspect>();
+
+        int calls;
+
+        public CountingAspect() {
+            instances.add(this);
+        }
+
+        public void before() {
+            calls++;
+        }
+
+        public String fail() {
+            throw new IllegalStateException("advice failed");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.litespring.test.v7;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.async.AsyncExecutor;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v7.ReportService;
+
+public class AsyncAdviceTest {
+
+    private ReportService reports;
+
+    private AsyncExecutor async;
+
+    @Before
+    public void setUp() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-async.xml");
+        reports = (ReportService) ctx.getBean("reports");
+        async = (AsyncExecutor) ctx.getBean("async");
+    }
+
+    @Test
+    public void testCallerIsNotBlocked() throws Exception {
+        CompletableFuture<String> future = reports.buildReport("sales");
+        // 方法还在等待放行，调用已经返回
+        Assert.assertFalse(future.isDone());
+
+        reports.release();
+        Assert.assertEquals("report sales", future.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(reports.getLastThreadName().startsWith("async-"));
+        Assert.assertEquals(1, async.getSubmittedCount());
+    }
+
+    @Test
+    public void testVoidMethod() throws Exception {
+        reports.sendReport("daily");
+        for (int i = 0; i < 500 && reports.getLastThreadName() == null; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(reports.getLastThreadName().startsWith("async-"));
+    }
+
+    @Test
+    public void testFutureMethod() throws Exception {
+        Assert.assertEquals("loaded q1", reports.loadReport("q1").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExceptionCompletesFuture() throws Exception {
+        CompletableFuture<String> future = reports.failReport("q2");
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("exception expected");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            Assert.assertEquals("cannot build q2", e.getCause().getMessage());
+        }
+    }
+
+    @Test(expected = AopConfigException.class)
+    public void testUnsupportedReturnType() {
+        reports.renderReport("x");
+    }
+}
@@ -0,0 +1,138 @@
+package org.litespring.test.v7;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.batch.BatchCoordinator;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.aop.metrics.MetricsRegistry;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v7.InventoryService;
+
+public class BatchAdviceTest {
+
+    private InventoryService inventory;
+
+    private BatchCoordinator coordinator;
+
+    @Before
+    public void setUp() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-batch.xml");
+        inventory = (InventoryService) ctx.getBean("inventory");
+        coordinator = (BatchCoordinator) ctx.getBean("batching");
+    }
+
+    @Test
+    public void testConcurrentCallsAreCoalesced() throws Exception {
+        final int callers = 20;
+        final Object[] results = new Object[callers];
+        runConcurrently(callers, new Task() {
+            public void run(int i) {
+                results[i] = inventory.getStock("sku" + i);
+            }
+        });
+
+        for (int i = 0; i < callers; i++) {
+            Assert.assertEquals(("sku" + i).length(), results[i]);
+        }
+        // maxSize = 10，20 个并发调用最终只打到后端两次
+        Assert.assertEquals(2, inventory.getBatchCallCount());
+        Assert.assertEquals(2, coordinator.getBatchCount());
+        Assert.assertEquals(callers, coordinator.getCallCount());
+    }
+
+    @Test
+    public void testSingleCallIsDispatchedAfterDelay() {
+        Assert.assertEquals("shelf-a", inventory.getLocation("a"));
+        Assert.assertEquals(1, inventory.getBatchCallCount());
+    }
+
+    @Test
+    public void testListResultsAndDuplicateKeys() throws Exception {
+        final Object[] results = new Object[6];
+        runConcurrently(results.length, new Task() {
+            public void run(int i) {
+                results[i] = inventory.getLocation("k" + (i % 2));
+            }
+        });
+        for (int i = 0; i < results.length; i++) {
+            Assert.assertEquals("shelf-k" + (i % 2), results[i]);
+        }
+    }
+
+    @Test
+    public void testBatchFailureReachesEveryCaller() throws Exception {
+        final Object[] results = new Object[10];
+        runConcurrently(results.length, new Task() {
+            public void run(int i) {
+                try {
+                    results[i] = inventory.getStock(i == 0 ? "broken" : "sku" + i);
+                } catch (IllegalStateException e) {
+                    results[i] = e;
+                }
+            }
+        });
+        Assert.assertEquals(1, inventory.getBatchCallCount());
+        for (Object result : results) {
+            Assert.assertTrue(result instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testIdleBatchersAreReleased() throws Exception {
+        runConcurrently(5, new Task() {
+            public void run(int i) {
+                inventory.getStock("sku" + i);
+            }
+        });
+        Assert.assertEquals(0, coordinator.getActiveBatcherCount());
+    }
+
+    @Test
+    public void testBatchMustBeInnermostAdvice() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-batch-metrics.xml");
+        InventoryService inventory = (InventoryService) ctx.getBean("inventory");
+        MetricsRegistry outerMetrics = (MetricsRegistry) ctx.getBean("outerMetrics");
+
+        Assert.assertEquals(Integer.valueOf(4), inventory.getStock("sku1"));
+        Assert.assertEquals(1, outerMetrics.getAllMetrics().iterator().next().getCallCount());
+
+        try {
+            inventory.getLocation("a");
+            Assert.fail("AopConfigException expected");
+        } catch (AopConfigException e) {
+            // expected
+        }
+        Assert.assertEquals(1, inventory.getBatchCallCount());
+    }
+
+    private static void runConcurrently(int count, final Task task) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    task.run(index);
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private interface Task {
+        void run(int i);
+    }
+}
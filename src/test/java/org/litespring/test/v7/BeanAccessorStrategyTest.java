@@ -0,0 +1,77 @@
+package org.litespring.test.v7;
+
+import java.lang.reflect.Field;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.beans.BeanDefinition;
+import org.litespring.beans.factory.config.BeanAccessorStrategy;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.support.MethodHandleBeanAccessorStrategy;
+import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.dao.v4.AccountDao;
+
+public class BeanAccessorStrategyTest {
+
+    @Test
+    public void testSetterInjection() {
+        DefaultBeanFactory factory = createFactory("petstore-v2.xml");
+        factory.getBeanDefinition("petStore").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+
+        for (int i = 0; i < 2; i++) {
+            org.litespring.service.v2.PetStoreService petStore =
+                    (org.litespring.service.v2.PetStoreService) factory.getBean("petStore");
+            Assert.assertEquals("zjl", petStore.getOwner());
+            Assert.assertEquals(2, petStore.getVersion());
+            Assert.assertSame(factory.getBean("accountDao"), petStore.getAccountDao());
+            Assert.assertSame(factory.getBean("itemDao"), petStore.getItemDao());
+        }
+    }
+
+    @Test
+    public void testConstructorInjection() {
+        DefaultBeanFactory factory = createFactory("petstore-v3.xml");
+
+        org.litespring.service.v3.PetStoreService petStore =
+                (org.litespring.service.v3.PetStoreService) factory.getBean("petStore");
+        Assert.assertEquals(1, petStore.getVersion());
+        Assert.assertSame(factory.getBean("accountDao"), petStore.getAccountDao());
+        Assert.assertSame(factory.getBean("itemDao"), petStore.getItemDao());
+    }
+
+    @Test
+    public void testPrivateFieldWriter() throws Exception {
+        BeanAccessorStrategy strategy = new MethodHandleBeanAccessorStrategy();
+        Field field = org.litespring.service.v4.PetStoreService.class.getDeclaredField("accountDao");
+        org.litespring.service.v4.PetStoreService petStore =
+                (org.litespring.service.v4.PetStoreService) strategy
+                        .getInstantiator(org.litespring.service.v4.PetStoreService.class).newInstance(new Object[0]);
+        AccountDao accountDao = new AccountDao();
+
+        strategy.getPropertyWriter(field).write(petStore, accountDao);
+
+        Assert.assertSame(accountDao, petStore.getAccountDao());
+        Assert.assertSame(strategy.getPropertyWriter(field), strategy.getPropertyWriter(field));
+    }
+
+    @Test
+    public void testFieldWriterCachedUntilStrategyChanges() throws Exception {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        Field field = org.litespring.service.v4.PetStoreService.class.getDeclaredField("accountDao");
+
+        BeanAccessorStrategy.PropertyWriter writer = factory.getFieldWriter(field);
+        Assert.assertSame(writer, factory.getFieldWriter(field));
+
+        factory.setBeanAccessorStrategy(new MethodHandleBeanAccessorStrategy());
+        Assert.assertNotSame(writer, factory.getFieldWriter(field));
+    }
+
+    private DefaultBeanFactory createFactory(String configFile) {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.setBeanAccessorStrategy(new MethodHandleBeanAccessorStrategy());
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(new ClassPathResource(configFile));
+        return factory;
+    }
+}
@@ -0,0 +1,45 @@
+package org.litespring.test.v7;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.support.GenericBeanDefinition;
+import org.litespring.dao.v4.AccountDao;
+import org.litespring.service.v6.IPetStoreService;
+import org.litespring.service.v6.PetStoreService;
+
+public class BeanTypeLookupTest {
+
+    @Test
+    public void testLookupBySuperTypes() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.registerBeanDefinition("petStore",
+                new GenericBeanDefinition("petStore", PetStoreService.class.getName()));
+        factory.registerBeanDefinition("accountDao",
+                new GenericBeanDefinition("accountDao", AccountDao.class.getName()));
+        factory.registerBeanDefinition("invalidBean",
+                new GenericBeanDefinition("invalidBean", "xxx.xxxxx"));
+
+        List<Object> petStores = factory.getBeansByType(IPetStoreService.class);
+        Assert.assertEquals(1, petStores.size());
+        Assert.assertTrue(petStores.get(0) instanceof PetStoreService);
+
+        Assert.assertEquals(1, factory.getBeansByType(AccountDao.class).size());
+        Assert.assertEquals(2, factory.getBeansByType(Object.class).size());
+        Assert.assertTrue(factory.getBeansByType(Runnable.class).isEmpty());
+    }
+
+    @Test
+    public void testReplacedDefinitionIsReindexed() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.registerBeanDefinition("bean",
+                new GenericBeanDefinition("bean", PetStoreService.class.getName()));
+        Assert.assertEquals(1, factory.getBeansByType(IPetStoreService.class).size());
+
+        factory.registerBeanDefinition("bean",
+                new GenericBeanDefinition("bean", AccountDao.class.getName()));
+        Assert.assertTrue(factory.getBeansByType(IPetStoreService.class).isEmpty());
+    }
+}
@@ -0,0 +1,143 @@
+package org.litespring.test.v7;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.bulkhead.BulkheadFullException;
+import org.litespring.aop.bulkhead.BulkheadRegistry;
+import org.litespring.aop.bulkhead.ConcurrencyLimit;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v7.GatewayService;
+import org.litespring.service.v7.GatewayServiceImpl;
+
+public class BulkheadAdviceTest {
+
+    private static final String CALL_BULKHEAD = "org.litespring.service.v7.GatewayServiceImpl.call";
+
+    private GatewayService gateway;
+
+    private GatewayService otherGateway;
+
+    private BulkheadRegistry bulkheads;
+
+    @Before
+    public void setUp() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-bulkhead.xml");
+        gateway = (GatewayService) ctx.getBean("gateway");
+        otherGateway = (GatewayService) ctx.getBean("otherGateway");
+        bulkheads = (BulkheadRegistry) ctx.getBean("bulkheads");
+    }
+
+    @Test
+    public void testExcessCallsQueueThenGetRejected() throws Exception {
+        final List<Object> results = new ArrayList<Object>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 3; i++) {
+            final String request = "r" + i;
+            Thread thread = new Thread() {
+                public void run() {
+                    String result = gateway.call(request);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+
+        ConcurrencyLimit limit = getLimit(CALL_BULKHEAD);
+        // 两个调用在执行，第三个在排队
+        for (int i = 0; i < 200 && (limit == null || limit.getInFlight() < 2 || limit.getQueued() < 1); i++) {
+            Thread.sleep(10);
+            limit = getLimit(CALL_BULKHEAD);
+        }
+        Assert.assertEquals(2, limit.getInFlight());
+        Assert.assertEquals(1, limit.getQueued());
+
+        // 排队的名额也满了，立即拒绝
+        try {
+            gateway.call("rejected");
+            Assert.fail("BulkheadFullException expected");
+        } catch (BulkheadFullException e) {
+            // expected
+        }
+        Assert.assertEquals(1, limit.getRejectedCount());
+
+        // 同一个类的另一个 bean 有自己的 limit
+        otherGateway.release();
+        Assert.assertEquals("done other", otherGateway.call("other"));
+        Assert.assertEquals(2, bulkheads.getLimits(CALL_BULKHEAD).size());
+        Assert.assertEquals(2, limit.getInFlight());
+
+        gateway.release();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals(0, limit.getInFlight());
+        Assert.assertEquals(0, limit.getQueued());
+    }
+
+    @Test
+    public void testLimitAdaptsToLatency() {
+        Assert.assertEquals("found", gateway.slowLookup(50));
+        ConcurrencyLimit limit = getLimit(GatewayServiceImpl.class.getName());
+        Assert.assertEquals(9, limit.getLimit());
+
+        // scope="bean" 也是每个 bean 一个 limit
+        otherGateway.slowLookup(0);
+        Assert.assertEquals(2, bulkheads.getLimits(GatewayServiceImpl.class.getName()).size());
+        Assert.assertEquals(9, limit.getLimit());
+
+        // 每 limit 次快速调用增加 1
+        for (int i = 0; i < 9; i++) {
+            gateway.slowLookup(0);
+        }
+        Assert.assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void testLimitRecoversAfterLatencySpike() throws Exception {
+        // 8 个慢调用同时在执行：整轮只退让一次，而不是每个都降 10%
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    gateway.slowLookup(100);
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        ConcurrencyLimit limit = getLimit(GatewayServiceImpl.class.getName());
+        Assert.assertEquals(9, limit.getLimit());
+        for (int i = 0; i < 9; i++) {
+            gateway.slowLookup(0);
+        }
+        Assert.assertEquals(10, limit.getLimit());
+
+        // 慢调用和快速调用交替，limit 仍能回到最大值
+        for (int round = 0; round < 3; round++) {
+            gateway.slowLookup(30);
+            Assert.assertEquals(9, limit.getLimit());
+            for (int i = 0; i < 9; i++) {
+                gateway.slowLookup(0);
+            }
+            Assert.assertEquals(10, limit.getLimit());
+        }
+    }
+
+    private ConcurrencyLimit getLimit(String name) {
+        List<ConcurrencyLimit> limits = bulkheads.getLimits(name);
+        Assert.assertTrue(limits.size() <= 1);
+        return (limits.isEmpty() ? null : limits.get(0));
+    }
+}
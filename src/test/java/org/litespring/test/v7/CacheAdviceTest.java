@@ -0,0 +1,218 @@
+package org.litespring.test.v7;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.aop.cache.CacheStats;
+import org.litespring.aop.cache.MemoizingCache;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v7.CatalogService;
+
+public class CacheAdviceTest {
+
+    @Test
+    public void testAnnotatedMethodsAreMemoized() throws Exception {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-cache.xml");
+        CatalogService catalog = (CatalogService) ctx.getBean("catalog");
+        MemoizingCache cache = (MemoizingCache) ctx.getBean("cache");
+
+        Assert.assertEquals("item-1", catalog.findItem("1"));
+        Assert.assertEquals("item-1", catalog.findItem("1"));
+        Assert.assertEquals("item-2", catalog.findItem("2"));
+        Assert.assertEquals(2, catalog.getInvocationCount());
+
+        // 没有 @Cacheable 的方法每次都执行
+        catalog.findItemUncached("1");
+        catalog.findItemUncached("1");
+        Assert.assertEquals(4, catalog.getInvocationCount());
+
+        // 失败的调用不缓存
+        for (int i = 0; i < 2; i++) {
+            try {
+                catalog.findItem(null);
+                Assert.fail("exception expected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(6, catalog.getInvocationCount());
+
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(4, stats.getMissCount());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testTtlFromAnnotation() throws Exception {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-cache.xml");
+        CatalogService catalog = (CatalogService) ctx.getBean("catalog");
+
+        String first = catalog.findFreshItem("1");
+        Assert.assertEquals(first, catalog.findFreshItem("1"));
+        Thread.sleep(100);
+        Assert.assertNotEquals(first, catalog.findFreshItem("1"));
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        final MemoizingCache cache = new MemoizingCache();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MemoizingCache.ValueLoader loader = new MemoizingCache.ValueLoader() {
+            public Object load() throws Throwable {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "value";
+            }
+        };
+
+        final Object[] results = new Object[8];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        results[index] = cache.get("key", loader);
+                    } catch (Throwable t) {
+                        results[index] = t;
+                    }
+                }
+            };
+            threads[i].start();
+            if (i == 0) {
+                loading.await();
+            }
+        }
+        Thread.sleep(50);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(1, loads.get());
+        for (Object result : results) {
+            Assert.assertEquals("value", result);
+        }
+        Assert.assertEquals(1, cache.getStats().getMissCount());
+        Assert.assertEquals(7, cache.getStats().getHitCount());
+    }
+
+    @Test
+    public void testSegmentedLruKeepsReusedEntries() throws Throwable {
+        MemoizingCache cache = new MemoizingCache();
+        cache.setMaximumSize(10);
+        final AtomicInteger loads = new AtomicInteger();
+        MemoizingCache.ValueLoader loader = new MemoizingCache.ValueLoader() {
+            public Object load() {
+                return loads.incrementAndGet();
+            }
+        };
+
+        // 热点 key 命中两次，进入 protected 区
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot" + i, loader);
+            cache.get("hot" + i, loader);
+        }
+        // 一批只访问一次的 key 不会把热点挤出去
+        for (int i = 0; i < 100; i++) {
+            cache.get("scan" + i, loader);
+        }
+        Assert.assertEquals(10, cache.size());
+        int before = loads.get();
+        for (int i = 0; i < 5; i++) {
+            cache.get("hot" + i, loader);
+        }
+        Assert.assertEquals(before, loads.get());
+        Assert.assertEquals(95, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    public void testBeansOfSameClassKeepApartEntries() throws Exception {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-cache.xml");
+        CatalogService catalog = (CatalogService) ctx.getBean("catalog");
+        CatalogService otherCatalog = (CatalogService) ctx.getBean("otherCatalog");
+
+        Assert.assertEquals("item-1", catalog.findItem("1"));
+        Assert.assertEquals("item-1", otherCatalog.findItem("1"));
+        Assert.assertEquals(1, catalog.getInvocationCount());
+        Assert.assertEquals(1, otherCatalog.getInvocationCount());
+    }
+
+    @Test
+    public void testLoadingEntryIsNotEvicted() throws Throwable {
+        final MemoizingCache cache = new MemoizingCache();
+        cache.setMaximumSize(8);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MemoizingCache.ValueLoader slowLoader = new MemoizingCache.ValueLoader() {
+            public Object load() throws Throwable {
+                loads.incrementAndGet();
+                loading.countDown();
+                release.await();
+                return "slow";
+            }
+        };
+        final Object[] results = new Object[2];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        results[index] = cache.get("slow", slowLoader);
+                    } catch (Throwable t) {
+                        results[index] = t;
+                    }
+                }
+            };
+        }
+        threads[0].start();
+        loading.await();
+
+        // 加载期间大量新 key 挤占容量，正在加载的条目不能被淘汰
+        MemoizingCache.ValueLoader loader = new MemoizingCache.ValueLoader() {
+            public Object load() {
+                return "fast";
+            }
+        };
+        for (int i = 0; i < 50; i++) {
+            cache.get("churn" + i, loader);
+        }
+        threads[1].start();
+        Thread.sleep(50);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals("slow", results[0]);
+        Assert.assertEquals("slow", results[1]);
+        Assert.assertEquals("slow", cache.get("slow", slowLoader));
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testRecursiveLoadFails() throws Throwable {
+        final MemoizingCache cache = new MemoizingCache();
+        try {
+            cache.get("key", new MemoizingCache.ValueLoader() {
+                public Object load() throws Throwable {
+                    return cache.get("key", this);
+                }
+            });
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,68 @@
+package org.litespring.test.v7;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.aspectj.AspectJBeforeAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigSupport;
+import org.litespring.aop.framework.CglibProxyFactory;
+import org.litespring.service.v5.PetStoreService;
+import org.litespring.test.v5.AbstractV5Test;
+import org.litespring.util.MessageTracker;
+
+public class CglibCallbackFilterTest extends AbstractV5Test {
+
+    private AspectJBeforeAdvice beforeAdvice = null;
+
+    @Before
+    public void setUp() throws Exception {
+        MessageTracker.clearMsgs();
+
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v5.*.placeOrder(..))");
+
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory("tx");
+        aspectInstanceFactory.setBeanFactory(this.getBeanFactory("petstore-v5.xml"));
+
+        beforeAdvice = new AspectJBeforeAdvice(getAdviceMethod("start"), pc, aspectInstanceFactory);
+    }
+
+    @Test
+    public void testAdvisedAndUnadvisedMethods() {
+        PetStoreService target = new PetStoreService();
+        PetStoreService proxy = createProxy(target);
+
+        proxy.placeOrder();
+        Assert.assertEquals(2, MessageTracker.getMsgs().size());
+        Assert.assertEquals("start tx", MessageTracker.getMsgs().get(0));
+
+        // 未被增强的方法直接分派到目标对象
+        MessageTracker.clearMsgs();
+        Assert.assertNull(proxy.getAccountDao());
+        Assert.assertEquals(target.toString(), proxy.toString());
+        Assert.assertTrue(MessageTracker.getMsgs().isEmpty());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        PetStoreService target = new PetStoreService();
+        PetStoreService proxy = createProxy(target);
+        PetStoreService sameTarget = createProxy(target);
+        PetStoreService otherTarget = createProxy(new PetStoreService());
+
+        Assert.assertEquals(proxy, proxy);
+        Assert.assertEquals(proxy, sameTarget);
+        Assert.assertEquals(proxy.hashCode(), sameTarget.hashCode());
+        Assert.assertFalse(proxy.equals(otherTarget));
+        Assert.assertFalse(proxy.equals(target));
+    }
+
+    private PetStoreService createProxy(PetStoreService target) {
+        AopConfigSupport config = new AopConfigSupport();
+        config.addAdvice(beforeAdvice);
+        config.setTargetObject(target);
+        return (PetStoreService) new CglibProxyFactory(config).getProxy();
+    }
+}
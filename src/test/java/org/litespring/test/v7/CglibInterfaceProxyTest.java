@@ -0,0 +1,111 @@
+package org.litespring.test.v7;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.aspectj.AspectJAfterReturningAdvice;
+import org.litespring.aop.aspectj.AspectJBeforeAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigSupport;
+import org.litespring.aop.framework.CglibInterfaceProxyFactory;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v6.IPetStoreService;
+import org.litespring.service.v6.PetStoreService;
+import org.litespring.service.v7.CatalogService;
+import org.litespring.service.v7.CatalogServiceImpl;
+import org.litespring.test.v5.AbstractV5Test;
+import org.litespring.util.MessageTracker;
+
+public class CglibInterfaceProxyTest extends AbstractV5Test {
+
+    private AspectJBeforeAdvice beforeAdvice = null;
+    private AspectJAfterReturningAdvice afterAdvice = null;
+
+    @Before
+    public void setUp() throws Exception {
+        MessageTracker.clearMsgs();
+
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v6.*.placeOrder(..))");
+
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory("tx");
+        aspectInstanceFactory.setBeanFactory(this.getBeanFactory("petstore-v5.xml"));
+
+        beforeAdvice = new AspectJBeforeAdvice(getAdviceMethod("start"), pc, aspectInstanceFactory);
+        afterAdvice = new AspectJAfterReturningAdvice(getAdviceMethod("commit"), pc, aspectInstanceFactory);
+    }
+
+    @Test
+    public void testGetProxy() {
+        PetStoreService target = new PetStoreService();
+        IPetStoreService proxy = createProxy(target);
+
+        Assert.assertFalse(Proxy.isProxyClass(proxy.getClass()));
+        Assert.assertFalse(proxy instanceof PetStoreService);
+
+        proxy.placeOrder();
+
+        List<String> msgs = MessageTracker.getMsgs();
+        Assert.assertEquals(3, msgs.size());
+        Assert.assertEquals("start tx", msgs.get(0));
+        Assert.assertEquals("place order", msgs.get(1));
+        Assert.assertEquals("commit tx", msgs.get(2));
+
+        Assert.assertEquals(target.toString(), proxy.toString());
+        Assert.assertEquals(proxy, createProxy(target));
+        Assert.assertSame(proxy.getClass(), createProxy(new PetStoreService()).getClass());
+    }
+
+    @Test
+    public void testAnnotationOnImplementationMethod() throws Exception {
+        // @Cacheable 只写在实现类上，接口代理拦截到的是接口方法
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("@annotation(org.litespring.aop.cache.Cacheable)");
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory("tx");
+        aspectInstanceFactory.setBeanFactory(this.getBeanFactory("petstore-v5.xml"));
+
+        AopConfigSupport config = new AopConfigSupport();
+        config.addAdvice(new AspectJBeforeAdvice(getAdviceMethod("start"), pc, aspectInstanceFactory));
+        config.addInterface(CatalogService.class);
+        config.setTargetObject(new CatalogServiceImpl());
+        CatalogService proxy = (CatalogService) new CglibInterfaceProxyFactory(config).getProxy();
+
+        Assert.assertEquals("item-1", proxy.findItem("1"));
+        Assert.assertEquals(1, MessageTracker.getMsgs().size());
+        Assert.assertEquals("start tx", MessageTracker.getMsgs().get(0));
+
+        proxy.findItemUncached("1");
+        Assert.assertEquals(1, MessageTracker.getMsgs().size());
+    }
+
+    @Test
+    public void testEnabledByAopConfig() throws Exception {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-cache-cglib.xml");
+        CatalogService catalog = (CatalogService) ctx.getBean("catalog");
+
+        Assert.assertFalse(Proxy.isProxyClass(catalog.getClass()));
+        Assert.assertFalse(catalog instanceof CatalogServiceImpl);
+
+        Assert.assertEquals("item-1", catalog.findItem("1"));
+        Assert.assertEquals("item-1", catalog.findItem("1"));
+        Assert.assertEquals(1, catalog.getInvocationCount());
+
+        // 默认仍然是 JDK 动态代理
+        ctx = new ClassPathXmlApplicationContext("petstore-v7-cache.xml");
+        Assert.assertTrue(Proxy.isProxyClass(ctx.getBean("catalog").getClass()));
+    }
+
+    private IPetStoreService createProxy(PetStoreService target) {
+        AopConfigSupport config = new AopConfigSupport();
+        config.addAdvice(beforeAdvice);
+        config.addAdvice(afterAdvice);
+        config.addInterface(IPetStoreService.class);
+        config.setTargetObject(target);
+        return (IPetStoreService) new CglibInterfaceProxyFactory(config).getProxy();
+    }
+}
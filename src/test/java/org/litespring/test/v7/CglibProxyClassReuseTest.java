@@ -0,0 +1,73 @@
+package org.litespring.test.v7;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.aspectj.AspectJAfterReturningAdvice;
+import org.litespring.aop.aspectj.AspectJBeforeAdvice;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.aop.config.AspectInstanceFactory;
+import org.litespring.aop.framework.AopConfigSupport;
+import org.litespring.aop.framework.CglibProxyFactory;
+import org.litespring.service.v5.PetStoreService;
+import org.litespring.test.v5.AbstractV5Test;
+import org.litespring.util.MessageTracker;
+
+public class CglibProxyClassReuseTest extends AbstractV5Test {
+
+    private AspectJBeforeAdvice beforeAdvice = null;
+    private AspectJAfterReturningAdvice afterAdvice = null;
+
+    @Before
+    public void setUp() throws Exception {
+        MessageTracker.clearMsgs();
+
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v5.*.placeOrder(..))");
+
+        AspectInstanceFactory aspectInstanceFactory = this.getAspectInstanceFactory("tx");
+        aspectInstanceFactory.setBeanFactory(this.getBeanFactory("petstore-v5.xml"));
+
+        beforeAdvice = new AspectJBeforeAdvice(getAdviceMethod("start"), pc, aspectInstanceFactory);
+        afterAdvice = new AspectJAfterReturningAdvice(getAdviceMethod("commit"), pc, aspectInstanceFactory);
+    }
+
+    @Test
+    public void testProxyClassIsReused() {
+        PetStoreService first = createProxy(true);
+        long count = CglibProxyFactory.getProxyClassCount();
+
+        for (int i = 0; i < 10; i++) {
+            PetStoreService proxy = createProxy(true);
+            Assert.assertSame(first.getClass(), proxy.getClass());
+            Assert.assertNotSame(first, proxy);
+        }
+        Assert.assertEquals(count, CglibProxyFactory.getProxyClassCount());
+
+        // 每个实例的回调独立，仍然会调用到自己的 advice 和目标对象
+        first.placeOrder();
+        List<String> msgs = MessageTracker.getMsgs();
+        Assert.assertEquals(3, msgs.size());
+        Assert.assertEquals("start tx", msgs.get(0));
+        Assert.assertEquals("commit tx", msgs.get(2));
+        // 第一次调用时 MethodProxy 生成的 FastClass 不算代理类
+        Assert.assertEquals(count, CglibProxyFactory.getProxyClassCount());
+
+        // advice 不同，需要另一个代理类
+        PetStoreService other = createProxy(false);
+        Assert.assertNotSame(first.getClass(), other.getClass());
+        Assert.assertEquals(count + 1, CglibProxyFactory.getProxyClassCount());
+    }
+
+    private PetStoreService createProxy(boolean withAfterAdvice) {
+        AopConfigSupport config = new AopConfigSupport();
+        config.addAdvice(beforeAdvice);
+        if (withAfterAdvice) {
+            config.addAdvice(afterAdvice);
+        }
+        config.setTargetObject(new PetStoreService());
+        return (PetStoreService) new CglibProxyFactory(config).getProxy();
+    }
+}
@@ -0,0 +1,86 @@
+package org.litespring.test.v7;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.beans.PropertyValue;
+import org.litespring.beans.factory.BeanCreationException;
+import org.litespring.beans.factory.BeanCurrentlyInCreationException;
+import org.litespring.beans.factory.config.RuntimeBeanReference;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.support.GenericBeanDefinition;
+import org.litespring.service.v7.CycleA;
+import org.litespring.service.v7.CycleB;
+import org.litespring.service.v7.SlowService;
+
+public class ConcurrentSingletonTest {
+
+    private DefaultBeanFactory factory;
+
+    @Before
+    public void setUp() {
+        SlowService.resetInstanceCount();
+        factory = new DefaultBeanFactory();
+    }
+
+    @Test
+    public void testSingletonCreatedOnceUnderContention() throws Exception {
+        factory.registerBeanDefinition("slowService",
+                new GenericBeanDefinition("slowService", SlowService.class.getName()));
+
+        int threads = 16;
+        final CountDownLatch startGate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        startGate.await();
+                        return factory.getBean("slowService");
+                    }
+                }));
+            }
+            startGate.countDown();
+
+            Object first = futures.get(0).get();
+            for (Future<Object> future : futures) {
+                Assert.assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(1, SlowService.getInstanceCount());
+    }
+
+    @Test
+    public void testCircularReferenceIsReported() {
+        GenericBeanDefinition a = new GenericBeanDefinition("cycleA", CycleA.class.getName());
+        a.getPropertyValues().add(new PropertyValue("cycleB", new RuntimeBeanReference("cycleB")));
+        GenericBeanDefinition b = new GenericBeanDefinition("cycleB", CycleB.class.getName());
+        b.getPropertyValues().add(new PropertyValue("cycleA", new RuntimeBeanReference("cycleA")));
+        factory.registerBeanDefinition("cycleA", a);
+        factory.registerBeanDefinition("cycleB", b);
+
+        try {
+            factory.getBean("cycleA");
+        } catch (BeanCreationException e) {
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof BeanCurrentlyInCreationException)) {
+                cause = cause.getCause();
+            }
+            Assert.assertNotNull(cause);
+            return;
+        }
+        Assert.fail("expect BeanCurrentlyInCreationException");
+    }
+}
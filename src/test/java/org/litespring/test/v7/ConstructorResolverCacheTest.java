@@ -0,0 +1,34 @@
+package org.litespring.test.v7;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.beans.BeanDefinition;
+import org.litespring.beans.factory.support.ConstructorResolver;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.service.v3.PetStoreService;
+
+public class ConstructorResolverCacheTest {
+
+    @Test
+    public void testResolvedConstructorIsReused() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(new ClassPathResource("petstore-v3.xml"));
+        BeanDefinition bd = factory.getBeanDefinition("petStore");
+        // 引用参数换成 prototype，缓存命中时也必须重新解析
+        factory.getBeanDefinition("itemDao").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+
+        ConstructorResolver resolver = new ConstructorResolver(factory);
+        PetStoreService first = (PetStoreService) resolver.autowireConstructor(bd);
+        PetStoreService second = (PetStoreService) resolver.autowireConstructor(bd);
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(1, first.getVersion());
+        Assert.assertEquals(1, second.getVersion());
+        Assert.assertSame(first.getAccountDao(), second.getAccountDao());
+        Assert.assertNotNull(second.getItemDao());
+        Assert.assertNotSame(first.getItemDao(), second.getItemDao());
+    }
+}
@@ -0,0 +1,71 @@
+package org.litespring.test.v7;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.hedge.HedgingExecutor;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v7.QuoteService;
+
+public class HedgeAdviceTest {
+
+    private QuoteService quotes;
+
+    private HedgingExecutor hedging;
+
+    @Before
+    public void setUp() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-hedge.xml");
+        quotes = (QuoteService) ctx.getBean("quotes");
+        hedging = (HedgingExecutor) ctx.getBean("hedging");
+    }
+
+    @Test
+    public void testSlowCallIsHedged() throws Exception {
+        long start = System.currentTimeMillis();
+        // 第一次调用卡住，20ms 后发出的第二次调用先返回
+        Assert.assertEquals("slow:2", quotes.getQuote("slow"));
+        Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+
+        Assert.assertEquals(1, hedging.getCallCount());
+        Assert.assertEquals(1, hedging.getHedgeCount());
+        Assert.assertEquals(1, hedging.getHedgeWinCount());
+
+        // 落后的那次调用被中断
+        for (int i = 0; i < 100 && quotes.getInterruptedCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, quotes.getInterruptedCount());
+        Assert.assertNotSame(Thread.currentThread(), quotes.getLastQuoteThread());
+        // 对冲成功时发给调用线程的中断已经清掉
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void testFastCallIsNotHedged() {
+        Assert.assertEquals("fast:1", quotes.getQuote("fast"));
+        Assert.assertEquals(1, hedging.getCallCount());
+        Assert.assertEquals(0, hedging.getHedgeCount());
+        Assert.assertEquals(1, quotes.getInvocationCount());
+        // 第一次调用在调用线程上执行
+        Assert.assertSame(Thread.currentThread(), quotes.getLastQuoteThread());
+    }
+
+    @Test
+    public void testMethodWithoutIdempotentIsInvokedAsIs() {
+        Assert.assertEquals("traded x", quotes.placeTrade("x"));
+        Assert.assertEquals(0, hedging.getCallCount());
+    }
+
+    @Test
+    public void testExceptionIsPropagated() {
+        try {
+            quotes.getQuote("broken");
+            Assert.fail("exception expected");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("no quote for broken", e.getMessage());
+        }
+        Assert.assertEquals(0, hedging.getHedgeCount());
+    }
+}
@@ -0,0 +1,54 @@
+package org.litespring.test.v7;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.beans.factory.annotation.AutowiredAnnotationProcessor;
+import org.litespring.beans.factory.annotation.InjectionMetadata;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.support.GenericBeanDefinition;
+import org.litespring.dao.v4.AccountDao;
+import org.litespring.dao.v4.ItemDao;
+import org.litespring.service.v4.PetStoreService;
+
+public class InjectionMetadataCacheTest {
+
+    @Test
+    public void testMetadataIsReflectedOncePerClass() {
+        DefaultBeanFactory beanFactory = new DefaultBeanFactory();
+        AutowiredAnnotationProcessor processor = new AutowiredAnnotationProcessor();
+        processor.setBeanFactory(beanFactory);
+
+        InjectionMetadata first = processor.buildAutowiringMetadata(PetStoreService.class);
+        InjectionMetadata second = processor.buildAutowiringMetadata(PetStoreService.class);
+
+        // 元数据本身按类缓存，不会每次重新创建
+        Assert.assertSame(first, second);
+        Assert.assertEquals(2, first.getInjectionElements().size());
+        Assert.assertEquals(1, processor.getMetadataCacheMisses());
+        Assert.assertEquals(1, processor.getMetadataCacheHits());
+
+        processor.postProcessPropertyValues(new Object(), "plain");
+        Assert.assertEquals(2, processor.getMetadataCacheMisses());
+    }
+
+    @Test
+    public void testInjectionLooksUpMetadataOnce() {
+        DefaultBeanFactory beanFactory = new DefaultBeanFactory();
+        beanFactory.registerBeanDefinition("accountDao",
+                new GenericBeanDefinition("accountDao", AccountDao.class.getName()));
+        beanFactory.registerBeanDefinition("itemDao",
+                new GenericBeanDefinition("itemDao", ItemDao.class.getName()));
+        AutowiredAnnotationProcessor processor = new AutowiredAnnotationProcessor();
+        processor.setBeanFactory(beanFactory);
+
+        PetStoreService petStore = new PetStoreService();
+        processor.postProcessPropertyValues(petStore, "petStore");
+        processor.postProcessPropertyValues(new PetStoreService(), "petStore");
+
+        Assert.assertNotNull(petStore.getAccountDao());
+        Assert.assertNotNull(petStore.getItemDao());
+        // 每个 bean 只查一次缓存
+        Assert.assertEquals(1, processor.getMetadataCacheMisses());
+        Assert.assertEquals(1, processor.getMetadataCacheHits());
+    }
+}
@@ -0,0 +1,97 @@
+package org.litespring.test.v7;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.framework.AopConfigException;
+import org.litespring.aop.lock.LockRegistry;
+import org.litespring.aop.metrics.MetricsRegistry;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v7.AccountBook;
+
+public class LockAdviceTest {
+
+    private AccountBook book;
+
+    private LockRegistry locks;
+
+    @Before
+    public void setUp() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-lock.xml");
+        book = (AccountBook) ctx.getBean("book");
+        locks = (LockRegistry) ctx.getBean("locks");
+    }
+
+    @Test
+    public void testReadersNeverSeePartialWrites() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger inconsistent = new AtomicInteger();
+        Thread writer = new Thread() {
+            public void run() {
+                for (int i = 0; running.get(); i++) {
+                    book.transfer(i % 2 == 0 ? 1 : -1);
+                }
+            }
+        };
+        Thread[] readers = new Thread[3];
+        for (int t = 0; t < readers.length; t++) {
+            final boolean optimistic = (t != 0);
+            readers[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        int total = (optimistic ? book.getTotal() : book.getTotalLocked());
+                        if (total != 100) {
+                            inconsistent.incrementAndGet();
+                        }
+                    }
+                }
+            };
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        for (Thread reader : readers) {
+            reader.join(30000);
+        }
+        running.set(false);
+        writer.join(30000);
+
+        Assert.assertEquals(0, inconsistent.get());
+        Assert.assertEquals(100, book.getTotal());
+        Assert.assertTrue(locks.getOptimisticReadCount() > 0);
+    }
+
+    @Test
+    public void testOptimisticReadWithoutWriters() {
+        Assert.assertEquals(100, book.getTotal());
+        Assert.assertEquals(1, locks.getOptimisticReadCount());
+        Assert.assertEquals(0, locks.getOptimisticFailureCount());
+
+        Assert.assertEquals(100, book.getTotalLocked());
+        Assert.assertEquals(1, locks.getOptimisticReadCount());
+    }
+
+    @Test
+    public void testNoOptimisticReadAroundOtherAdvice() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-lock-metrics.xml");
+        AccountBook book = (AccountBook) ctx.getBean("book");
+        LockRegistry locks = (LockRegistry) ctx.getBean("locks");
+        MetricsRegistry metrics = (MetricsRegistry) ctx.getBean("metrics");
+
+        Assert.assertEquals(100, book.getTotal());
+        // metrics advice 在 lock advice 里面，只能在读锁下执行一次
+        Assert.assertEquals(0, locks.getOptimisticReadCount());
+        Assert.assertEquals(1, metrics.getAllMetrics().size());
+        Assert.assertEquals(1, metrics.getAllMetrics().iterator().next().getCallCount());
+    }
+
+    @Test(expected = AopConfigException.class)
+    public void testConflictingAnnotations() {
+        book.audit();
+    }
+}
@@ -0,0 +1,116 @@
+package org.litespring.test.v7;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.aop.metrics.LatencyHistogram;
+import org.litespring.aop.metrics.LatencySnapshot;
+import org.litespring.aop.metrics.MethodMetrics;
+import org.litespring.aop.metrics.MetricsRegistry;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.service.v5.PetStoreService;
+import org.litespring.util.MessageTracker;
+
+public class MetricsAdviceTest {
+
+    @Before
+    public void setUp() {
+        MessageTracker.clearMsgs();
+    }
+
+    @Test
+    public void testCallsAndErrorsAreRecorded() throws Exception {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7-metrics.xml");
+        PetStoreService petStore = (PetStoreService) ctx.getBean("petStore");
+        MetricsRegistry registry = (MetricsRegistry) ctx.getBean("metrics");
+
+        for (int i = 0; i < 5; i++) {
+            petStore.placeOrder();
+        }
+        for (int i = 0; i < 2; i++) {
+            try {
+                petStore.placeOrderWithException();
+                Assert.fail("exception expected");
+            } catch (NullPointerException e) {
+                // expected
+            }
+        }
+        petStore.getItemDao();
+
+        MethodMetrics placeOrder = registry.getMetrics(PetStoreService.class.getMethod("placeOrder"));
+        Assert.assertEquals(5, placeOrder.getCallCount());
+        Assert.assertEquals(0, placeOrder.getErrorCount());
+        Assert.assertEquals(5, placeOrder.getLatency().getCount());
+
+        MethodMetrics failing = registry.getMetrics(PetStoreService.class.getMethod("placeOrderWithException"));
+        Assert.assertEquals(2, failing.getCallCount());
+        Assert.assertEquals(2, failing.getErrorCount());
+
+        // 没有匹配 pointcut 的方法不记录
+        Assert.assertNull(registry.getMetrics(PetStoreService.class.getMethod("getItemDao")));
+        Assert.assertEquals(2, registry.getAllMetrics().size());
+        Assert.assertEquals(5, MessageTracker.getMsgs().size());
+    }
+
+    @Test
+    public void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 10000; v++) {
+            histogram.record(v * 1000);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(10000, snapshot.getCount());
+        Assert.assertEquals(10000000, snapshot.getMax());
+        Assert.assertEquals(5000500, snapshot.getMean(), 0.001);
+
+        assertWithin(5000000, snapshot.getValueAtPercentile(50));
+        assertWithin(9900000, snapshot.getValueAtPercentile(99));
+        Assert.assertEquals(10000000, snapshot.getValueAtPercentile(100));
+        assertWithin(1000, snapshot.getValueAtPercentile(0));
+
+        // 小于 16 的值精确记录
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(3);
+        small.record(7);
+        Assert.assertEquals(3, small.snapshot().getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 8;
+        final int perThread = 20000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < perThread; j++) {
+                        histogram.record(j);
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Assert.assertEquals(threads * perThread, histogram.snapshot().getCount());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // 每个桶的宽度不超过下界的 1/16
+        Assert.assertTrue("expected ~" + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 16);
+    }
+}
@@ -0,0 +1,72 @@
+package org.litespring.test.v7;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.service.v5.PetStoreService;
+
+public class PointcutCacheTest {
+
+    @Test
+    public void testPointcutsSharingExpression() throws Exception {
+        String expression = "execution(* org.litespring.service.v5.*.placeOrder(..))";
+        AspectJExpressionPointcut pc1 = new AspectJExpressionPointcut();
+        pc1.setExpression(expression);
+        AspectJExpressionPointcut pc2 = new AspectJExpressionPointcut();
+        pc2.setExpression(expression);
+
+        Method placeOrder = PetStoreService.class.getMethod("placeOrder");
+        Method getAccountDao = PetStoreService.class.getMethod("getAccountDao");
+        for (int i = 0; i < 2; i++) {
+            Assert.assertTrue(pc1.matches(placeOrder));
+            Assert.assertTrue(pc2.matches(placeOrder));
+            Assert.assertFalse(pc1.matches(getAccountDao));
+            Assert.assertFalse(pc2.matches(getAccountDao));
+        }
+    }
+
+    @Test
+    public void testChangingExpressionResetsCache() throws Exception {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v5.*.placeOrder(..))");
+        Method getAccountDao = PetStoreService.class.getMethod("getAccountDao");
+        Assert.assertFalse(pc.matches(getAccountDao));
+
+        pc.setExpression("execution(* org.litespring.service.v5.*.getAccountDao(..))");
+        Assert.assertTrue(pc.matches(getAccountDao));
+    }
+
+    @Test
+    public void testMatchingWhileExpressionChanges() throws Exception {
+        final AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("within(org.litespring.service.v5.*)");
+        final Method placeOrder = PetStoreService.class.getMethod("placeOrder");
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread matcher = new Thread() {
+            public void run() {
+                try {
+                    while (running.get()) {
+                        pc.matches(placeOrder);
+                        pc.matches(PetStoreService.class);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        };
+        matcher.start();
+        // 重新设置表达式会清空解析结果，匹配线程不能因此拿到 null
+        long deadline = System.currentTimeMillis() + 300;
+        for (int i = 0; System.currentTimeMillis() < deadline && failure.get() == null; i++) {
+            pc.setExpression(i % 2 == 0 ? "within(org.litespring.service.v5.*)" : "within(org.litespring.*..*)");
+        }
+        running.set(false);
+        matcher.join();
+        Assert.assertNull(failure.get());
+    }
+}
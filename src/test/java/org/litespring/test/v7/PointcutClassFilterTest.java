@@ -0,0 +1,34 @@
+package org.litespring.test.v7;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.aop.aspectj.AspectJAutoProxyCreator;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.dao.v5.AccountDao;
+import org.litespring.service.v6.IPetStoreService;
+import org.litespring.service.v6.PetStoreService;
+
+public class PointcutClassFilterTest {
+
+    @Test
+    public void testClassFilter() {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v6.*.placeOrder(..))");
+
+        // 声明类型是通配符时 AspectJ 只能给出“可能匹配”，由方法级别的匹配排除
+        Assert.assertTrue(pc.getClassFilter().matches(PetStoreService.class));
+
+        Assert.assertTrue(AspectJAutoProxyCreator.canApply(pc, PetStoreService.class));
+        Assert.assertFalse(AspectJAutoProxyCreator.canApply(pc, AccountDao.class));
+    }
+
+    @Test
+    public void testClassFilterFollowsDeclaringInterface() {
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v6.IPetStoreService.*(..))");
+
+        Assert.assertTrue(pc.getClassFilter().matches(IPetStoreService.class));
+        Assert.assertTrue(pc.getClassFilter().matches(PetStoreService.class));
+        Assert.assertFalse(pc.getClassFilter().matches(AccountDao.class));
+    }
+}
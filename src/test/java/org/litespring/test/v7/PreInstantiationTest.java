@@ -0,0 +1,110 @@
+package org.litespring.test.v7;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.litespring.beans.PropertyValue;
+import org.litespring.beans.factory.BeanCreationException;
+import org.litespring.beans.factory.config.RuntimeBeanReference;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.support.GenericBeanDefinition;
+import org.litespring.beans.factory.support.SingletonPreInstantiator;
+import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.litespring.context.ApplicationContext;
+import org.litespring.context.support.ClassPathXmlApplicationContext;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.service.v7.ChainedService;
+import org.litespring.service.v7.OrderService;
+import org.litespring.service.v7.SlowService;
+
+public class PreInstantiationTest {
+
+    @Before
+    public void setUp() {
+        SlowService.resetInstanceCount();
+    }
+
+    @Test
+    public void testPreInstantiateInDependencyOrder() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(new ClassPathResource("petstore-v7.xml"));
+
+        SingletonPreInstantiator.Report report = new SingletonPreInstantiator(factory, 4).preInstantiate();
+
+        Assert.assertEquals(3, report.getBeanCount());
+        Assert.assertTrue(report.getFailedBeanNames().isEmpty());
+        Assert.assertEquals(2, report.getCriticalPath().size());
+        Assert.assertEquals("orderService", report.getCriticalPath().get(1));
+        Assert.assertTrue(report.getCriticalPathNanos() <= report.getTotalNanos());
+        Assert.assertEquals(2, SlowService.getInstanceCount());
+
+        OrderService orderService = (OrderService) factory.getBean("orderService");
+        Assert.assertSame(factory.getBean("slowA"), orderService.getFirst());
+        Assert.assertSame(factory.getBean("slowB"), orderService.getSecond());
+        Assert.assertEquals(2, SlowService.getInstanceCount());
+    }
+
+    @Test
+    public void testContextCreatesSingletonsOnStartup() {
+        ApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v7.xml");
+        Assert.assertEquals(2, SlowService.getInstanceCount());
+
+        OrderService orderService = (OrderService) ctx.getBean("orderService");
+        Assert.assertNotNull(orderService.getFirst());
+        Assert.assertEquals(2, SlowService.getInstanceCount());
+    }
+
+    @Test
+    public void testFailingSingletonFailsStartup() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(new ClassPathResource("petstore-v7.xml"));
+        GenericBeanDefinition broken = new GenericBeanDefinition("broken", OrderService.class.getName());
+        broken.getPropertyValues().add(new PropertyValue("first", new RuntimeBeanReference("missing")));
+        factory.registerBeanDefinition("broken", broken);
+
+        try {
+            new SingletonPreInstantiator(factory, 4).preInstantiate();
+            Assert.fail("BeanCreationException expected");
+        } catch (BeanCreationException e) {
+            // expected
+        }
+        // 其它 singleton 照常创建完
+        Assert.assertEquals(2, SlowService.getInstanceCount());
+    }
+
+    @Test
+    public void testLongDependencyChain() {
+        // 依赖链的长度不应该变成栈的深度
+        for (int parallelism : new int[] {1, 4}) {
+            DefaultBeanFactory factory = new DefaultBeanFactory();
+            int length = 50000;
+            for (int i = 0; i < length; i++) {
+                GenericBeanDefinition bd = new GenericBeanDefinition("chain" + i, ChainedService.class.getName());
+                if (i > 0) {
+                    bd.getPropertyValues().add(new PropertyValue("previous", new RuntimeBeanReference("chain" + (i - 1))));
+                }
+                factory.registerBeanDefinition("chain" + i, bd);
+            }
+
+            SingletonPreInstantiator.Report report = new SingletonPreInstantiator(factory, parallelism).preInstantiate();
+
+            Assert.assertEquals(length, report.getBeanCount());
+            Assert.assertTrue(report.getFailedBeanNames().isEmpty());
+            Assert.assertEquals(length, report.getCriticalPath().size());
+            ChainedService last = (ChainedService) factory.getBean("chain" + (length - 1));
+            Assert.assertSame(factory.getBean("chain" + (length - 2)), last.getPrevious());
+        }
+    }
+
+    @Test
+    public void testUnloadableSingletonIsLeftLazy() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.registerBeanDefinition("unloadable", new GenericBeanDefinition("unloadable", "xxx.Missing"));
+
+        SingletonPreInstantiator.Report report = new SingletonPreInstantiator(factory, 4).preInstantiate();
+
+        Assert.assertEquals(0, report.getBeanCount());
+    }
+}
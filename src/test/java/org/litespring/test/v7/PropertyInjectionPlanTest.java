@@ -0,0 +1,33 @@
+package org.litespring.test.v7;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.beans.BeanDefinition;
+import org.litespring.beans.factory.support.DefaultBeanFactory;
+import org.litespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.litespring.core.io.ClassPathResource;
+import org.litespring.service.v2.PetStoreService;
+
+public class PropertyInjectionPlanTest {
+
+    @Test
+    public void testPrototypeReusesInjectionPlan() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(new ClassPathResource("petstore-v2.xml"));
+        factory.getBeanDefinition("petStore").setScope(BeanDefinition.SCOPE_PROTOTYPE);
+
+        PetStoreService first = (PetStoreService) factory.getBean("petStore");
+        PetStoreService second = (PetStoreService) factory.getBean("petStore");
+
+        Assert.assertNotSame(first, second);
+        for (PetStoreService petStore : new PetStoreService[]{first, second}) {
+            Assert.assertEquals("zjl", petStore.getOwner());
+            Assert.assertEquals(2, petStore.getVersion());
+            Assert.assertNotNull(petStore.getItemDao());
+        }
+        // 引用槽每次都会重新解析，singleton 依赖仍然是同一个对象
+        Assert.assertSame(first.getAccountDao(), second.getAccountDao());
+        Assert.assertSame(factory.getBean("accountDao"), first.getAccountDao());
+    }
+}
@@ -0,0 +1,100 @@
+package org.litespring.test.v7;
+
+import java.lang.reflect.Method;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.litespring.aop.aspectj.AspectJExpressionPointcut;
+import org.litespring.dao.v5.AccountDao;
+import org.litespring.service.v6.IPetStoreService;
+import org.litespring.service.v7.CatalogService;
+import org.litespring.service.v7.CatalogServiceImpl;
+import org.litespring.service.v7.InventoryServiceImpl;
+
+public class SimpleExecutionPointcutTest {
+
+    private static final String[] EXPRESSIONS = {
+            "execution(* org.litespring.service.v5.*.placeOrder(..))",
+            "execution(* org.litespring.service.v6.IPetStoreService.*(..))",
+            "execution(* org.litespring.service..*.*(..))",
+            "execution(* org.litespring..*Impl.find*(..))",
+            "execution(* org..v7.*Service.*(*))",
+            "execution(public * org.litespring.service.v7.*.*(*, ..))",
+            "execution(void org.litespring.service.*.*.*())",
+            "execution(int *.*.*.*.*.get*Count())",
+            "execution(* *(..))",
+            "execution(* *.toString())",
+            "execution(* org.litespring.dao..*.*(..))",
+            "execution(* org.*.*.*.*Impl.*(..))",
+            "execution(* *.*(*))",
+    };
+
+    private static final Class<?>[] CLASSES = {
+            org.litespring.service.v5.PetStoreService.class,
+            org.litespring.service.v6.PetStoreService.class,
+            IPetStoreService.class,
+            CatalogService.class,
+            CatalogServiceImpl.class,
+            InventoryServiceImpl.class,
+            AccountDao.class,
+            Object.class,
+    };
+
+    @Test
+    public void testAgreesWithAspectJ() {
+        for (String expression : EXPRESSIONS) {
+            AspectJExpressionPointcut simple = new AspectJExpressionPointcut();
+            simple.setExpression(expression);
+            // 组合表达式不属于简单子集，一定由 AspectJ 匹配
+            AspectJExpressionPointcut full = new AspectJExpressionPointcut();
+            full.setExpression(expression + " && " + expression);
+
+            for (Class<?> clazz : CLASSES) {
+                boolean classMatches = simple.matches(clazz);
+                for (Method method : clazz.getDeclaredMethods()) {
+                    boolean expected = full.matches(method);
+                    Assert.assertEquals(expression + " / " + method, expected, simple.matches(method));
+                    if (expected) {
+                        Assert.assertTrue(expression + " / " + clazz, classMatches);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testComplexExpressionsFallBackToAspectJ() throws Exception {
+        Method findItem = CatalogService.class.getMethod("findItem", String.class);
+        Method getInvocationCount = CatalogService.class.getMethod("getInvocationCount");
+
+        AspectJExpressionPointcut pc = new AspectJExpressionPointcut();
+        pc.setExpression("execution(* org.litespring.service.v7.*.*(String))");
+        Assert.assertTrue(pc.matches(findItem));
+        Assert.assertFalse(pc.matches(getInvocationCount));
+
+        pc.setExpression("execution(* org.litespring.service.v7.*.*(..)) and not execution(int *(..))");
+        Assert.assertTrue(pc.matches(findItem));
+        Assert.assertFalse(pc.matches(getInvocationCount));
+    }
+
+    @Test
+    public void testNestedClassesFallBackToAspectJ() throws Exception {
+        String expression = "execution(* org.litespring.test.v7.*.run(..))";
+        AspectJExpressionPointcut simple = new AspectJExpressionPointcut();
+        simple.setExpression(expression);
+        AspectJExpressionPointcut full = new AspectJExpressionPointcut();
+        full.setExpression(expression + " && " + expression);
+        Method run = Nested.class.getMethod("run");
+        Assert.assertEquals(full.matches(run), simple.matches(run));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExpressionRequired() throws Exception {
+        new AspectJExpressionPointcut().matches(Object.class.getMethod("toString"));
+    }
+
+    public static class Nested {
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.litespring.test.v7;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+@RunWith(Suite.class)
+@SuiteClasses({ ConcurrentSingletonTest.class, PreInstantiationTest.class,
+        BeanTypeLookupTest.class, InjectionMetadataCacheTest.class,
+        PropertyInjectionPlanTest.class, BeanAccessorStrategyTest.class,
+        ConstructorResolverCacheTest.class, AdviceChainCacheTest.class,
+        PointcutCacheTest.class, CglibProxyClassReuseTest.class,
+        CglibCallbackFilterTest.class, CglibInterfaceProxyTest.class,
+        PointcutClassFilterTest.class, AspectInstanceCacheTest.class, MetricsAdviceTest.class,
+        CacheAdviceTest.class, BatchAdviceTest.class, AroundAdviceTest.class,
+        SimpleExecutionPointcutTest.class, HedgeAdviceTest.class,
+        AsyncAdviceTest.class, BulkheadAdviceTest.class,
+        LockAdviceTest.class, AotGeneratorTest.class })
+public class V7AllTests {
+
+}